@@ -0,0 +1,43 @@
+package com.patrick.reminder.config;
+
+import com.patrick.reminder.mail.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+/**
+ * JavaMailSender с пулом SMTP-соединений вместо стандартного JavaMailSenderImpl.
+ * Настройки подключения (spring.mail.*) переносятся так же, как это делает автоконфигурация Spring Boot.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties properties,
+                                           @Value("${reminder.mail.pool-size:8}") int poolSize,
+                                           @Value("${reminder.mail.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                                           @Value("${reminder.mail.max-idle-seconds:60}") long maxIdleSeconds) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(poolSize, maxMessagesPerConnection, maxIdleSeconds);
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        if (!properties.getProperties().isEmpty()) {
+            Properties javaMailProperties = new Properties();
+            javaMailProperties.putAll(properties.getProperties());
+            sender.setJavaMailProperties(javaMailProperties);
+        }
+        return sender;
+    }
+}
@@ -1,35 +1,83 @@
 package com.patrick.reminder.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
-import org.springframework.security.config.Customizer;
+import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+
 
-@Profile("!test")
 @Configuration
 public class SecurityConfig {
 
+    // Токен принимается от любого аккаунта Google, поэтому администраторы задаются явно — по sub
+    @Value("${reminder.security.admin-subs:}")
+    private Set<String> adminSubs = Set.of();
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthoritiesConverter jwtAuthoritiesConverter)
+            throws Exception {
+        JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(jwtAuthoritiesConverter);
+
         http
                 // Авторизация
                 .authorizeHttpRequests(auth -> auth
                         // Разрешаем публично только корень, ошибки, и т.п. (по желанию)
-                        .requestMatchers("/", "/error").permitAll()
+                        .requestMatchers("/", "/error", "/actuator/health", "/actuator/health/**").permitAll()
+                        // Служебные эндпоинты (пороги опроса на весь кластер, метрики) — только администраторам
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // Остальные запросы требуют авторизации (Bearer JWT)
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 // Resource Server (JWT)
                 .oauth2ResourceServer(oauth2 -> oauth2
-                        .jwt(Customizer.withDefaults())
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter))
                 )
                 // Отключим csrf (не обязателен для API)
                 .csrf(csrf -> csrf.disable());
 
         return http.build();
     }
+
+    /**
+     * Бин — чтобы тесты строили права запроса тем же преобразованием, что и фильтр.
+     */
+    @Bean
+    public JwtAuthoritiesConverter jwtAuthoritiesConverter() {
+        return new JwtAuthoritiesConverter(adminSubs);
+    }
+
+    /**
+     * Права из токена: обычные SCOPE_* и ROLE_ADMIN для sub из reminder.security.admin-subs.
+     */
+    public static class JwtAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+        private final JwtGrantedAuthoritiesConverter scopes = new JwtGrantedAuthoritiesConverter();
+        private final Set<String> adminSubs;
+
+        JwtAuthoritiesConverter(Set<String> adminSubs) {
+            this.adminSubs = adminSubs;
+        }
+
+        @Override
+        public Collection<GrantedAuthority> convert(Jwt jwt) {
+            Collection<GrantedAuthority> authorities = new ArrayList<>(scopes.convert(jwt));
+            if (adminSubs.contains(jwt.getSubject())) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            }
+            return authorities;
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package com.patrick.reminder.controller;
+
+import com.patrick.reminder.dto.notification.DeadLetterResponseDto;
+import com.patrick.reminder.service.notification.DeadLetterService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Контроллер для недоставленных уведомлений (dead letter): просмотр и повторная отправка.
+ */
+@RestController
+@RequestMapping("/api/v1/notification/dead-letter")
+public class DeadLetterController {
+
+    private final DeadLetterService deadLetterService;
+
+    public DeadLetterController(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+
+    @GetMapping("/list")
+    public ResponseEntity<List<DeadLetterResponseDto>> getDeadLetters(
+            @AuthenticationPrincipal Jwt jwt
+    ) {
+        String sub = jwt.getSubject();
+        return ResponseEntity.ok(deadLetterService.getDeadLetters(sub));
+    }
+
+    /**
+     * Возвращает уведомление в очередь доставки (outbox).
+     */
+    @PostMapping("/{id}/replay")
+    public ResponseEntity<Void> replay(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Jwt jwt
+    ) {
+        String sub = jwt.getSubject();
+        DeadLetterResponseDto deadLetter = deadLetterService.getDeadLetter(id);
+        if (deadLetter == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!deadLetter.getUserSub().equals(sub)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (!deadLetterService.replay(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
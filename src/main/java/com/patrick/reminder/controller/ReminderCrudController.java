@@ -1,17 +1,23 @@
 package com.patrick.reminder.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.patrick.reminder.dto.reminder.ReminderCreatetDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderUpdateDto;
 import com.patrick.reminder.service.reminder.ReminderCrudService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -22,9 +28,12 @@ import java.util.List;
 public class ReminderCrudController {
 
     private final ReminderCrudService crudService;
+    // Строки NDJSON: одна строка — один JSON, без отступов (indent_output только для обычных ответов)
+    private final ObjectWriter ndjsonWriter;
 
-    public ReminderCrudController(ReminderCrudService crudService) {
+    public ReminderCrudController(ReminderCrudService crudService, ObjectMapper objectMapper) {
         this.crudService = crudService;
+        this.ndjsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
     }
 
     // ------------------ CREATE ------------------
@@ -40,7 +49,13 @@ public class ReminderCrudController {
         // которая представляет собой субъект (subject) токена,
         // используется для идентификации пользователя, для которого был выдан токен.
         String sub = jwt.getSubject();
-        ReminderResponseDto created = crudService.createReminder(sub, dto);
+        ReminderResponseDto created;
+        try {
+            created = crudService.createReminder(sub, dto);
+        } catch (IllegalArgumentException e) {
+            // Некорректное правило повторения
+            return ResponseEntity.badRequest().build();
+        }
 
         // ResponseEntity — это контейнер для HTTP-ответа в Spring,
         // который включает статусный код, заголовки и тело ответа.
@@ -83,19 +98,48 @@ public class ReminderCrudController {
         return ResponseEntity.ok(reminders);
     }
 
+    /**
+     * /list с Accept: application/x-ndjson — по напоминанию на строку, каждое пишется сразу после чтения из БД.
+     * Список целиком не собирается ни в сервисе, ни здесь, поэтому память не зависит от числа напоминаний.
+     * Без этого типа в Accept (или с Accept "любой тип") отвечает обычный getAllReminders.
+     */
+    @GetMapping(value = "/list", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllReminders(
+            @AuthenticationPrincipal Jwt jwt
+    ) {
+        String sub = jwt.getSubject();
+        StreamingResponseBody body = out -> crudService.streamAllReminders(sub, reminder -> {
+            try {
+                out.write(ndjsonWriter.writeValueAsBytes(reminder));
+                out.write('\n');
+            } catch (IOException e) {
+                // Клиент закрыл соединение — дальше читать из БД незачем
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/paged")
-    public ResponseEntity<Page<ReminderResponseDto>> getRemindersPaged(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<ReminderPageDto> getRemindersPaged(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
             @AuthenticationPrincipal Jwt jwt
     ) {
         String sub = jwt.getSubject();
-        PageRequest pr = PageRequest.of(page, size); // создается объект, который управляет пагинацией
-        Page<ReminderResponseDto> pageResult = crudService.getRemindersPaged(sub, pr);
+        ReminderPageDto pageResult;
+        try {
+            pageResult = crudService.getRemindersPaged(sub, cursor, size);
+        } catch (IllegalArgumentException e) {
+            // Испорченный курсор или курсор от другой выдачи
+            return ResponseEntity.badRequest().build();
+        }
 
-        // Пагинированный результат возвращается как объект типа Page,
-        // который включает в себя не только данные (напоминания), но и дополнительную
-        // информацию о пагинации, такую как общее количество страниц, текущая страница и т.д.
+        // Страница по курсору: content — напоминания, nextCursor — параметр cursor для следующей
+        // страницы (null — страниц больше нет). Номера страниц и общего числа нет: count(*) по всем
+        // напоминаниям пользователя на каждый запрос как раз и не нужен.
         return ResponseEntity.ok(pageResult);
     }
 
@@ -116,7 +160,12 @@ public class ReminderCrudController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        ReminderResponseDto updated = crudService.updateReminder(dto);
+        ReminderResponseDto updated;
+        try {
+            updated = crudService.updateReminder(dto);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         if (updated == null) {
             return ResponseEntity.notFound().build();
         }
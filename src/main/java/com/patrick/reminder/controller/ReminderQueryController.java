@@ -1,9 +1,11 @@
 package com.patrick.reminder.controller;
 
 import com.patrick.reminder.dto.reminder.ReminderFilterRequestDto;
-import com.patrick.reminder.dto.reminder.ReminderResponseDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderSearchRequestDto;
+import com.patrick.reminder.dto.reminder.ReminderSuggestionDto;
 import com.patrick.reminder.service.reminder.ReminderQueryService;
+import com.patrick.reminder.service.reminder.ReminderSuggestService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -13,53 +15,84 @@ import java.util.List;
 
 /**
  * Контроллер для поиска, сортировки и фильтрации (Reminder).
+ * Все выдачи — только напоминания текущего пользователя, страницами по курсору:
+ * size — размер страницы, cursor — nextCursor из предыдущего ответа (без него — первая страница).
  */
 @RestController
 @RequestMapping("/api/v1/reminder")
 public class ReminderQueryController {
 
     private final ReminderQueryService queryService;
+    private final ReminderSuggestService suggestService;
 
-    public ReminderQueryController(ReminderQueryService queryService) {
+    public ReminderQueryController(ReminderQueryService queryService, ReminderSuggestService suggestService) {
         this.queryService = queryService;
+        this.suggestService = suggestService;
     }
 
     /**
      * Сортировка напоминаний.
      */
     @GetMapping("/sort")
-    public ResponseEntity<List<ReminderResponseDto>> sortReminders(
+    public ResponseEntity<ReminderPageDto> sortReminders(
             @RequestParam String by,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal Jwt jwt
     ) {
         String sub = jwt.getSubject();
-        List<ReminderResponseDto> sortedReminders = queryService.sortReminders(sub, by);
-        return ResponseEntity.ok(sortedReminders);
+        try {
+            return ResponseEntity.ok(queryService.sortReminders(sub, by, cursor, size));
+        } catch (IllegalArgumentException e) {
+            // Неизвестное поле сортировки или чужой/испорченный курсор
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
      * Фильтрация напоминаний по диапазонам дат/времени.
      */
     @GetMapping("/filter")
-    public ResponseEntity<List<ReminderResponseDto>> filterReminders(
+    public ResponseEntity<ReminderPageDto> filterReminders(
             ReminderFilterRequestDto filterDto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal Jwt jwt
     ) {
         String sub = jwt.getSubject();
-        List<ReminderResponseDto> filteredReminders = queryService.filterReminders(sub, filterDto);
-        return ResponseEntity.ok(filteredReminders);
+        try {
+            return ResponseEntity.ok(queryService.filterReminders(sub, filterDto, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
      * Поиск напоминаний по конкретным полям (названию, дате, времени).
      */
     @GetMapping("/search")
-    public ResponseEntity<List<ReminderResponseDto>> searchReminders(
+    public ResponseEntity<ReminderPageDto> searchReminders(
             ReminderSearchRequestDto searchDto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal Jwt jwt
     ) {
         String sub = jwt.getSubject();
-        List<ReminderResponseDto> foundReminders = queryService.searchReminders(sub, searchDto);
-        return ResponseEntity.ok(foundReminders);
+        try {
+            return ResponseEntity.ok(queryService.searchReminders(sub, searchDto, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Подсказки названий при наборе: только id и название, не больше reminder.suggest.limit.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ReminderSuggestionDto>> suggest(
+            @RequestParam String query,
+            @AuthenticationPrincipal Jwt jwt
+    ) {
+        return ResponseEntity.ok(suggestService.suggest(jwt.getSubject(), query));
     }
 }
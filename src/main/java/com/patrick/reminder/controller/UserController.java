@@ -34,7 +34,13 @@ public class UserController {
         // Извлекаем sub (уникальный ID пользователя) из токена
         String sub = jwt.getSubject();
         // Делаем create/update пользователя с этим sub
-        UserResponseDto createdUser = userService.createOrUpdateUser(sub, dto);
+        UserResponseDto createdUser;
+        try {
+            createdUser = userService.createOrUpdateUser(sub, dto);
+        } catch (IllegalArgumentException e) {
+            // Неизвестный часовой пояс
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.ok(createdUser);
     }
 
@@ -0,0 +1,27 @@
+package com.patrick.reminder.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO для возврата информации о недоставленном уведомлении.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterResponseDto {
+    private Long id;
+    private Long reminderId;
+    private String reminderName;
+
+    private int attempts;
+    private String failedChannels;
+
+    private LocalDateTime enqueuedAt;
+    private LocalDateTime failedAt;
+
+    private String userSub;
+}
@@ -22,4 +22,7 @@ public class ReminderCreatetDto {
 
     @DateTimeFormat(pattern = "HH:mm")
     private LocalTime remindTime;
+
+    // Правило повторения: RRULE ("FREQ=WEEKLY;BYDAY=MO,WE") или cron ("0 0 9 * * MON-FRI"); пусто — разовое
+    private String recurrence;
 }
@@ -0,0 +1,19 @@
+package com.patrick.reminder.dto.reminder;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO страницы напоминаний при выдаче по курсору.
+ * Следующая страница — тот же запрос с cursor = nextCursor; nextCursor = null — страниц больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderPageDto {
+    private List<ReminderResponseDto> content;
+    private String nextCursor;
+}
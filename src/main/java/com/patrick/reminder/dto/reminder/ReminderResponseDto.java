@@ -2,6 +2,7 @@ package com.patrick.reminder.dto.reminder;
 
 import lombok.Data;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -17,6 +18,11 @@ public class ReminderResponseDto {
     private LocalDate remindDate;
     private LocalTime remindTime;
 
+    private Instant remindAt;
+
+    private String recurrence;
+    private Instant nextFireAt;
+
     private Long userId;
     private String userSub;
 }
@@ -15,6 +15,9 @@ import java.time.LocalTime;
 @Builder
 public class ReminderSearchRequestDto {
 
+    // Полнотекстовый запрос по названию и описанию (выдача по релевантности); с остальными полями не сочетается
+    private String query;
+
     private String name;
 
     private String description;
@@ -0,0 +1,16 @@
+package com.patrick.reminder.dto.reminder;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO подсказки при наборе названия: только id и название.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderSuggestionDto {
+    private Long id;
+    private String name;
+}
@@ -21,4 +21,6 @@ public class ReminderUpdateDto {
 
     @DateTimeFormat(pattern = "HH:mm")
     private LocalTime remindTime;
+
+    private String recurrence;
 }
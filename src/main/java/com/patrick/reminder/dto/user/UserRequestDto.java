@@ -9,4 +9,7 @@ public class UserRequestDto {
     private String username;
     private String email;
     private String telegramId;
+    private String locale;
+    private String timeZone; // IANA, например Europe/Moscow; null — пояс по умолчанию
+    private Boolean digestEnabled; // null — не менять
 }
@@ -12,4 +12,7 @@ public class UserResponseDto {
     private String username;
     private String email;
     private String telegramId;
+    private String locale;
+    private String timeZone;
+    private boolean digestEnabled;
 }
@@ -0,0 +1,40 @@
+package com.patrick.reminder.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Недоставленное уведомление: запись outbox, исчерпавшая reminder.outbox.max-attempts попыток.
+ * Больше не отправляется автоматически; вернуть в outbox можно через REST (replay).
+ */
+@Entity
+@Table(name = "notification_dead_letter")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reminder_id", nullable = false)
+    private Long reminderId;
+
+    private int attempts;
+
+    // Каналы, в которые не удалось доставить при последней попытке, через запятую
+    private String failedChannels;
+
+    // Срабатывание и сводка пропущенных — как в записи outbox, чтобы replay не отправил доставленные каналы повторно
+    private Instant fireAt;
+    private int missedCount;
+
+    private LocalDateTime enqueuedAt;
+    private LocalDateTime failedAt;
+}
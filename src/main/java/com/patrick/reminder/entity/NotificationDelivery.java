@@ -0,0 +1,41 @@
+package com.patrick.reminder.entity;
+
+import com.patrick.reminder.service.notification.NotificationChannel;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Доставка одного срабатывания напоминания в один канал.
+ * Пишется после успешной отправки; перед отправкой каналы с такой записью пропускаются.
+ */
+@Entity
+@Table(name = "notification_delivery")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // reminder_id:fire_at:channel (см. NotificationDeliveryService.deliveryKey)
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+
+    @Column(name = "reminder_id", nullable = false)
+    private Long reminderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationChannel channel;
+
+    // Срабатывание, постановка в outbox и доставка — задержка на каждом отрезке
+    private Instant fireAt;
+    private Instant enqueuedAt;
+    private Instant deliveredAt;
+}
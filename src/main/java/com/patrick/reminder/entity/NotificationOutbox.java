@@ -0,0 +1,46 @@
+package com.patrick.reminder.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Запись outbox: напоминание, которое пора доставить.
+ * Создаётся сканером вместе с пометкой sent=true (в одной транзакции),
+ * удаляется воркером доставки после успешной отправки.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reminder_id", nullable = false)
+    private Long reminderId;
+
+    private LocalDateTime createdAt;
+
+    // Срабатывание напоминания, за которое отправляется уведомление (у повторяющихся — не remindDate/remindTime)
+    private Instant fireAt;
+
+    // Запись берётся в работу не раньше этого момента (используется для backoff)
+    private LocalDateTime availableAt;
+
+    private int attempts;
+
+    // Сводка пропущенных: столько давно просроченных напоминаний пользователя заменяет эта запись (0 — обычная)
+    private int missedCount;
+
+    // Аренда записи узлом доставки (см. NotificationOutboxRepository.findClaimable)
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
+}
@@ -0,0 +1,31 @@
+package com.patrick.reminder.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Пороги адаптивного опроса, изменённые на лету (см. AdaptivePollingPolicy).
+ * Единственная строка на кластер — с id = SINGLETON_ID.
+ */
+@Entity
+@Table(name = "reminder_polling_settings")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PollingSettings {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "min_interval_seconds", nullable = false)
+    private long minIntervalSeconds;
+
+    @Column(name = "max_interval_seconds", nullable = false)
+    private long maxIntervalSeconds;
+
+    @Column(name = "backlog_threshold", nullable = false)
+    private int backlogThreshold;
+}
@@ -3,6 +3,7 @@ package com.patrick.reminder.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -24,9 +25,21 @@ public class Reminder {
     @Column(length = 4096)
     private String description;
 
+    // Первое срабатывание в поясе пользователя; у повторяющегося напоминания — начало повторения и время суток
     private LocalDate remindDate;
     private LocalTime remindTime;
 
+    // remindDate + remindTime в поясе пользователя как момент времени — по нему фильтры и поиск
+    @Column(name = "remind_at")
+    private Instant remindAt;
+
+    // Правило повторения (RRULE или cron, см. RecurrenceRule); null — разовое напоминание
+    private String recurrence;
+
+    // Ближайшее срабатывание (по нему идёт скан); null — срабатывать больше нечему
+    @Column(name = "next_fire_at")
+    private Instant nextFireAt;
+
     @Column(name = "sent", nullable = false)
     private boolean sent = false;
 
@@ -22,4 +22,11 @@ public class User {
     private String username;   // Имя пользователя
     private String email;      // Почта
     private String telegramId; // ID в Telegram
+    private String locale;     // Язык уведомлений (ru, en, ...); null — по умолчанию
+    private String timeZone;   // Часовой пояс (IANA: Europe/Moscow); null — reminder.default-time-zone
+
+    // Одновременно сработавшие напоминания — одной сводкой (false — каждое отдельно)
+    @Column(name = "digest_enabled", nullable = false)
+    @Builder.Default
+    private boolean digestEnabled = true;
 }
@@ -0,0 +1,192 @@
+package com.patrick.reminder.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaMailSender с пулом открытых SMTP-соединений.
+ * <p>
+ * JavaMailSenderImpl на каждый вызов send(...) открывает соединение (TCP + STARTTLS + AUTH)
+ * и закрывает его после отправки — на Gmail это основная часть времени отправки письма.
+ * Здесь соединения после отправки возвращаются в пул и переиспользуются:
+ * <ul>
+ *   <li>одновременно открыто не больше pool-size соединений, остальные вызовы ждут свободного;</li>
+ *   <li>соединение, простоявшее дольше max-idle-seconds или отправившее max-messages-per-connection писем,
+ *   закрывается (серверы сами рвут долгие соединения и ограничивают число писем на соединение);</li>
+ *   <li>если соединение оказалось разорванным, письмо один раз повторяется на новом соединении.</li>
+ * </ul>
+ * Все письма одного вызова send(SimpleMailMessage...) уходят по одному соединению.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+    private final Semaphore permits;
+    // Свободные соединения; берём последнее вернувшееся (LIFO) — оно "теплее" остальных
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    public PooledJavaMailSender(int poolSize, int maxMessagesPerConnection, long maxIdleSeconds) {
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleNanos = TimeUnit.SECONDS.toNanos(maxIdleSeconds);
+        this.permits = new Semaphore(poolSize, true);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        permits.acquireUninterruptibly();
+        PooledTransport pooled = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                try {
+                    if (pooled == null) {
+                        pooled = borrow();
+                    }
+                    send(pooled, mimeMessage);
+                } catch (SendFailedException e) {
+                    // Ошибка самого письма (адрес и т.п.) — соединение исправно
+                    failedMessages.put(original(mimeMessages, originalMessages, i), e);
+                } catch (AuthenticationFailedException e) {
+                    throw new MailAuthenticationException(e);
+                } catch (MessagingException e) {
+                    // Соединение могло быть закрыто сервером — повторяем один раз на новом
+                    discard(pooled);
+                    pooled = null;
+                    try {
+                        pooled = connect();
+                        send(pooled, mimeMessage);
+                    } catch (SendFailedException retryError) {
+                        failedMessages.put(original(mimeMessages, originalMessages, i), retryError);
+                    } catch (AuthenticationFailedException retryError) {
+                        throw new MailAuthenticationException(retryError);
+                    } catch (MessagingException retryError) {
+                        // Новое соединение тоже не работает — сервер недоступен, остаток пачки не отправляем
+                        discard(pooled);
+                        pooled = null;
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(original(mimeMessages, originalMessages, j), retryError);
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled);
+            }
+            permits.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private static Object original(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages, int index) {
+        return originalMessages != null ? originalMessages[index] : mimeMessages[index];
+    }
+
+    /**
+     * Закрывает свободные соединения при остановке приложения.
+     */
+    @Override
+    public void destroy() {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Сколько соединений сейчас открыто и свободно (для тестов и диагностики).
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastUsedNanos < maxIdleNanos && pooled.transport.isConnected()) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return connect();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        return new PooledTransport(connectTransport());
+    }
+
+    private void release(PooledTransport pooled) {
+        if (pooled.sent >= maxMessagesPerConnection) {
+            discard(pooled);
+            return;
+        }
+        pooled.lastUsedNanos = System.nanoTime();
+        idle.offerFirst(pooled);
+    }
+
+    private void discard(@Nullable PooledTransport pooled) {
+        if (pooled == null) {
+            return;
+        }
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP transport", e);
+        }
+    }
+
+    /**
+     * То же, что делает JavaMailSenderImpl для каждого письма перед отправкой.
+     */
+    private void send(PooledTransport pooled, MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // Сохраняем явно заданный Message-ID
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+        Address[] addresses = mimeMessage.getAllRecipients();
+        pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+        pooled.sent++;
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -30,8 +30,11 @@ public interface ReminderMapper {
     @Mapping(target = "description", source = "dto.description")
     @Mapping(target = "remindDate", source = "dto.remindDate")
     @Mapping(target = "remindTime", source = "dto.remindTime")
+    @Mapping(target = "recurrence", source = "dto.recurrence")
 
     @Mapping(target = "sent", ignore = true) // sent по умолчанию false
+    @Mapping(target = "remindAt", ignore = true) // вычисляет ReminderCrudService
+    @Mapping(target = "nextFireAt", ignore = true)
     @Mapping(target = "user", source = "user") // user приходит вторым параметром
     Reminder toEntity(ReminderCreatetDto dto, User user);
 
@@ -43,6 +46,9 @@ public interface ReminderMapper {
     @Mapping(target = "description", source = "reminder.description")
     @Mapping(target = "remindDate", source = "reminder.remindDate")
     @Mapping(target = "remindTime", source = "reminder.remindTime")
+    @Mapping(target = "remindAt", source = "reminder.remindAt")
+    @Mapping(target = "recurrence", source = "reminder.recurrence")
+    @Mapping(target = "nextFireAt", source = "reminder.nextFireAt")
     @Mapping(target = "userId", source = "reminder.user.id")
     @Mapping(target = "userSub", source = "reminder.user.sub")
     ReminderResponseDto toResponseDto(Reminder reminder);
@@ -54,6 +60,8 @@ public interface ReminderMapper {
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "sent", ignore = true)
+    @Mapping(target = "remindAt", ignore = true)
+    @Mapping(target = "nextFireAt", ignore = true)
     void updateEntity(ReminderUpdateDto dto, @MappingTarget Reminder reminder);
 
 }
@@ -19,6 +19,9 @@ public interface UserMapper {
     @Mapping(target = "username", source = "dto.username")
     @Mapping(target = "email", source = "dto.email")
     @Mapping(target = "telegramId", source = "dto.telegramId")
+    @Mapping(target = "locale", source = "dto.locale")
+    @Mapping(target = "timeZone", source = "dto.timeZone")
+    @Mapping(target = "digestEnabled", ignore = true) // null в DTO — значение по умолчанию, проставляем в сервисе
     User toEntity(UserRequestDto dto);
 
     /**
@@ -29,6 +32,9 @@ public interface UserMapper {
     @Mapping(target = "username", source = "user.username")
     @Mapping(target = "email", source = "user.email")
     @Mapping(target = "telegramId", source = "user.telegramId")
+    @Mapping(target = "locale", source = "user.locale")
+    @Mapping(target = "timeZone", source = "user.timeZone")
+    @Mapping(target = "digestEnabled", source = "user.digestEnabled")
     UserResponseDto toResponseDto(User user);
 
 }
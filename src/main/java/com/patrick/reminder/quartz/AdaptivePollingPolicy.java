@@ -0,0 +1,124 @@
+package com.patrick.reminder.quartz;
+
+import com.patrick.reminder.entity.PollingSettings;
+import com.patrick.reminder.repository.PollingSettingsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Выбор интервала до следующего запуска ReminderJob.
+ * <ul>
+ *   <li>скан поставил в outbox не меньше backlog-threshold напоминаний — пик, опрашиваем с минимальным интервалом;</li>
+ *   <li>иначе ждём до срока ближайшего неотправленного напоминания, но в пределах [min, max];</li>
+ *   <li>неотправленных нет — редкий "пульс" раз в max-interval-seconds.</li>
+ * </ul>
+ * Пороги меняются на лету через actuator-эндпоинт reminderpolling (ReminderPollingEndpoint).
+ * Изменённые пороги хранятся в таблице reminder_polling_settings, общей для кластера: скан выполняется
+ * на любом узле и перечитывает их при каждом запуске. Пока их не меняли — действуют reminder.polling.*.
+ */
+@Component
+public class AdaptivePollingPolicy {
+
+    @Value("${reminder.polling.min-interval-seconds:5}")
+    private long minIntervalSeconds = 5;
+
+    @Value("${reminder.polling.max-interval-seconds:300}")
+    private long maxIntervalSeconds = 300;
+
+    @Value("${reminder.polling.backlog-threshold:100}")
+    private int backlogThreshold = 100;
+
+    private final PollingSettingsRepository settingsRepository;
+
+    // Пороги последнего успешного чтения — для retryInterval, когда БД недоступна
+    private volatile Thresholds lastThresholds;
+
+    // Последнее решение этого узла — для эндпоинта
+    private volatile Duration lastInterval;
+
+    public AdaptivePollingPolicy(PollingSettingsRepository settingsRepository) {
+        this.settingsRepository = settingsRepository;
+    }
+
+    /**
+     * @param enqueued     сколько напоминаний поставил в outbox последний скан
+     * @param untilNextDue время до срока ближайшего неотправленного напоминания (null — таких нет)
+     */
+    public Duration nextInterval(int enqueued, Duration untilNextDue) {
+        Thresholds thresholds = thresholds();
+        long seconds;
+        if (enqueued >= thresholds.backlogThreshold()) {
+            seconds = thresholds.minIntervalSeconds();
+        } else if (untilNextDue != null) {
+            seconds = Math.max(thresholds.minIntervalSeconds(),
+                    Math.min(untilNextDue.toSeconds(), thresholds.maxIntervalSeconds()));
+        } else {
+            seconds = thresholds.maxIntervalSeconds();
+        }
+        lastInterval = Duration.ofSeconds(seconds);
+        return lastInterval;
+    }
+
+    /**
+     * Интервал после неудачного скана: состояние бэклога неизвестно, поэтому не откладываем надолго.
+     * БД при этом не читается — скан мог упасть как раз из-за неё.
+     */
+    public Duration retryInterval() {
+        Thresholds thresholds = lastThresholds;
+        lastInterval = Duration.ofSeconds(thresholds != null ? thresholds.minIntervalSeconds() : minIntervalSeconds);
+        return lastInterval;
+    }
+
+    /**
+     * Изменение порогов на лету для всего кластера; null — оставить как есть.
+     */
+    public synchronized void update(Long minIntervalSeconds, Long maxIntervalSeconds, Integer backlogThreshold) {
+        Thresholds current = thresholds();
+        long newMin = minIntervalSeconds != null ? minIntervalSeconds : current.minIntervalSeconds();
+        long newMax = maxIntervalSeconds != null ? maxIntervalSeconds : current.maxIntervalSeconds();
+        int newThreshold = backlogThreshold != null ? backlogThreshold : current.backlogThreshold();
+
+        if (newMin < 1 || newMax < newMin) {
+            throw new IllegalArgumentException("Expected 1 <= min-interval-seconds <= max-interval-seconds, got "
+                    + newMin + " and " + newMax);
+        }
+        if (newThreshold < 1) {
+            throw new IllegalArgumentException("backlog-threshold must be positive, got " + newThreshold);
+        }
+        settingsRepository.save(new PollingSettings(PollingSettings.SINGLETON_ID, newMin, newMax, newThreshold));
+        lastThresholds = new Thresholds(newMin, newMax, newThreshold);
+    }
+
+    public long getMinIntervalSeconds() {
+        return thresholds().minIntervalSeconds();
+    }
+
+    public long getMaxIntervalSeconds() {
+        return thresholds().maxIntervalSeconds();
+    }
+
+    public int getBacklogThreshold() {
+        return thresholds().backlogThreshold();
+    }
+
+    public Duration getLastInterval() {
+        return lastInterval;
+    }
+
+    /**
+     * Действующие пороги: строка reminder_polling_settings, если её записали, иначе конфигурация.
+     */
+    private Thresholds thresholds() {
+        Thresholds thresholds = settingsRepository.findById(PollingSettings.SINGLETON_ID)
+                .map(settings -> new Thresholds(settings.getMinIntervalSeconds(),
+                        settings.getMaxIntervalSeconds(), settings.getBacklogThreshold()))
+                .orElseGet(() -> new Thresholds(minIntervalSeconds, maxIntervalSeconds, backlogThreshold));
+        lastThresholds = thresholds;
+        return thresholds;
+    }
+
+    private record Thresholds(long minIntervalSeconds, long maxIntervalSeconds, int backlogThreshold) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.patrick.reminder.quartz;
+
+import com.patrick.reminder.service.notification.NotificationDeliveryService;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Quartz Job очистки истории доставок (notification_delivery) старше reminder.delivery.retention-days.
+ */
+@Component
+@DisallowConcurrentExecution
+public class DeliveryHistoryPurgeJob implements Job {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryHistoryPurgeJob.class);
+
+    private final NotificationDeliveryService deliveryService;
+
+    public DeliveryHistoryPurgeJob(NotificationDeliveryService deliveryService) {
+        this.deliveryService = deliveryService;
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        int deleted = deliveryService.purgeDeliveryHistory();
+        if (deleted > 0) {
+            log.info("Purged {} delivery history records", deleted);
+        }
+    }
+}
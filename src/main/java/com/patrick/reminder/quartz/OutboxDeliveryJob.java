@@ -0,0 +1,28 @@
+package com.patrick.reminder.quartz;
+
+import com.patrick.reminder.service.notification.NotificationDeliveryService;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Quartz Job воркера доставки: периодически разбирает outbox.
+ * Работает независимо от ReminderJob — медленные каналы не задерживают обнаружение напоминаний.
+ */
+@Component
+@DisallowConcurrentExecution
+public class OutboxDeliveryJob implements Job {
+
+    private final NotificationDeliveryService deliveryService;
+
+    public OutboxDeliveryJob(NotificationDeliveryService deliveryService) {
+        this.deliveryService = deliveryService;
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        deliveryService.drain();
+    }
+}
@@ -1,48 +1,120 @@
 package com.patrick.reminder.quartz;
 
 import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Date;
+
 /**
  * Конфигурационный класс Quartz:
  *  - Создаёт JobDetail и связывает его с ReminderJob
  *  - Создаёт Trigger (расписание) для запуска этой job
+ *  - То же для OutboxDeliveryJob (доставка уведомлений из outbox)
+ *  - и для DeliveryHistoryPurgeJob (очистка истории доставок)
+ *
+ * В основном профиле job store — кластерный JDBC (таблицы qrtz_* создаёт Liquibase):
+ * каждый запуск триггера выполняется ровно на одном узле, а при падении узла его подхватывает другой.
+ * Поэтому у триггеров явно задана политика пропусков (misfire) — после простоя не должно быть
+ * пачки запусков подряд.
  */
 @Configuration
 public class QuartzConfig {
 
+    // Ключ триггера скана: ReminderJob сам перепланирует его после каждого запуска
+    static final TriggerKey REMINDER_TRIGGER_KEY = TriggerKey.triggerKey("reminderTrigger");
+
     /**
      * Описывает саму Job (какой класс хотим выполнять).
      * .storeDurably() означает, что JobDetail сохраняется,
      * даже если нет Trigger, который к нему привязан.
+     * .requestRecovery(): если узел упал посреди скана, другой узел кластера выполнит его заново —
+     * иначе цепочка перепланирования (см. ReminderJob) оборвалась бы.
      */
     @Bean
     public JobDetail reminderJobDetail() {
         return JobBuilder.newJob(ReminderJob.class)
                 .withIdentity("reminderJob") // имя (ID) job (необязательно)
                 .storeDurably()              // job будет сохранена
+                .requestRecovery()
                 .build();
     }
 
     /**
-     * Описывает расписание (Trigger),
-     * указывая, когда и как часто запускать reminderJob.
-     *
-     * Пример cron-выражения "0 * * * * ?" = каждую минуту на 0 секунде:
-     *   - секунды = 0
-     *   - минуты = каждые
-     *   - часы = любые
-     *   - день месяца = любой
-     *   - месяц = любой
-     *   - день недели = любой
+     * Первый запуск скана — сразу после старта. Фиксированного расписания нет:
+     * после каждого прохода ReminderJob сам назначает следующий запуск
+     * (интервал выбирает AdaptivePollingPolicy).
      */
     @Bean
     public Trigger reminderJobTrigger(JobDetail reminderJobDetail) {
+        return reminderTrigger(reminderJobDetail.getKey(), new Date());
+    }
+
+    /**
+     * Одноразовый триггер скана на момент startAt.
+     * Misfire: если запуск был пропущен (рестарт, долгая GC-пауза, все узлы лежали),
+     * выполняем один догоняющий скан сразу. Одного скана достаточно: он забирает всё просроченное.
+     */
+    static Trigger reminderTrigger(JobKey jobKey, Date startAt) {
+        return TriggerBuilder.newTrigger()
+                .forJob(jobKey)                     // к какой job привязываемся
+                .withIdentity(REMINDER_TRIGGER_KEY) // имя (ID) триггера
+                .startAt(startAt)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withMisfireHandlingInstructionFireNow())
+                .build();
+    }
+
+    /**
+     * Воркер доставки из outbox.
+     */
+    @Bean
+    public JobDetail outboxDeliveryJobDetail() {
+        return JobBuilder.newJob(OutboxDeliveryJob.class)
+                .withIdentity("outboxDeliveryJob")
+                .storeDurably()
+                .build();
+    }
+
+    /**
+     * Разбираем outbox каждые poll-seconds секунд. Свежие записи от колеса таймеров
+     * доставляются сразу, периодический запуск нужен для повторов после backoff и "хвостов" скана.
+     * Пропущенные запуски не догоняем: следующий очередной запуск разберёт всё накопившееся.
+     */
+    @Bean
+    public Trigger outboxDeliveryJobTrigger(JobDetail outboxDeliveryJobDetail,
+                                            @Value("${reminder.outbox.poll-seconds:5}") int pollSeconds) {
+        return TriggerBuilder.newTrigger()
+                .forJob(outboxDeliveryJobDetail)
+                .withIdentity("outboxDeliveryTrigger")
+                .withSchedule(SimpleScheduleBuilder.repeatSecondlyForever(pollSeconds)
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
+                .build();
+    }
+
+    /**
+     * Очистка истории доставок.
+     */
+    @Bean
+    public JobDetail deliveryHistoryPurgeJobDetail() {
+        return JobBuilder.newJob(DeliveryHistoryPurgeJob.class)
+                .withIdentity("deliveryHistoryPurgeJob")
+                .storeDurably()
+                .build();
+    }
+
+    /**
+     * Раз в час: за час история вырастает ненамного, поэтому удаление укладывается в один короткий запрос.
+     * Пропущенные запуски не догоняем — следующий удалит всё устаревшее.
+     */
+    @Bean
+    public Trigger deliveryHistoryPurgeJobTrigger(JobDetail deliveryHistoryPurgeJobDetail) {
         return TriggerBuilder.newTrigger()
-                .forJob(reminderJobDetail)          // к какой job привязываемся
-                .withIdentity("reminderTrigger")    // имя (ID) триггера (необязательно)
-                .withSchedule(CronScheduleBuilder.cronSchedule("0 * * * * ?"))
+                .forJob(deliveryHistoryPurgeJobDetail)
+                .withIdentity("deliveryHistoryPurgeTrigger")
+                .withSchedule(SimpleScheduleBuilder.repeatHourlyForever()
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
                 .build();
     }
 }
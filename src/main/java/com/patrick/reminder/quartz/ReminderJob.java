@@ -1,34 +1,104 @@
 package com.patrick.reminder.quartz;
 
+import com.patrick.reminder.service.notification.CatchUpState;
 import com.patrick.reminder.service.notification.NotificationService;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
+import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.PersistJobDataAfterExecution;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
 /**
  * Класс Quartz Job, который вызывается по расписанию (Trigger).
- * Внутри обращается к NotificationService, чтобы отправить уведомления.
+ * Запускает скан NotificationService, который ставит в outbox всё, что уже просрочено,
+ * и сам назначает следующий запуск: часто во время пика или перед ближайшим напоминанием,
+ * редко, когда отправлять нечего (см. AdaptivePollingPolicy).
+ * <p>
+ * DisallowConcurrentExecution: в кластере JDBC job store не даст запустить скан на втором узле,
+ * пока не закончился текущий, — затянувшийся проход не наслаивается на следующий.
+ * Колесо таймеров дозагружается локально на каждом узле (см. ReminderTimingWheel), а не здесь:
+ * эта job в кластере выполняется только на одном из них.
+ * <p>
+ * Состояние бюджета догоняющего режима (CatchUpState) живёт в JobDataMap и сохраняется после
+ * каждого запуска (PersistJobDataAfterExecution): следующий проход, на каком бы узле он ни выполнялся,
+ * продолжает с него, и rate-per-second ограничивает скорость всего кластера, а не каждого узла.
  */
 @Component
+@DisallowConcurrentExecution
+@PersistJobDataAfterExecution
 public class ReminderJob implements Job {
 
+    // Ключи JobDataMap: момент прошлого прохода (epoch millis) и дробный остаток бюджета
+    static final String LAST_SCAN_AT = "lastScanAt";
+    static final String BUDGET_CARRY = "budgetCarry";
+
     private final NotificationService notificationService;
+    private final AdaptivePollingPolicy pollingPolicy;
 
     /**
-     * Через конструктор внедряем наш сервис, занимающийся отправкой уведомлений.
+     * Через конструктор внедряем наш сервис, занимающийся отправкой уведомлений,
+     * и политику выбора интервала опроса.
      */
-    public ReminderJob(NotificationService notificationService) {
+    public ReminderJob(NotificationService notificationService,
+                       AdaptivePollingPolicy pollingPolicy) {
         this.notificationService = notificationService;
+        this.pollingPolicy = pollingPolicy;
     }
 
     /**
      * Метод execute(JobExecutionContext) вызывается Quartz-движком по расписанию.
-     * Здесь просто передаём управление методу checkAndSendReminders().
+     * Следующий запуск назначается в любом случае, даже если скан упал, — иначе опрос остановится.
      */
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
 
-        notificationService.checkAndSendReminders();
+        Duration interval = pollingPolicy.retryInterval();
+        JobDataMap data = context.getJobDetail().getJobDataMap();
+        try {
+            CatchUpState catchUp = catchUpState(data);
+            int enqueued = notificationService.enqueueDueReminders(catchUp);
+            data.put(LAST_SCAN_AT, catchUp.getLastScanAt().toEpochMilli());
+            data.put(BUDGET_CARRY, catchUp.getCarry());
+            Duration untilNextDue = notificationService.findNextDueAt()
+                    .map(nextDueAt -> Duration.between(Instant.now(), nextDueAt))
+                    .orElse(null);
+            interval = pollingPolicy.nextInterval(enqueued, untilNextDue);
+        } finally {
+            scheduleNext(context, interval);
+        }
+    }
+
+    private static CatchUpState catchUpState(JobDataMap data) {
+        if (!data.containsKey(LAST_SCAN_AT)) {
+            return new CatchUpState();
+        }
+        return new CatchUpState(Instant.ofEpochMilli(data.getLong(LAST_SCAN_AT)), data.getDouble(BUDGET_CARRY));
+    }
+
+    /**
+     * Перепланирует триггер скана на now + interval.
+     * Quartz учитывает перепланирование изнутри job и не удаляет отработавший одноразовый триггер.
+     */
+    private void scheduleNext(JobExecutionContext context, Duration interval) throws JobExecutionException {
+        Trigger next = QuartzConfig.reminderTrigger(context.getJobDetail().getKey(),
+                new Date(System.currentTimeMillis() + interval.toMillis()));
+        try {
+            Scheduler scheduler = context.getScheduler();
+            // null — триггера нет (например, это восстановительный запуск после падения узла)
+            if (scheduler.rescheduleJob(QuartzConfig.REMINDER_TRIGGER_KEY, next) == null) {
+                scheduler.scheduleJob(next);
+            }
+        } catch (SchedulerException e) {
+            throw new JobExecutionException("Failed to schedule next reminder scan", e);
+        }
     }
 }
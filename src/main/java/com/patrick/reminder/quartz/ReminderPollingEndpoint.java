@@ -0,0 +1,54 @@
+package com.patrick.reminder.quartz;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator-эндпоинт /actuator/reminderpolling: просмотр и изменение порогов AdaptivePollingPolicy.
+ * <p>
+ * GET — текущие пороги и последний интервал, выбранный на этом узле,
+ * POST {"minIntervalSeconds": 5, "maxIntervalSeconds": 300, "backlogThreshold": 100} — изменить (любое поле можно опустить).
+ * Пороги общие для кластера (таблица reminder_polling_settings), поэтому запрос можно отправить на любой узел,
+ * в том числе через балансировщик. Новые значения применяются со следующего запуска ReminderJob.
+ */
+@Component
+@Endpoint(id = "reminderpolling")
+public class ReminderPollingEndpoint {
+
+    private final AdaptivePollingPolicy pollingPolicy;
+
+    public ReminderPollingEndpoint(AdaptivePollingPolicy pollingPolicy) {
+        this.pollingPolicy = pollingPolicy;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("minIntervalSeconds", pollingPolicy.getMinIntervalSeconds());
+        settings.put("maxIntervalSeconds", pollingPolicy.getMaxIntervalSeconds());
+        settings.put("backlogThreshold", pollingPolicy.getBacklogThreshold());
+        settings.put("lastIntervalSeconds",
+                pollingPolicy.getLastInterval() != null ? pollingPolicy.getLastInterval().toSeconds() : null);
+        return settings;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Long minIntervalSeconds,
+                                      @Nullable Long maxIntervalSeconds,
+                                      @Nullable Integer backlogThreshold) {
+        try {
+            pollingPolicy.update(minIntervalSeconds, maxIntervalSeconds, backlogThreshold);
+        } catch (IllegalArgumentException e) {
+            // Ответ 400 вместо 500
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return settings();
+    }
+}
@@ -0,0 +1,206 @@
+package com.patrick.reminder.quartz;
+
+import com.patrick.reminder.entity.Reminder;
+import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.projection.ReminderFireTime;
+import com.patrick.reminder.service.notification.NotificationDeliveryService;
+import com.patrick.reminder.service.notification.NotificationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Планировщик точного срабатывания напоминаний.
+ * <p>
+ * Держит в памяти напоминания, срок которых наступает в пределах горизонта (horizon-seconds),
+ * и отправляет каждое ровно в его nextFireAt (с точностью до tick-ms),
+ * а не на ближайшем запуске ReminderJob.
+ * <ul>
+ *   <li>раз в refill-seconds колесо само дозагружает горизонт из БД (refill()) — на каждом узле своё,
+ *   так как ReminderJob в кластерном Quartz выполняется только на одном узле;</li>
+ *   <li>ReminderCrudService сообщает о создании/изменении/удалении напоминаний.</li>
+ * </ul>
+ * Сработавшие напоминания ставятся в outbox и сразу же доставляются.
+ * Периодический скан NotificationService остаётся страховкой: всё, что колесо по какой-то причине
+ * пропустило (рестарт, ошибка), будет подхвачено им.
+ */
+@Component
+public class ReminderTimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderTimingWheel.class);
+
+    private final NotificationService notificationService;
+    private final NotificationDeliveryService deliveryService;
+    private final ReminderRepository reminderRepository;
+
+    @Value("${reminder.timing-wheel.tick-ms:100}")
+    private long tickMs = 100;
+
+    @Value("${reminder.timing-wheel.wheel-size:64}")
+    private int wheelSize = 64;
+
+    // Горизонт должен быть больше периода дозагрузки, иначе между дозагрузками будут "дыры"
+    @Value("${reminder.timing-wheel.horizon-seconds:180}")
+    private long horizonSeconds = 180;
+
+    @Value("${reminder.timing-wheel.refill-seconds:60}")
+    private long refillSeconds = 60;
+
+    // Ограничение на число таймеров в памяти
+    @Value("${reminder.timing-wheel.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    private final Object lock = new Object();
+    private TimingWheel<Long> wheel;
+    private long horizonEndMs;
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService dispatcher;
+
+    public ReminderTimingWheel(NotificationService notificationService,
+                               NotificationDeliveryService deliveryService,
+                               ReminderRepository reminderRepository) {
+        this.notificationService = notificationService;
+        this.deliveryService = deliveryService;
+        this.reminderRepository = reminderRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        long now = System.currentTimeMillis();
+        wheel = new TimingWheel<>(tickMs, wheelSize, now);
+        horizonEndMs = now; // до первого refill() в колесо попадают только уже наступившие напоминания
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "reminder-timing-wheel"));
+        // Отправка идёт в отдельном потоке, чтобы медленный SMTP не задерживал ход колеса
+        dispatcher = Executors.newSingleThreadExecutor(r -> daemon(r, "reminder-timing-wheel-dispatch"));
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::refillSafely, 0, refillSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Дозагружает в колесо напоминания со срабатыванием в (now, now + horizon].
+     */
+    public void refill() {
+        Instant from = Instant.now();
+        Instant to = from.plusSeconds(horizonSeconds);
+
+        List<ReminderFireTime> upcoming = reminderRepository.findUpcoming(from, to, PageRequest.of(0, maxEntries));
+
+        long newHorizonEndMs = to.toEpochMilli();
+        if (upcoming.size() == maxEntries) {
+            // Всё не поместилось — горизонт заканчивается на последнем загруженном напоминании
+            ReminderFireTime last = upcoming.get(upcoming.size() - 1);
+            newHorizonEndMs = last.getNextFireAt().toEpochMilli();
+        }
+
+        synchronized (lock) {
+            for (ReminderFireTime fireTime : upcoming) {
+                long dueMs = fireTime.getNextFireAt().toEpochMilli();
+                if (dueMs <= newHorizonEndMs) {
+                    scheduleLocked(fireTime.getId(), dueMs);
+                }
+            }
+            horizonEndMs = newHorizonEndMs;
+        }
+    }
+
+    /**
+     * Ставит (или переносит) напоминание в колесо после создания/изменения.
+     * Напоминания за горизонтом не храним — их загрузит следующий refill().
+     */
+    public void schedule(Reminder reminder) {
+        if (reminder.getNextFireAt() == null) {
+            cancel(reminder.getId());
+            return;
+        }
+        long dueMs = reminder.getNextFireAt().toEpochMilli();
+        synchronized (lock) {
+            if (dueMs > horizonEndMs) {
+                wheel.cancel(reminder.getId());
+                return;
+            }
+            scheduleLocked(reminder.getId(), dueMs);
+        }
+    }
+
+    /**
+     * Убирает напоминание из колеса (например, после удаления).
+     */
+    public void cancel(Long reminderId) {
+        synchronized (lock) {
+            wheel.cancel(reminderId);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return wheel.size();
+        }
+    }
+
+    private void scheduleLocked(Long reminderId, long dueMs) {
+        if (!wheel.schedule(reminderId, dueMs)) {
+            // Срок уже наступил — отправляем сразу
+            fire(List.of(reminderId));
+        }
+    }
+
+    private void refillSafely() {
+        try {
+            refill();
+        } catch (RuntimeException e) {
+            // Ошибка БД не должна останавливать периодическую дозагрузку
+            log.error("Timing wheel refill failed", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            List<Long> expired;
+            synchronized (lock) {
+                expired = wheel.advance(System.currentTimeMillis());
+            }
+            if (!expired.isEmpty()) {
+                fire(expired);
+            }
+        } catch (RuntimeException e) {
+            // Исключение не должно останавливать периодическую задачу
+            log.error("Timing wheel tick failed", e);
+        }
+    }
+
+    private void fire(List<Long> reminderIds) {
+        dispatcher.execute(() -> {
+            try {
+                notificationService.enqueueReminders(reminderIds);
+                deliveryService.drain();
+            } catch (RuntimeException e) {
+                // Не отправленные напоминания подхватит периодический скан ReminderJob
+                log.error("Failed to send reminders {} from timing wheel", reminderIds, e);
+            }
+        });
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,173 @@
+package com.patrick.reminder.quartz;
+
+import java.util.*;
+
+/**
+ * Иерархическое колесо таймеров (hierarchical timing wheel, по схеме Kafka).
+ * <p>
+ * Нижний уровень делится на wheelSize ячеек по tickMs, каждый следующий уровень
+ * (overflow) покрывает в wheelSize раз больший интервал. Таймер кладётся в ячейку
+ * за O(1), а при наступлении срока ячейки верхнего уровня её содержимое
+ * "спускается" на нижние уровни. Ячейки с ближайшим сроком хранятся в общей очереди,
+ * поэтому advance() не перебирает пустые ячейки.
+ * <p>
+ * Класс не потокобезопасен: все вызовы делает владелец под своей блокировкой.
+ *
+ * @param <K> ключ таймера (например, id напоминания); по нему таймер можно перенести или отменить
+ */
+public class TimingWheel<K> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final List<Bucket<K>> buckets;
+
+    // Общие для всех уровней структуры
+    private final PriorityQueue<Bucket<K>> queue;
+    private final Map<K, Entry<K>> entries;
+
+    private long currentTime;
+    private TimingWheel<K> overflowWheel;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this(tickMs, wheelSize, startMs,
+                new PriorityQueue<>(Comparator.comparingLong(b -> b.expiration)), new HashMap<>());
+    }
+
+    private TimingWheel(long tickMs, int wheelSize, long startMs,
+                        PriorityQueue<Bucket<K>> queue, Map<K, Entry<K>> entries) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.queue = queue;
+        this.entries = entries;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new Bucket<>());
+        }
+    }
+
+    /**
+     * Добавляет таймер (или переносит уже существующий с тем же ключом).
+     *
+     * @return false, если срок уже наступил — тогда таймер не сохраняется и его нужно выполнить сразу
+     */
+    public boolean schedule(K key, long expirationMs) {
+        cancel(key);
+        // Ячейка "срабатывает" в момент своего начала, поэтому сдвигаем срок на тик вперёд:
+        // таймер никогда не выполнится раньше expirationMs (позже — не более чем на tickMs).
+        Entry<K> entry = new Entry<>(key, expirationMs + tickMs - 1);
+        if (!add(entry)) {
+            return false;
+        }
+        entries.put(key, entry);
+        return true;
+    }
+
+    /**
+     * Отменяет таймер. Возвращает true, если он был запланирован.
+     */
+    public boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.bucket.entries.remove(entry);
+        entry.bucket = null;
+        return true;
+    }
+
+    /**
+     * Продвигает часы колеса до nowMs и возвращает ключи всех таймеров, срок которых наступил.
+     */
+    public List<K> advance(long nowMs) {
+        List<K> expired = new ArrayList<>();
+        Bucket<K> bucket;
+        while ((bucket = queue.peek()) != null && bucket.expiration <= nowMs) {
+            queue.poll();
+            advanceClock(bucket.expiration);
+            for (Entry<K> entry : bucket.flush()) {
+                // Повторная вставка либо спускает таймер на нижний уровень, либо сообщает, что срок наступил
+                if (!add(entry)) {
+                    entries.remove(entry.key);
+                    expired.add(entry.key);
+                }
+            }
+        }
+        return expired;
+    }
+
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean add(Entry<K> entry) {
+        if (entry.expiration < currentTime + tickMs) {
+            return false;
+        }
+        if (entry.expiration < currentTime + interval) {
+            long virtualId = entry.expiration / tickMs;
+            Bucket<K> bucket = buckets.get((int) (virtualId % wheelSize));
+            bucket.add(entry);
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.add(bucket);
+            }
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel<>(interval, wheelSize, currentTime, queue, entries);
+        }
+        return overflowWheel.add(entry);
+    }
+
+    private void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+            if (overflowWheel != null) {
+                overflowWheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long expiration;
+        private Bucket<K> bucket;
+
+        private Entry(K key, long expiration) {
+            this.key = key;
+            this.expiration = expiration;
+        }
+    }
+
+    private static final class Bucket<K> {
+        private final Set<Entry<K>> entries = new LinkedHashSet<>();
+        private long expiration = -1;
+
+        private void add(Entry<K> entry) {
+            entry.bucket = this;
+            entries.add(entry);
+        }
+
+        // true, если срок ячейки изменился и её нужно (пере)поставить в очередь
+        private boolean setExpiration(long expiration) {
+            if (this.expiration == expiration) {
+                return false;
+            }
+            this.expiration = expiration;
+            return true;
+        }
+
+        private List<Entry<K>> flush() {
+            List<Entry<K>> flushed = new ArrayList<>(entries);
+            entries.clear();
+            expiration = -1;
+            return flushed;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.patrick.reminder.recurrence;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDateTime;
+
+/**
+ * Повторение по cron-выражению Spring (CronExpression).
+ */
+final class CronRule implements RecurrenceRule {
+
+    private final CronExpression cron;
+
+    private CronRule(CronExpression cron) {
+        this.cron = cron;
+    }
+
+    static CronRule parse(String expression) {
+        String[] fields = expression.split("\\s+");
+        // Макросы (@daily и т.п.) — не чаще раза в минуту; у полного выражения секунды должны быть одним числом
+        if (fields.length == 6 && !fields[0].matches("\\d{1,2}")) {
+            throw new IllegalArgumentException("Cron seconds field must be a single value: " + expression);
+        }
+        return new CronRule(CronExpression.parse(expression));
+    }
+
+    @Override
+    public LocalDateTime next(LocalDateTime start, LocalDateTime after) {
+        LocalDateTime from = after.isBefore(start) ? start.minusNanos(1) : after;
+        return cron.next(from);
+    }
+}
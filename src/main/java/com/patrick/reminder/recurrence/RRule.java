@@ -0,0 +1,251 @@
+package com.patrick.reminder.recurrence;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Подмножество RFC 5545 RRULE.
+ * <ul>
+ *   <li>FREQ=HOURLY|DAILY|WEEKLY|MONTHLY|YEARLY (обязательно);</li>
+ *   <li>INTERVAL=n — каждый n-й период, отсчёт от start;</li>
+ *   <li>BYDAY=MO,WE,... — дни недели для WEEKLY (по умолчанию день start) и фильтр для DAILY;</li>
+ *   <li>BYMONTHDAY=1,15,-1 — дни месяца для MONTHLY (по умолчанию день start; -1 — последний день).
+ *   Месяцы, в которых такого дня нет (31-е в апреле), пропускаются, как в RFC;</li>
+ *   <li>UNTIL=20251231 или UNTIL=20251231T090000 — последняя допустимая дата (включительно).</li>
+ * </ul>
+ * Время суток срабатывания — время start. COUNT не поддерживается: для него пришлось бы хранить
+ * число прошедших срабатываний, а ограничить повторение можно через UNTIL.
+ * <p>
+ * next(...) находит нужный период арифметикой и проверяет не больше нескольких кандидатов.
+ */
+final class RRule implements RecurrenceRule {
+
+    enum Frequency {HOURLY, DAILY, WEEKLY, MONTHLY, YEARLY}
+
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY,
+            "TH", DayOfWeek.THURSDAY, "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    // Сколько периодов подряд может не содержать ни одного срабатывания (BYMONTHDAY=31, 29 февраля)
+    private static final int MAX_EMPTY_PERIODS = 100;
+
+    private final Frequency frequency;
+    private final int interval;
+    private final EnumSet<DayOfWeek> byDay;
+    private final int[] byMonthDay;
+    private final LocalDateTime until;
+
+    private RRule(Frequency frequency, int interval, EnumSet<DayOfWeek> byDay, int[] byMonthDay, LocalDateTime until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.byMonthDay = byMonthDay;
+        this.until = until;
+    }
+
+    static RRule parse(String expression) {
+        String rule = expression.regionMatches(true, 0, "RRULE:", 0, 6) ? expression.substring(6) : expression;
+        Frequency frequency = null;
+        int interval = 1;
+        EnumSet<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        int[] byMonthDay = new int[0];
+        LocalDateTime until = null;
+
+        for (String part : rule.toUpperCase().split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Malformed RRULE part: " + part);
+            }
+            String name = part.substring(0, eq).trim();
+            String value = part.substring(eq + 1).trim();
+            switch (name) {
+                case "FREQ" -> frequency = parseFrequency(value);
+                case "INTERVAL" -> interval = parsePositive(name, value);
+                case "BYDAY" -> byDay = parseDays(value);
+                case "BYMONTHDAY" -> byMonthDay = parseMonthDays(value);
+                case "UNTIL" -> until = parseUntil(value);
+                case "WKST" -> {
+                    if (!"MO".equals(value)) {
+                        throw new IllegalArgumentException("Only WKST=MO is supported");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unsupported RRULE part: " + name);
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("RRULE without FREQ: " + expression);
+        }
+        if (!byDay.isEmpty() && frequency != Frequency.DAILY && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is supported only with FREQ=DAILY or FREQ=WEEKLY");
+        }
+        if (byMonthDay.length > 0 && frequency != Frequency.MONTHLY) {
+            throw new IllegalArgumentException("BYMONTHDAY is supported only with FREQ=MONTHLY");
+        }
+        return new RRule(frequency, interval, byDay, byMonthDay, until);
+    }
+
+    @Override
+    public LocalDateTime next(LocalDateTime start, LocalDateTime after) {
+        // Срабатывание не раньше start: ищем строго после max(after, start - 1 нс)
+        LocalDateTime from = after.isBefore(start) ? start.minusNanos(1) : after;
+        LocalDateTime next = switch (frequency) {
+            case HOURLY -> nextHourly(start, from);
+            case DAILY -> nextDaily(start, from);
+            case WEEKLY -> nextWeekly(start, from);
+            case MONTHLY -> nextMonthly(start, from);
+            case YEARLY -> nextYearly(start, from);
+        };
+        return next == null || (until != null && next.isAfter(until)) ? null : next;
+    }
+
+    private LocalDateTime nextHourly(LocalDateTime start, LocalDateTime from) {
+        long periods = Math.max(0, ChronoUnit.HOURS.between(start, from)) / interval;
+        LocalDateTime candidate = start.plusHours(periods * interval);
+        while (!candidate.isAfter(from)) {
+            candidate = candidate.plusHours(interval);
+        }
+        return candidate;
+    }
+
+    private LocalDateTime nextDaily(LocalDateTime start, LocalDateTime from) {
+        long periods = Math.max(0, ChronoUnit.DAYS.between(start.toLocalDate(), from.toLocalDate())) / interval;
+        LocalDate date = start.toLocalDate().plusDays(periods * interval);
+        // Дни недели кандидатов повторяются с периодом 7: если за 8 шагов совпадения нет, его не будет
+        for (int i = 0; i <= 7; i++, date = date.plusDays(interval)) {
+            LocalDateTime candidate = date.atTime(start.toLocalTime());
+            if (candidate.isAfter(from) && (byDay.isEmpty() || byDay.contains(date.getDayOfWeek()))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime nextWeekly(LocalDateTime start, LocalDateTime from) {
+        Set<DayOfWeek> days = byDay.isEmpty() ? EnumSet.of(start.getDayOfWeek()) : byDay;
+        LocalDate firstWeek = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate fromWeek = from.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        long periods = Math.max(0, ChronoUnit.WEEKS.between(firstWeek, fromWeek)) / interval;
+        LocalDate week = firstWeek.plusWeeks(periods * interval);
+        // В текущей подходящей неделе срабатывание могло уже пройти — тогда оно в следующей
+        for (int i = 0; i < 2; i++, week = week.plusWeeks(interval)) {
+            for (DayOfWeek day : days) { // EnumSet: по порядку с понедельника
+                LocalDateTime candidate = week.plusDays(day.ordinal()).atTime(start.toLocalTime());
+                if (candidate.isAfter(from)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime nextMonthly(LocalDateTime start, LocalDateTime from) {
+        int[] days = byMonthDay.length == 0 ? new int[]{start.getDayOfMonth()} : byMonthDay;
+        YearMonth firstMonth = YearMonth.from(start);
+        long periods = Math.max(0, ChronoUnit.MONTHS.between(firstMonth, YearMonth.from(from))) / interval;
+        YearMonth month = firstMonth.plusMonths(periods * interval);
+        for (int i = 0; i < MAX_EMPTY_PERIODS; i++, month = month.plusMonths(interval)) {
+            LocalDateTime best = null;
+            for (int day : days) {
+                int dayOfMonth = day > 0 ? day : month.lengthOfMonth() + 1 + day;
+                if (dayOfMonth < 1 || dayOfMonth > month.lengthOfMonth()) {
+                    continue;
+                }
+                LocalDateTime candidate = month.atDay(dayOfMonth).atTime(start.toLocalTime());
+                if (candidate.isAfter(from) && (best == null || candidate.isBefore(best))) {
+                    best = candidate;
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime nextYearly(LocalDateTime start, LocalDateTime from) {
+        long periods = Math.max(0, from.getYear() - start.getYear()) / interval;
+        int year = (int) (start.getYear() + periods * interval);
+        for (int i = 0; i < MAX_EMPTY_PERIODS; i++, year += interval) {
+            // 29 февраля — только в високосные годы
+            if (start.getMonth() == Month.FEBRUARY && start.getDayOfMonth() == 29 && !Year.isLeap(year)) {
+                continue;
+            }
+            LocalDateTime candidate = start.withYear(year);
+            if (candidate.isAfter(from)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static Frequency parseFrequency(String value) {
+        try {
+            return Frequency.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported FREQ: " + value);
+        }
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // ниже — общее сообщение
+        }
+        throw new IllegalArgumentException(name + " must be a positive number: " + value);
+    }
+
+    private static EnumSet<DayOfWeek> parseDays(String value) {
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : value.split(",")) {
+            DayOfWeek dayOfWeek = DAYS.get(day.trim());
+            if (dayOfWeek == null) {
+                // В том числе BYDAY с номером (1MO, -1FR) — не поддерживается
+                throw new IllegalArgumentException("Unsupported BYDAY value: " + day);
+            }
+            days.add(dayOfWeek);
+        }
+        return days;
+    }
+
+    private static int[] parseMonthDays(String value) {
+        String[] parts = value.split(",");
+        int[] days = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                days[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed BYMONTHDAY value: " + parts[i]);
+            }
+            if (days[i] == 0 || days[i] < -31 || days[i] > 31) {
+                throw new IllegalArgumentException("BYMONTHDAY out of range: " + days[i]);
+            }
+        }
+        return days;
+    }
+
+    private static LocalDateTime parseUntil(String value) {
+        // Суффикс Z не учитываем: время напоминаний локальное
+        String until = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        try {
+            return until.length() == 8
+                    ? LocalDate.parse(until, UNTIL_DATE).atTime(LocalTime.MAX)
+                    : LocalDateTime.parse(until, UNTIL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed UNTIL: " + value);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.patrick.reminder.recurrence;
+
+import java.time.LocalDateTime;
+
+/**
+ * Правило повторения напоминания (reminders.recurrence).
+ * <p>
+ * Поддерживаются два формата:
+ * <ul>
+ *   <li>подмножество RFC 5545 RRULE (префикс "RRULE:" необязателен), см. RRule;</li>
+ *   <li>cron-выражение Spring из 6 полей (секунды минуты часы день месяц день-недели),
+ *   например "0 0 9 * * MON-FRI". Секунды — одно число: не чаще раза в минуту.</li>
+ * </ul>
+ * Правило никогда не разворачивается в список дат: у напоминания хранится только ближайшее
+ * срабатывание (next_fire_at), а следующее вычисляется от него, когда текущее отправлено.
+ * Поэтому и таблица, и скан не растут с длительностью повторения.
+ */
+public interface RecurrenceRule {
+
+    /**
+     * Разбирает правило.
+     *
+     * @throws IllegalArgumentException синтаксическая ошибка или неподдерживаемая часть правила
+     */
+    static RecurrenceRule parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty recurrence rule");
+        }
+        String trimmed = expression.trim();
+        if (trimmed.regionMatches(true, 0, "RRULE:", 0, 6) || trimmed.toUpperCase().contains("FREQ=")) {
+            return RRule.parse(trimmed);
+        }
+        return CronRule.parse(trimmed);
+    }
+
+    /**
+     * Первое срабатывание строго после after и не раньше start.
+     *
+     * @param start начало повторения (DTSTART) — дата и время напоминания; задаёт время суток
+     *              и отсчёт INTERVAL
+     * @param after момент, после которого ищем (предыдущее срабатывание или текущее время)
+     * @return null, если повторения закончились (UNTIL)
+     */
+    LocalDateTime next(LocalDateTime start, LocalDateTime after);
+
+    /**
+     * Первое срабатывание не раньше start и не раньше now.
+     */
+    default LocalDateTime first(LocalDateTime start, LocalDateTime now) {
+        LocalDateTime from = now.isAfter(start) ? now : start;
+        return next(start, from.minusNanos(1));
+    }
+}
@@ -0,0 +1,41 @@
+package com.patrick.reminder.repository;
+
+import com.patrick.reminder.dto.notification.DeadLetterResponseDto;
+import com.patrick.reminder.entity.NotificationDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Интерфейс Spring Data JPA для недоставленных уведомлений.
+ */
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+
+    /**
+     * Недоставленные уведомления пользователя, последние — первыми.
+     * DTO собирается прямо в запросе, вместе с названием напоминания и sub владельца.
+     */
+    @Query("""
+            select new com.patrick.reminder.dto.notification.DeadLetterResponseDto(
+                d.id, d.reminderId, r.name, d.attempts, d.failedChannels, d.enqueuedAt, d.failedAt, u.sub)
+            from NotificationDeadLetter d
+            join Reminder r on r.id = d.reminderId
+            join r.user u
+            where u.sub = :sub
+            order by d.failedAt desc, d.id desc
+            """)
+    List<DeadLetterResponseDto> findByUserSub(@Param("sub") String sub);
+
+    @Query("""
+            select new com.patrick.reminder.dto.notification.DeadLetterResponseDto(
+                d.id, d.reminderId, r.name, d.attempts, d.failedChannels, d.enqueuedAt, d.failedAt, u.sub)
+            from NotificationDeadLetter d
+            join Reminder r on r.id = d.reminderId
+            join r.user u
+            where d.id = :id
+            """)
+    Optional<DeadLetterResponseDto> findDtoById(@Param("id") Long id);
+}
@@ -0,0 +1,30 @@
+package com.patrick.reminder.repository;
+
+import com.patrick.reminder.entity.NotificationDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Интерфейс Spring Data JPA для состояния доставки по каналам.
+ */
+public interface NotificationDeliveryRepository extends JpaRepository<NotificationDelivery, Long> {
+
+    /**
+     * Какие из ключей уже доставлены — одним запросом на порцию outbox (по уникальному индексу).
+     */
+    @Query("select d.idempotencyKey from NotificationDelivery d where d.idempotencyKey in :keys")
+    List<String> findDeliveredKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * Удаляет историю доставок старше before.
+     */
+    @Modifying
+    @Query("delete from NotificationDelivery d where d.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") Instant before);
+}
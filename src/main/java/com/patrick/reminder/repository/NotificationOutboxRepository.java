@@ -0,0 +1,90 @@
+package com.patrick.reminder.repository;
+
+import com.patrick.reminder.entity.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Интерфейс Spring Data JPA для outbox уведомлений.
+ */
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Одним INSERT ... SELECT ставит в outbox переданные напоминания, которым есть чему срабатывать.
+     * fire_at — их текущее срабатывание; сразу после вставки, в той же транзакции, NotificationService
+     * сдвигает next_fire_at (ReminderRepository.markFired / rescheduleFire).
+     * <p>
+     * Напоминания пользователей со сводкой (digest_enabled) доступны с digestAt — общей границы окна,
+     * чтобы все напоминания пользователя из одного окна были захвачены вместе и ушли одной сводкой.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO notification_outbox (reminder_id, created_at, available_at, attempts, fire_at)
+            SELECT r.id, :now, CASE WHEN u.digest_enabled THEN :digestAt ELSE :now END, 0, r.next_fire_at
+            FROM reminders r
+            JOIN users u ON u.id = r.user_id
+            WHERE r.id IN (:ids) AND r.next_fire_at IS NOT NULL
+            """, nativeQuery = true)
+    int enqueue(@Param("ids") Collection<Long> reminderIds,
+                @Param("now") LocalDateTime now,
+                @Param("digestAt") LocalDateTime digestAt);
+
+    /**
+     * Сводка пропущенных напоминаний: одна запись на пользователя вместо записи на каждое напоминание.
+     * Запись ссылается на последнее по сроку из его напоминаний, missed_count — сколько их всего.
+     * Остальные напоминания в outbox не попадают; next_fire_at всех сдвигает NotificationService.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO notification_outbox (reminder_id, created_at, available_at, attempts, fire_at, missed_count)
+            SELECT m.id, :now, :now, 0, m.next_fire_at, m.missed
+            FROM (SELECT r.id, r.next_fire_at,
+                         COUNT(*) OVER (PARTITION BY r.user_id) AS missed,
+                         ROW_NUMBER() OVER (PARTITION BY r.user_id ORDER BY r.next_fire_at DESC, r.id DESC) AS rn
+                  FROM reminders r
+                  WHERE r.id IN (:ids) AND r.next_fire_at IS NOT NULL) m
+            WHERE m.rn = 1
+            """, nativeQuery = true)
+    int enqueueMissedSummary(@Param("ids") Collection<Long> reminderIds,
+                             @Param("now") LocalDateTime now);
+
+    /**
+     * Записи, которые можно взять в работу: готовы к доставке и не арендованы
+     * (или аренда истекла — узел, взявший их, видимо, упал).
+     * <p>
+     * SELECT ... FOR UPDATE SKIP LOCKED (lock.timeout = -2 в Hibernate): строки,
+     * которые прямо сейчас захватывает другой узел, пропускаются, поэтому узлы получают
+     * непересекающиеся порции. Вызывать внутри транзакции, в которой записи и арендуются.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select o from NotificationOutbox o
+            where o.availableAt <= :now
+              and (o.claimedUntil is null or o.claimedUntil < :now)
+            order by o.availableAt, o.id
+            """)
+    List<NotificationOutbox> findClaimable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Возвращает неудачные записи в очередь одним UPDATE: attempts + 1,
+     * новая дата доступности (backoff) и снятие аренды.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update NotificationOutbox o
+            set o.attempts = o.attempts + 1, o.availableAt = :availableAt,
+                o.claimedBy = null, o.claimedUntil = null
+            where o.id in :ids
+            """)
+    int reschedule(@Param("ids") Collection<Long> ids, @Param("availableAt") LocalDateTime availableAt);
+}
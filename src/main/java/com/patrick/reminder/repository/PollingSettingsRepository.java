@@ -0,0 +1,10 @@
+package com.patrick.reminder.repository;
+
+import com.patrick.reminder.entity.PollingSettings;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Интерфейс Spring Data JPA для порогов адаптивного опроса (одна строка на кластер).
+ */
+public interface PollingSettingsRepository extends JpaRepository<PollingSettings, Integer> {
+}
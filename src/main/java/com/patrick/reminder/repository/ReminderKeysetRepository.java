@@ -0,0 +1,24 @@
+package com.patrick.reminder.repository;
+
+import com.patrick.reminder.entity.Reminder;
+import com.patrick.reminder.repository.keyset.ReminderCursor;
+import com.patrick.reminder.repository.keyset.ReminderKeysetPage;
+import com.patrick.reminder.repository.keyset.ReminderSortKey;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Постраничная выдача по курсору (keyset) — фрагмент ReminderRepository.
+ */
+public interface ReminderKeysetRepository {
+
+    /**
+     * Страница напоминаний, подходящих под spec, в порядке (key, id) — строки после курсора after.
+     * <p>
+     * Вместо OFFSET и count(*) — условие "(key, id) больше последней строки" и LIMIT size + 1
+     * (лишняя строка — признак следующей страницы). При spec с hasUser это один диапазон
+     * по индексу (user_id, key, id), поэтому сотая страница стоит столько же, сколько первая.
+     *
+     * @param after курсор предыдущей страницы; null — первая страница
+     */
+    ReminderKeysetPage findPage(Specification<Reminder> spec, ReminderSortKey key, ReminderCursor after, int size);
+}
@@ -0,0 +1,90 @@
+package com.patrick.reminder.repository;
+
+import com.patrick.reminder.entity.Reminder;
+import com.patrick.reminder.repository.keyset.ReminderCursor;
+import com.patrick.reminder.repository.keyset.ReminderKeysetPage;
+import com.patrick.reminder.repository.keyset.ReminderSortKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация ReminderKeysetRepository на Criteria API: условие курсора добавляется к спецификации,
+ * а LIMIT задаётся без count-запроса (findAll(spec, pageable) делает оба).
+ */
+public class ReminderKeysetRepositoryImpl implements ReminderKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Строки с ключом NULL идут после всех остальных, по id. Выбираются отдельным запросом,
+     * а не через NULLS LAST: порядок NULL у PostgreSQL и H2 разный, а условие курсора с NULL не сравнить.
+     */
+    @Override
+    public ReminderKeysetPage findPage(Specification<Reminder> spec, ReminderSortKey key, ReminderCursor after, int size) {
+        int limit = size + 1;
+        List<Reminder> rows = new ArrayList<>(limit);
+        // Курсор в хвосте NULL-строк непустые ключи уже прошёл
+        if (after == null || after.value() != null || !key.nullable()) {
+            rows.addAll(select(spec, key, after, false, limit));
+        }
+        if (key.nullable() && rows.size() < limit) {
+            ReminderCursor nullAfter = after != null && after.value() == null ? after : null;
+            rows.addAll(select(spec, key, nullAfter, true, limit - rows.size()));
+        }
+
+        if (rows.size() <= size) {
+            return new ReminderKeysetPage(rows, null);
+        }
+        List<Reminder> page = List.copyOf(rows.subList(0, size));
+        return new ReminderKeysetPage(page, ReminderCursor.after(key, page.get(size - 1)).encode());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Reminder> select(Specification<Reminder> spec, ReminderSortKey key, ReminderCursor after,
+                                  boolean nullKeys, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Reminder> query = cb.createQuery(Reminder.class);
+        Root<Reminder> root = query.from(Reminder.class);
+        Path<Long> id = root.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            where.add(filter);
+        }
+        if (key.attribute() == null || nullKeys) {
+            // Только по id: выдача без ключа или хвост со значением ключа NULL
+            if (nullKeys) {
+                where.add(cb.isNull(root.get(key.attribute())));
+            }
+            if (after != null) {
+                where.add(cb.greaterThan(id, after.id()));
+            }
+            query.orderBy(cb.asc(id));
+        } else {
+            Path<Comparable> value = root.get(key.attribute());
+            if (key.nullable()) {
+                where.add(cb.isNotNull(value));
+            }
+            if (after != null) {
+                Comparable last = after.value();
+                // (value, id) > (last, id): value >= last задаёт начало диапазона по индексу,
+                // а внутри равных значений дальше ведёт id
+                where.add(cb.greaterThanOrEqualTo(value, last));
+                where.add(cb.or(cb.greaterThan(value, last), cb.greaterThan(id, after.id())));
+            }
+            query.orderBy(cb.asc(value), cb.asc(id));
+        }
+
+        query.select(root).where(where.toArray(new Predicate[0]));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
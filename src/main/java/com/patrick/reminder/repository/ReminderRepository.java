@@ -1,20 +1,240 @@
 package com.patrick.reminder.repository;
 
 import com.patrick.reminder.entity.Reminder;
-import org.springframework.data.domain.Page;
+import com.patrick.reminder.repository.projection.ReminderDispatchView;
+import com.patrick.reminder.repository.projection.ReminderFireTime;
+import com.patrick.reminder.repository.projection.ReminderRecurrence;
+import com.patrick.reminder.repository.projection.ReminderSearchHit;
+import com.patrick.reminder.repository.projection.ReminderSuggestion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface ReminderRepository extends JpaRepository<Reminder, Long>, JpaSpecificationExecutor<Reminder> {
+public interface ReminderRepository extends JpaRepository<Reminder, Long>, JpaSpecificationExecutor<Reminder>,
+        ReminderKeysetRepository {
 
     // Для списка напоминаний конкретного пользователя
     List<Reminder> findByUserId(Long userId);
 
-    // Для пагинации
-    Page<Reminder> findByUserId(Long userId, Pageable pageable);
+    /**
+     * Все напоминания пользователя потоком, в порядке id (индекс idx_reminders_user_id).
+     * Строки читаются с курсора по fetchSize, а не целиком; readOnly — без снимков для dirty checking.
+     * Вызывать внутри транзакции и закрывать поток; прочитанные сущности вызывающий отсоединяет сам.
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select r from Reminder r where r.user.id = :userId order by r.id")
+    Stream<Reminder> streamByUserId(@Param("userId") Long userId);
 
-    // Тут могут быть другие методы, если нужно
+    /**
+     * Захват (claim) порции напоминаний, срабатывание которых (next_fire_at) попадает в (from, to],
+     * от самых давних.
+     * <p>
+     * SELECT ... FOR UPDATE SKIP LOCKED (lock.timeout = -2 в Hibernate, как в
+     * NotificationOutboxRepository.findClaimable): строки, которые уже захватил другой узел (или поток),
+     * пропускаются, поэтому параллельные сканеры получают непересекающиеся порции и не ставят одно
+     * напоминание в outbox дважды. Запрос строит Hibernate под диалект: на PostgreSQL — SKIP LOCKED,
+     * на H2 в тестах — просто FOR UPDATE. Вызывать внутри транзакции, в которой напоминания ставятся
+     * в outbox и сдвигается next_fire_at, — блокировка держится до её коммита. После коммита строки
+     * уходят из диапазона (разовые — из частичного индекса idx_reminders_next_fire, повторяющиеся — в будущее),
+     * так что следующий вызов вернёт следующую порцию.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select r.id from Reminder r
+            where r.nextFireAt > :from and r.nextFireAt <= :to
+            order by r.nextFireAt, r.id
+            limit :limit
+            """)
+    List<Long> claimDueBatch(@Param("from") Instant from, @Param("to") Instant to, @Param("limit") int limit);
+
+    /**
+     * То же, но от самых свежих (догоняющий режим с порядком NEWEST_FIRST) — обратный проход по тому же индексу.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select r.id from Reminder r
+            where r.nextFireAt > :from and r.nextFireAt <= :to
+            order by r.nextFireAt desc, r.id desc
+            limit :limit
+            """)
+    List<Long> claimDueBatchNewestFirst(@Param("from") Instant from, @Param("to") Instant to,
+                                        @Param("limit") int limit);
+
+    /**
+     * Захват всех давно просроченных (next_fire_at <= before) напоминаний не более чем users пользователей —
+     * для сводки пропущенных: напоминания пользователя захватываются вместе и уходят одним сообщением.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select r.id from Reminder r
+            where r.nextFireAt <= :before
+              and r.user.id in (select s.user.id from Reminder s
+                                where s.nextFireAt <= :before
+                                group by s.user.id
+                                order by min(s.nextFireAt)
+                                limit :users)
+            """)
+    List<Long> claimStaleBatch(@Param("before") Instant before, @Param("users") int users);
+
+    /**
+     * То же для конкретных напоминаний (срабатывание колеса таймеров):
+     * возвращает те из ids, срабатывание которых уже наступило и которые не захвачены другим узлом.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select r.id from Reminder r
+            where r.id in :ids
+              and r.nextFireAt <= :now
+            """)
+    List<Long> claimDueByIds(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Ближайшее срабатывание (голова частичного индекса idx_reminders_next_fire).
+     * По нему ReminderJob выбирает интервал до следующего скана.
+     */
+    @Query("""
+            select r.id as id, r.nextFireAt as nextFireAt
+            from Reminder r
+            where r.nextFireAt is not null
+            order by r.nextFireAt, r.id
+            """)
+    List<ReminderFireTime> findNextFire(Pageable pageable);
+
+    /**
+     * Данные для доставки напоминаний из outbox: одним запросом с join пользователя,
+     * сразу в ReminderDispatchView (без загрузки сущностей Reminder/User).
+     */
+    @Query("""
+            select new com.patrick.reminder.repository.projection.ReminderDispatchView(
+                r.id, r.name, r.description, r.remindDate, r.remindTime,
+                u.id, u.username, u.email, u.telegramId, u.locale, u.timeZone, u.digestEnabled)
+            from Reminder r
+            join r.user u
+            where r.id in :ids
+            """)
+    List<ReminderDispatchView> findDispatchViews(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Правила повторения захваченных напоминаний (разовые не возвращаются) —
+     * чтобы вычислить следующее срабатывание без загрузки сущностей.
+     */
+    @Query("""
+            select new com.patrick.reminder.repository.projection.ReminderRecurrence(
+                r.id, r.recurrence, r.remindDate, r.remindTime, r.nextFireAt, u.timeZone)
+            from Reminder r
+            join r.user u
+            where r.id in :ids and r.recurrence is not null
+            """)
+    List<ReminderRecurrence> findRecurrences(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Помечает разовые напоминания отправленными одним UPDATE (после постановки в outbox):
+     * sent=true и next_fire_at=null — строка уходит из частичного индекса.
+     * Повторяющиеся не трогает — их сдвигает rescheduleFire.
+     * clearAutomatically — чтобы в контексте не остались устаревшие значения.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Reminder r set r.sent = true, r.nextFireAt = null where r.id in :ids and r.recurrence is null")
+    int markFired(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Сдвигает срабатывание напоминаний с одинаковым следующим моментом одним UPDATE.
+     * nextFireAt = null — повторения закончились, напоминание считается отправленным.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Reminder r set r.nextFireAt = :nextFireAt, r.sent = :sent where r.id in :ids")
+    int rescheduleFire(@Param("ids") Collection<Long> ids,
+                       @Param("nextFireAt") Instant nextFireAt,
+                       @Param("sent") boolean sent);
+
+    /**
+     * Напоминания со срабатыванием в интервале (from, to] — для дозагрузки колеса таймеров.
+     * Возвращает только id и момент срабатывания.
+     */
+    @Query("""
+            select r.id as id, r.nextFireAt as nextFireAt
+            from Reminder r
+            where r.nextFireAt > :from and r.nextFireAt <= :to
+            order by r.nextFireAt, r.id
+            """)
+    List<ReminderFireTime> findUpcoming(@Param("from") Instant from,
+                                        @Param("to") Instant to,
+                                        Pageable pageable);
+
+    /**
+     * Полнотекстовый поиск по названию и описанию напоминаний пользователя (только PostgreSQL).
+     * <p>
+     * Совпадения находит GIN-индекс idx_reminders_search, ранжируются только они: время зависит от числа
+     * совпадений, а не от размера таблицы. Порядок — (rank по убыванию, id), страница — после (afterRank, afterId);
+     * для первой страницы afterRank = Float.MAX_VALUE. query — в синтаксисе websearch_to_tsquery:
+     * слова, "фраза", -исключение, or.
+     */
+    @Query(value = """
+            SELECT hits.id AS id, hits.rank AS rank
+            FROM (SELECT r.id, ts_rank(r.search_vector, q) AS rank
+                  FROM reminders r, websearch_to_tsquery('russian', :query) q
+                  WHERE r.user_id = :userId
+                    AND r.search_vector @@ q) hits
+            WHERE hits.rank < :afterRank
+               OR (hits.rank = :afterRank AND hits.id > :afterId)
+            ORDER BY hits.rank DESC, hits.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ReminderSearchHit> searchFullText(@Param("userId") Long userId,
+                                           @Param("query") String query,
+                                           @Param("afterRank") float afterRank,
+                                           @Param("afterId") long afterId,
+                                           @Param("limit") int limit);
+
+    /**
+     * Подсказки по названию (только PostgreSQL, pg_trgm): названия, содержащие text (pattern = '%text%'),
+     * или похожие на него (опечатки, оператор %). Сначала начинающиеся с text (prefix = 'text%'),
+     * дальше — по похожести. text, pattern и prefix — в нижнем регистре. Совпадения находит
+     * триграммный индекс idx_reminders_name_lower_trgm; читаются только id и name.
+     */
+    @Query(value = """
+            SELECT r.id AS id, r.name AS name
+            FROM reminders r
+            WHERE r.user_id = :userId
+              AND (lower(r.name) LIKE :pattern OR lower(r.name) % :text)
+            ORDER BY lower(r.name) LIKE :prefix DESC, similarity(lower(r.name), :text) DESC, r.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ReminderSuggestion> suggestByTrigram(@Param("userId") Long userId,
+                                              @Param("text") String text,
+                                              @Param("pattern") String pattern,
+                                              @Param("prefix") String prefix,
+                                              @Param("limit") int limit);
+
+    /**
+     * То же без pg_trgm (H2 в тестах): только подстрока, по названию.
+     */
+    @Query("""
+            select r.id as id, r.name as name
+            from Reminder r
+            where r.user.id = :userId and lower(r.name) like :pattern escape '\\'
+            order by r.name, r.id
+            """)
+    List<ReminderSuggestion> suggestByLike(@Param("userId") Long userId,
+                                           @Param("pattern") String pattern,
+                                           Pageable pageable);
 }
@@ -0,0 +1,56 @@
+package com.patrick.reminder.repository.keyset;
+
+import com.patrick.reminder.entity.Reminder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция в выдаче: ключ сортировки и id последней отданной строки.
+ * Клиенту уходит непрозрачной строкой (Base64 от "KEY|id|значение"); значение NULL — без последней части.
+ *
+ * @param key   порядок, в котором выдан курсор: с другим порядком курсор не принимается
+ * @param value значение ключа в последней строке (null — ключ NULL, выдача уже в хвосте NULL-строк)
+ * @param id    id последней строки
+ */
+public record ReminderCursor(ReminderSortKey key, Comparable<?> value, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Курсор после строки reminder.
+     */
+    public static ReminderCursor after(ReminderSortKey key, Reminder reminder) {
+        return new ReminderCursor(key, key.valueOf(reminder), reminder.getId());
+    }
+
+    /**
+     * Разбирает курсор из запроса; null или пустая строка — первая страница (null).
+     *
+     * @throws IllegalArgumentException курсор испорчен или выдан для другого порядка
+     */
+    public static ReminderCursor decode(String cursor, ReminderSortKey key) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            if (parts.length < 2 || !parts[0].equals(key.name())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + key);
+            }
+            Comparable<?> value = parts.length == 3 ? key.parse(parts[2]) : null;
+            if (value == null && key.attribute() != null && !key.nullable()) {
+                throw new IllegalArgumentException("Cursor without value for sort " + key);
+            }
+            return new ReminderCursor(key, value, Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public String encode() {
+        String plain = key.name() + "|" + id + (value != null ? "|" + value : "");
+        return ENCODER.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+}
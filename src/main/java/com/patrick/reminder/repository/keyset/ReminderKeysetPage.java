@@ -0,0 +1,14 @@
+package com.patrick.reminder.repository.keyset;
+
+import com.patrick.reminder.entity.Reminder;
+
+import java.util.List;
+
+/**
+ * Страница выдачи по курсору.
+ *
+ * @param reminders  напоминания страницы
+ * @param nextCursor курсор следующей страницы; null — это последняя страница
+ */
+public record ReminderKeysetPage(List<Reminder> reminders, String nextCursor) {
+}
@@ -0,0 +1,68 @@
+package com.patrick.reminder.repository.keyset;
+
+import com.patrick.reminder.entity.Reminder;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.function.Function;
+
+/**
+ * Порядок выдачи напоминаний постранично: (ключ, id). id делает порядок строгим,
+ * поэтому следующая страница — "всё после последней строки", без OFFSET.
+ * Каждому ключу соответствует индекс (user_id, ключ, id) — см. 0018-create-reminders-keyset-indexes.sql.
+ */
+public enum ReminderSortKey {
+
+    ID(null, false, null, null),
+    NAME("name", false, Reminder::getName, value -> value),
+    REMIND_AT("remindAt", true, Reminder::getRemindAt, Instant::parse),
+    REMIND_TIME("remindTime", true, Reminder::getRemindTime, LocalTime::parse),
+    // Ранг полнотекстового поиска — не атрибут сущности: только для курсора ReminderRepository.searchFullText
+    RANK("rank", false, null, Float::valueOf);
+
+    // Атрибут сущности (null — только id)
+    private final String attribute;
+    // Может ли ключ быть NULL: такие строки отдаются после всех остальных
+    private final boolean nullable;
+    private final Function<Reminder, Comparable<?>> getter;
+    private final Function<String, Comparable<?>> parser;
+
+    ReminderSortKey(String attribute, boolean nullable,
+                    Function<Reminder, Comparable<?>> getter, Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.nullable = nullable;
+        this.getter = getter;
+        this.parser = parser;
+    }
+
+    /**
+     * Ключ по параметру by эндпоинта сортировки (name, remindDate, remindTime).
+     *
+     * @throws IllegalArgumentException неизвестный параметр
+     */
+    public static ReminderSortKey of(String by) {
+        return switch (by) {
+            case "name" -> NAME;
+            // По моменту: внутри одной даты — ещё и по времени
+            case "remindDate" -> REMIND_AT;
+            case "remindTime" -> REMIND_TIME;
+            default -> throw new IllegalArgumentException("Invalid sort parameter: " + by);
+        };
+    }
+
+    public String attribute() {
+        return attribute;
+    }
+
+    public boolean nullable() {
+        return nullable;
+    }
+
+    public Comparable<?> valueOf(Reminder reminder) {
+        return getter != null ? getter.apply(reminder) : null;
+    }
+
+    Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+}
@@ -0,0 +1,34 @@
+package com.patrick.reminder.repository.projection;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Плоская проекция напоминания для доставки: поля напоминания и получателя из одного запроса с join.
+ * <p>
+ * В отличие от ReminderFireTime, это не интерфейс, а record, который Hibernate создаёт конструктором
+ * (select new ...): без прокси и без сущностей в контексте персистентности — ни dirty checking,
+ * ни роста кэша первого уровня, ни отдельных запросов за пользователями.
+ */
+public record ReminderDispatchView(Long id,
+                                   String name,
+                                   String description,
+                                   LocalDate remindDate,
+                                   LocalTime remindTime,
+                                   Long userId,
+                                   String username,
+                                   String email,
+                                   String telegramId,
+                                   String locale,
+                                   String timeZone,
+                                   boolean digestEnabled) {
+
+    /**
+     * Копия с датой и временем конкретного срабатывания (для повторяющегося напоминания).
+     */
+    public ReminderDispatchView at(LocalDateTime fireAt) {
+        return new ReminderDispatchView(id, name, description, fireAt.toLocalDate(), fireAt.toLocalTime(),
+                userId, username, email, telegramId, locale, timeZone, digestEnabled);
+    }
+}
@@ -0,0 +1,13 @@
+package com.patrick.reminder.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * Лёгкая проекция для колеса таймеров: только id и момент срабатывания,
+ * без загрузки описания и пользователя.
+ */
+public interface ReminderFireTime {
+    Long getId();
+
+    Instant getNextFireAt();
+}
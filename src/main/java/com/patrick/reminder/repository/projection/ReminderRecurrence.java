@@ -0,0 +1,18 @@
+package com.patrick.reminder.repository.projection;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Правило повторения напоминания, его текущее срабатывание и пояс владельца — всё, что нужно,
+ * чтобы вычислить следующее (select new ..., как ReminderDispatchView). Правило применяется
+ * к "настенному" времени в поясе пользователя, поэтому 9:00 остаётся 9:00 и после перехода на летнее время.
+ */
+public record ReminderRecurrence(Long id,
+                                 String recurrence,
+                                 LocalDate remindDate,
+                                 LocalTime remindTime,
+                                 Instant nextFireAt,
+                                 String timeZone) {
+}
@@ -0,0 +1,10 @@
+package com.patrick.reminder.repository.projection;
+
+/**
+ * Результат полнотекстового поиска: id напоминания и его ранг (ts_rank) для запроса.
+ */
+public interface ReminderSearchHit {
+    Long getId();
+
+    Float getRank();
+}
@@ -0,0 +1,10 @@
+package com.patrick.reminder.repository.projection;
+
+/**
+ * Подсказка при наборе: только id и название, без описания и пользователя.
+ */
+public interface ReminderSuggestion {
+    Long getId();
+
+    String getName();
+}
@@ -0,0 +1,11 @@
+package com.patrick.reminder.service.notification;
+
+/**
+ * В каком порядке догоняющий режим разбирает просроченные напоминания (reminder.catch-up.order).
+ */
+public enum CatchUpOrder {
+    // Сначала те, что ждут дольше всех
+    OLDEST_FIRST,
+    // Сначала опоздавшие меньше всех — они ещё актуальны, а давние могут подождать (или уйти в сводку)
+    NEWEST_FIRST
+}
@@ -0,0 +1,42 @@
+package com.patrick.reminder.service.notification;
+
+import java.time.Instant;
+
+/**
+ * Состояние бюджета догоняющего режима между проходами скана: момент прошлого прохода
+ * и дробный остаток бюджета просроченных.
+ * <p>
+ * Проходы в кластере выполняются на разных узлах, поэтому состояние не хранится в NotificationService:
+ * ReminderJob держит его в JobDataMap (общем для кластера) и передаёт в каждый проход.
+ * Момент прохода — по часам узла, поэтому между узлами нужна синхронизация времени (NTP).
+ */
+public class CatchUpState {
+
+    // null — проходов ещё не было: бюджет за полные burst-seconds
+    private Instant lastScanAt;
+    private double carry;
+
+    public CatchUpState() {
+    }
+
+    public CatchUpState(Instant lastScanAt, double carry) {
+        this.lastScanAt = lastScanAt;
+        this.carry = carry;
+    }
+
+    public Instant getLastScanAt() {
+        return lastScanAt;
+    }
+
+    public double getCarry() {
+        return carry;
+    }
+
+    /**
+     * Вызывается проходом скана: запоминает его момент и новый остаток бюджета.
+     */
+    public void advance(Instant scanAt, double carry) {
+        this.lastScanAt = scanAt;
+        this.carry = carry;
+    }
+}
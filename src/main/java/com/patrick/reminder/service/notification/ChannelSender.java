@@ -0,0 +1,87 @@
+package com.patrick.reminder.service.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Отправитель одного канала уведомлений. Работает в двух стадиях конвейера NotificationDispatcher:
+ * <ul>
+ *   <li>render — готовит сообщение канала (шаблоны, MIME), без обращения к сети;</li>
+ *   <li>send — отправляет пачку готовых сообщений (размер задаёт NotificationDispatcher) и возвращает те,
+ *   которые отправить не удалось. Исключение означает, что не отправлена вся пачка.</li>
+ * </ul>
+ *
+ * @param <M> готовое сообщение канала
+ */
+public interface ChannelSender<M> {
+
+    M render(Notification notification) throws Exception;
+
+    Collection<Notification> send(List<Rendered<M>> messages);
+
+    /**
+     * Готовое сообщение канала вместе с уведомлением, из которого оно получено.
+     */
+    record Rendered<M>(Notification notification, M message) {
+    }
+
+    @FunctionalInterface
+    interface Renderer<M> {
+        M render(Notification notification) throws Exception;
+    }
+
+    /**
+     * Канал, отправляющий пачку одним вызовом (например, письма по одному SMTP-соединению).
+     */
+    static <M> ChannelSender<M> batch(Renderer<M> renderer, Function<List<Rendered<M>>, Collection<Notification>> sender) {
+        return new ChannelSender<>() {
+            @Override
+            public M render(Notification notification) throws Exception {
+                return renderer.render(notification);
+            }
+
+            @Override
+            public Collection<Notification> send(List<Rendered<M>> messages) {
+                return sender.apply(messages);
+            }
+        };
+    }
+
+    /**
+     * Канал с асинхронной отправкой: все отправки пачки запускаются сразу (конвейером),
+     * затем дожидаемся каждой. Сколько запросов реально в полёте, решает сам клиент канала.
+     */
+    static <M> ChannelSender<M> async(Renderer<M> renderer,
+                                      BiFunction<Notification, M, CompletableFuture<?>> sender) {
+        Logger log = LoggerFactory.getLogger(ChannelSender.class);
+        return batch(renderer, messages -> {
+            List<CompletableFuture<?>> sends = new ArrayList<>(messages.size());
+            for (Rendered<M> rendered : messages) {
+                try {
+                    sends.add(sender.apply(rendered.notification(), rendered.message()));
+                } catch (RuntimeException e) {
+                    sends.add(CompletableFuture.failedFuture(e));
+                }
+            }
+            List<Notification> failed = new ArrayList<>();
+            for (int i = 0; i < messages.size(); i++) {
+                Notification notification = messages.get(i).notification();
+                try {
+                    sends.get(i).join();
+                } catch (RuntimeException e) {
+                    log.error("Failed to send reminders {}", notification.reminderIds(),
+                            e.getCause() != null ? e.getCause() : e);
+                    failed.add(notification);
+                }
+            }
+            return failed;
+        });
+    }
+}
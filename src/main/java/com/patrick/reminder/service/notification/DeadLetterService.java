@@ -0,0 +1,63 @@
+package com.patrick.reminder.service.notification;
+
+import com.patrick.reminder.dto.notification.DeadLetterResponseDto;
+import com.patrick.reminder.entity.NotificationDeadLetter;
+import com.patrick.reminder.entity.NotificationOutbox;
+import com.patrick.reminder.repository.NotificationDeadLetterRepository;
+import com.patrick.reminder.repository.NotificationOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Просмотр недоставленных уведомлений и их повторная постановка в outbox (replay).
+ */
+@Service
+public class DeadLetterService {
+
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final NotificationOutboxRepository outboxRepository;
+
+    public DeadLetterService(NotificationDeadLetterRepository deadLetterRepository,
+                             NotificationOutboxRepository outboxRepository) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.outboxRepository = outboxRepository;
+    }
+
+    public List<DeadLetterResponseDto> getDeadLetters(String sub) {
+        return deadLetterRepository.findByUserSub(sub);
+    }
+
+    public DeadLetterResponseDto getDeadLetter(Long id) {
+        return deadLetterRepository.findDtoById(id).orElse(null);
+    }
+
+    /**
+     * Возвращает уведомление в outbox с нулевым счётчиком попыток и удаляет его из dead letter.
+     * Доставку выполнит обычный воркер outbox при следующем проходе — только в каналы,
+     * в которые это срабатывание ещё не доставлено.
+     *
+     * @return false, если записи уже нет
+     */
+    @Transactional
+    public boolean replay(Long id) {
+        Optional<NotificationDeadLetter> optional = deadLetterRepository.findById(id);
+        if (optional.isEmpty()) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(NotificationOutbox.builder()
+                .reminderId(optional.get().getReminderId())
+                .fireAt(optional.get().getFireAt())
+                .missedCount(optional.get().getMissedCount())
+                .createdAt(now)
+                .availableAt(now)
+                .attempts(0)
+                .build());
+        deadLetterRepository.delete(optional.get());
+        return true;
+    }
+}
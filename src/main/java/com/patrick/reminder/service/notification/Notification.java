@@ -0,0 +1,56 @@
+package com.patrick.reminder.service.notification;
+
+import com.patrick.reminder.repository.projection.ReminderDispatchView;
+
+import java.util.List;
+
+/**
+ * Одно исходящее сообщение пользователю: одно напоминание или сводка (digest) из нескольких.
+ * Сообщение доставляется или не доставляется целиком — вместе со всеми своими напоминаниями.
+ * Все напоминания сообщения принадлежат одному пользователю; его данные берутся из первого.
+ * <p>
+ * missed > 0 — сводка пропущенных после простоя: сообщение заменяет missed давно просроченных напоминаний,
+ * а в reminders — только последнее из них.
+ * <p>
+ * entryIds — записи outbox, которые доставляет сообщение (по одной на элемент reminders): по ним конвейер
+ * сообщает о неудачах. У одного напоминания в порции может быть несколько записей — разные срабатывания.
+ * Без outbox (шаблоны, тесты) — id самих напоминаний.
+ */
+public record Notification(List<ReminderDispatchView> reminders, int missed, List<Long> entryIds) {
+
+    public Notification(List<ReminderDispatchView> reminders) {
+        this(reminders, 0, reminders.stream().map(ReminderDispatchView::id).toList());
+    }
+
+    public static Notification of(ReminderDispatchView reminder) {
+        return new Notification(List.of(reminder));
+    }
+
+    public static Notification missed(ReminderDispatchView latest, int missed) {
+        return new Notification(List.of(latest), missed, List.of(latest.id()));
+    }
+
+    public boolean isDigest() {
+        return reminders.size() > 1;
+    }
+
+    public List<Long> reminderIds() {
+        return reminders.stream().map(ReminderDispatchView::id).toList();
+    }
+
+    public String username() {
+        return reminders.get(0).username();
+    }
+
+    public String email() {
+        return reminders.get(0).email();
+    }
+
+    public String telegramId() {
+        return reminders.get(0).telegramId();
+    }
+
+    public String locale() {
+        return reminders.get(0).locale();
+    }
+}
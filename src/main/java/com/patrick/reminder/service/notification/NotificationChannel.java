@@ -0,0 +1,9 @@
+package com.patrick.reminder.service.notification;
+
+/**
+ * Каналы доставки уведомлений.
+ */
+public enum NotificationChannel {
+    EMAIL,
+    TELEGRAM
+}
@@ -0,0 +1,543 @@
+package com.patrick.reminder.service.notification;
+
+import com.patrick.reminder.entity.NotificationDeadLetter;
+import com.patrick.reminder.entity.NotificationDelivery;
+import com.patrick.reminder.entity.NotificationOutbox;
+import com.patrick.reminder.repository.NotificationDeadLetterRepository;
+import com.patrick.reminder.repository.NotificationDeliveryRepository;
+import com.patrick.reminder.repository.NotificationOutboxRepository;
+import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.projection.ReminderDispatchView;
+import com.patrick.reminder.service.user.UserTimeZones;
+import com.patrick.reminder.telegram.TelegramBotClient;
+import com.patrick.reminder.template.NotificationTemplate;
+import com.patrick.reminder.template.NotificationTemplates;
+import com.patrick.reminder.template.TemplateKind;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Доставка уведомлений из outbox.
+ * <p>
+ * Стадия scan конвейера доставки: забирает готовые записи порциями и передаёт их в NotificationDispatcher
+ * (render → send → ack), не дожидаясь отправки предыдущих порций. Конвейер ограничен, поэтому при отставании
+ * каналов сканер ждёт места в нём, а не захватывает новые порции. В стадии ack доставленные записи
+ * удаляются одним запросом на порцию. Неудачные записи остаются в outbox и откладываются
+ * с экспоненциальной задержкой (backoff) со случайным разбросом (jitter), не мешая остальным.
+ * Запись, исчерпавшая max-attempts попыток, переносится в notification_dead_letter и больше
+ * не отправляется — "отравленный" адрес не тратит время каждого прохода.
+ * <p>
+ * Напоминания одного пользователя из порции объединяются в сводку (digest) — одно письмо и одно
+ * сообщение Telegram вместо N, если пользователь от сводок не отказался (users.digest_enabled).
+ * Тексты сообщений — шаблоны NotificationTemplates на языке пользователя.
+ * <p>
+ * Доставка учитывается по каналам (notification_delivery, ключ reminder_id:fire_at:channel): если письмо ушло,
+ * а Telegram — нет, повтор отправит только сообщение Telegram. Там же — моменты срабатывания, постановки
+ * в outbox и доставки, по ним считается задержка доставки (метрика reminder.delivery.lag).
+ * <p>
+ * Порция захватывается короткой транзакцией (FOR UPDATE SKIP LOCKED) и арендуется узлом
+ * на lease-seconds: сама отправка идёт уже вне транзакции, а другие узлы эти записи не трогают,
+ * пока аренда не истекла. Если узел упал посреди отправки, его записи по истечении аренды забирает другой.
+ */
+@Service
+public class NotificationDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDeliveryService.class);
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final NotificationDeliveryRepository deliveryRepository;
+    private final ReminderRepository reminderRepository;
+    private final JavaMailSender mailSender;
+    private final TelegramBotClient telegramBotClient;
+    private final NotificationDispatcher dispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationTemplates templates;
+    private final UserTimeZones timeZones;
+
+    // Отправители по каналам (порядок — как раньше: сначала почта, затем Telegram)
+    private final Map<NotificationChannel, ChannelSender<?>> senders = new EnumMap<>(NotificationChannel.class);
+
+    // Метрики стадии scan — те же, что у остальных стадий конвейера (см. PipelineStage)
+    private final Timer scanTimer;
+    private final Counter scanned;
+    // Задержка доставки от срабатывания — по каналам
+    private final Map<NotificationChannel, Timer> deliveryLag = new EnumMap<>(NotificationChannel.class);
+
+    // Одновременно outbox разбирает только один поток; остальные лишь просят пройти ещё раз
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    @Value("${reminder.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${reminder.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds = 30;
+
+    @Value("${reminder.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds = 3600;
+
+    // Доля задержки, на которую она случайно уменьшается: повторы после общего сбоя расходятся во времени
+    @Value("${reminder.outbox.backoff-jitter:0.2}")
+    private double backoffJitter = 0.2;
+
+    // После стольких неудачных попыток запись уходит в dead letter
+    @Value("${reminder.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    // Срок аренды порции: должен с запасом покрывать отправку одной порции (таймауты SMTP/Telegram)
+    @Value("${reminder.outbox.lease-seconds:120}")
+    private long leaseSeconds = 120;
+
+    // Больше напоминаний в одной сводке не помещаем (ограничение длины сообщения Telegram — 4096 символов)
+    @Value("${reminder.digest.max-reminders:10}")
+    private int digestMaxReminders = 10;
+
+    // Письмо с HTML-частью (multipart/alternative), если для языка есть шаблон email-html
+    @Value("${reminder.templates.html-email:true}")
+    private boolean htmlEmail = true;
+
+    // Имя узла в claimed_by (для диагностики); по умолчанию pid@host
+    @Value("${reminder.node-id:}")
+    private String nodeId = "";
+
+    // Сколько дней хранить историю доставок (после этого replay из dead letter может повторить доставленный канал)
+    @Value("${reminder.delivery.retention-days:30}")
+    private long deliveryRetentionDays = 30;
+
+    public NotificationDeliveryService(NotificationOutboxRepository outboxRepository,
+                                       NotificationDeadLetterRepository deadLetterRepository,
+                                       NotificationDeliveryRepository deliveryRepository,
+                                       ReminderRepository reminderRepository,
+                                       JavaMailSender mailSender,
+                                       TelegramBotClient telegramBotClient,
+                                       NotificationDispatcher dispatcher,
+                                       TransactionTemplate transactionTemplate,
+                                       NotificationTemplates templates,
+                                       UserTimeZones timeZones,
+                                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.reminderRepository = reminderRepository;
+        this.mailSender = mailSender;
+        this.telegramBotClient = telegramBotClient;
+        this.dispatcher = dispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.templates = templates;
+        this.timeZones = timeZones;
+        senders.put(NotificationChannel.EMAIL, ChannelSender.batch(this::buildEmail, this::sendEmails));
+        senders.put(NotificationChannel.TELEGRAM, ChannelSender.async(this::renderTelegram,
+                (notification, text) -> telegramBotClient.sendMessageAsync(notification.telegramId(), text)));
+        this.scanTimer = Timer.builder("reminder.pipeline.stage").tag("stage", "scan").register(meterRegistry);
+        this.scanned = Counter.builder("reminder.pipeline.notifications").tag("stage", "scan").register(meterRegistry);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            deliveryLag.put(channel, Timer.builder("reminder.delivery.lag")
+                    .tag("channel", channel.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Разбирает outbox, пока в нём есть готовые записи, и ждёт подтверждения всех переданных в конвейер порций.
+     * Если разбор уже идёт в другом потоке, просим его сделать ещё один проход и сразу выходим.
+     */
+    public void drain() {
+        drainRequested.set(true);
+        while (drainRequested.get() && drainLock.tryLock()) {
+            try {
+                drainRequested.set(false);
+                List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+                while (scanBatch(inFlight) == batchSize) {
+                    // полная порция — возможно, есть ещё; подтверждённые успешно больше не держим
+                    inFlight.removeIf(done -> done.isDone() && !done.isCompletedExceptionally());
+                }
+                awaitAll(inFlight);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Стадия scan: захват порции, данные напоминаний, группировка в сообщения и передача в конвейер.
+     * Возвращает размер порции.
+     */
+    private int scanBatch(List<CompletableFuture<Void>> inFlight) {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> batch = claimBatch(now);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Плоская проекция одним запросом с join: без сущностей в контексте и без запросов за пользователями
+        Map<Long, ReminderDispatchView> views = reminderRepository.findDispatchViews(
+                        batch.stream().map(NotificationOutbox::getReminderId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(ReminderDispatchView::id, Function.identity()));
+        // Дальше всё — по id записи outbox, а не напоминания: у одного напоминания в порции может быть
+        // несколько записей (повтор срабатывания N и уже поставленное N+1), и каждая доставляется сама по себе
+        Map<Long, ReminderDispatchView> reminders = new LinkedHashMap<>();
+        for (NotificationOutbox entry : batch) {
+            ReminderDispatchView view = views.get(entry.getReminderId());
+            if (view != null) {
+                // Срабатывание, за которое отправляется уведомление: у повторяющегося напоминания это не remindDate/remindTime
+                reminders.put(entry.getId(), entry.getFireAt() != null
+                        ? view.at(LocalDateTime.ofInstant(entry.getFireAt(), timeZones.zoneOf(view.timeZone())))
+                        : view);
+            }
+        }
+        // Каналы, в которые срабатывание ещё не доставлено; доставленное во все каналы не отправляется вовсе
+        Map<Long, Set<NotificationChannel>> pending = pendingChannels(batch);
+        List<Notification> notifications = coalesce(batch, reminders, pending);
+        scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        scanned.increment(notifications.size());
+
+        // Блокируется, пока конвейеру некуда положить порцию.
+        // У записей одного сообщения набор каналов общий (см. coalesce) — берём по первой
+        inFlight.add(dispatcher.submit(notifications, senders,
+                notification -> pending.get(notification.entryIds().get(0)),
+                failed -> acknowledge(batch, reminders.keySet(), pending, failed, now)));
+        return batch.size();
+    }
+
+    /**
+     * Удаляет историю доставок старше retention-days (вызывается DeliveryHistoryPurgeJob).
+     *
+     * @return сколько записей удалено
+     */
+    public int purgeDeliveryHistory() {
+        Instant before = Instant.now().minus(Duration.ofDays(deliveryRetentionDays));
+        return transactionTemplate.execute(status -> deliveryRepository.deleteDeliveredBefore(before));
+    }
+
+    /**
+     * Недоставленные каналы каждой записи порции (по id записи): все каналы минус те, ключи которых
+     * уже есть в notification_delivery, — одним запросом на порцию.
+     */
+    private Map<Long, Set<NotificationChannel>> pendingChannels(List<NotificationOutbox> batch) {
+        Map<Long, Set<NotificationChannel>> pending = new HashMap<>();
+        List<String> keys = new ArrayList<>(batch.size() * senders.size());
+        for (NotificationOutbox entry : batch) {
+            pending.put(entry.getId(), EnumSet.copyOf(senders.keySet()));
+            for (NotificationChannel channel : senders.keySet()) {
+                keys.add(deliveryKey(entry, channel));
+            }
+        }
+        Set<String> delivered = new HashSet<>(deliveryRepository.findDeliveredKeys(keys));
+        if (!delivered.isEmpty()) {
+            for (NotificationOutbox entry : batch) {
+                pending.get(entry.getId()).removeIf(channel -> delivered.contains(deliveryKey(entry, channel)));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Ключ идемпотентности: одно срабатывание напоминания в одном канале.
+     * Записи outbox без fire_at (поставленные до его появления) — по одной на напоминание.
+     */
+    private static String deliveryKey(NotificationOutbox entry, NotificationChannel channel) {
+        return entry.getReminderId() + ":"
+                + (entry.getFireAt() != null ? entry.getFireAt().toEpochMilli() : "-") + ":"
+                + channel.name();
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> inFlight) {
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Стадия ack: подтверждение (ack) одним DELETE на порцию, повторы — одним UPDATE на каждое число попыток,
+     * исчерпавшие попытки — в dead letter. found, pending и failed — по id записи.
+     */
+    private void acknowledge(List<NotificationOutbox> batch, Set<Long> found, Map<Long, Set<NotificationChannel>> pending,
+                             Map<Long, Set<NotificationChannel>> failed, LocalDateTime now) {
+        recordDeliveries(batch, found, pending, failed);
+
+        List<Long> doneIds = new ArrayList<>(batch.size());
+        Map<Integer, List<Long>> retriesByAttempts = new TreeMap<>();
+        List<NotificationOutbox> exhausted = new ArrayList<>();
+        for (NotificationOutbox entry : batch) {
+            // Напоминание удалено (или уже доставлено) — запись больше не нужна
+            if (!found.contains(entry.getId()) || !failed.containsKey(entry.getId())) {
+                doneIds.add(entry.getId());
+            } else if (entry.getAttempts() + 1 >= maxAttempts) {
+                exhausted.add(entry);
+            } else {
+                retriesByAttempts.computeIfAbsent(entry.getAttempts() + 1, attempts -> new ArrayList<>())
+                        .add(entry.getId());
+            }
+        }
+        if (!doneIds.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(doneIds);
+        }
+        // Jitter — на группу: записи одной порции и так вернутся одной порцией, разносить нужно порции и узлы
+        retriesByAttempts.forEach((attempts, ids) ->
+                outboxRepository.reschedule(ids, now.plusSeconds(backoffSeconds(attempts))));
+        if (!exhausted.isEmpty()) {
+            moveToDeadLetter(exhausted, failed, now);
+        }
+    }
+
+    /**
+     * Группирует записи порции по пользователю: сводка на пользователя (по digest-max-reminders штук),
+     * для отказавшихся от сводок — отдельное сообщение на каждую запись.
+     * В одну сводку попадают только записи с одинаковыми недоставленными каналами,
+     * чтобы повтор не отправил уже доставленное. Записи удалённых напоминаний и доставленные
+     * во все каналы пропускаются.
+     *
+     * @param reminders напоминание с моментом срабатывания — по id записи
+     */
+    private List<Notification> coalesce(List<NotificationOutbox> batch, Map<Long, ReminderDispatchView> reminders,
+                                        Map<Long, Set<NotificationChannel>> pending) {
+        Map<DigestKey, List<NotificationOutbox>> byUser = new LinkedHashMap<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (NotificationOutbox entry : batch) {
+            ReminderDispatchView reminder = reminders.get(entry.getId());
+            if (reminder == null || pending.get(entry.getId()).isEmpty()) {
+                continue;
+            }
+            if (entry.getMissedCount() > 0) {
+                // Сводка пропущенных уже одна на пользователя (см. NotificationService) — отдельным сообщением
+                notifications.add(new Notification(List.of(reminder), entry.getMissedCount(), List.of(entry.getId())));
+            } else if (reminder.digestEnabled()) {
+                byUser.computeIfAbsent(new DigestKey(reminder.userId(), pending.get(entry.getId())),
+                        key -> new ArrayList<>()).add(entry);
+            } else {
+                notifications.add(new Notification(List.of(reminder), 0, List.of(entry.getId())));
+            }
+        }
+        Comparator<ReminderDispatchView> byTime = Comparator
+                .comparing(ReminderDispatchView::remindDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+                .thenComparing(ReminderDispatchView::remindTime, Comparator.nullsLast(Comparator.<LocalTime>naturalOrder()))
+                .thenComparing(ReminderDispatchView::id);
+        Comparator<NotificationOutbox> entriesByTime = Comparator
+                .comparing((NotificationOutbox entry) -> reminders.get(entry.getId()), byTime)
+                .thenComparing(NotificationOutbox::getId);
+        for (List<NotificationOutbox> userEntries : byUser.values()) {
+            userEntries.sort(entriesByTime);
+            for (int from = 0; from < userEntries.size(); from += digestMaxReminders) {
+                List<NotificationOutbox> part = userEntries.subList(
+                        from, Math.min(from + digestMaxReminders, userEntries.size()));
+                notifications.add(new Notification(
+                        part.stream().map(entry -> reminders.get(entry.getId())).toList(),
+                        0,
+                        part.stream().map(NotificationOutbox::getId).toList()));
+            }
+        }
+        return notifications;
+    }
+
+    /**
+     * Записывает доставленные каналы: из недоставленных до отправки — те, что не упали.
+     * Напоминания, удалённые за время отправки, не записываются (строки всё равно удалились бы каскадом).
+     */
+    private void recordDeliveries(List<NotificationOutbox> batch, Set<Long> found,
+                                  Map<Long, Set<NotificationChannel>> pending,
+                                  Map<Long, Set<NotificationChannel>> failed) {
+        Instant deliveredAt = Instant.now();
+        List<NotificationDelivery> deliveries = new ArrayList<>();
+        for (NotificationOutbox entry : batch) {
+            if (!found.contains(entry.getId())) {
+                continue;
+            }
+            Set<NotificationChannel> failedChannels = failed.getOrDefault(entry.getId(), Set.of());
+            for (NotificationChannel channel : pending.get(entry.getId())) {
+                if (failedChannels.contains(channel)) {
+                    continue;
+                }
+                deliveries.add(NotificationDelivery.builder()
+                        .idempotencyKey(deliveryKey(entry, channel))
+                        .reminderId(entry.getReminderId())
+                        .channel(channel)
+                        .fireAt(entry.getFireAt())
+                        .enqueuedAt(entry.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant())
+                        .deliveredAt(deliveredAt)
+                        .build());
+                if (entry.getFireAt() != null) {
+                    deliveryLag.get(channel).record(Duration.between(entry.getFireAt(), deliveredAt));
+                }
+            }
+        }
+        if (deliveries.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> deliveryRepository.saveAll(deliveries));
+        } catch (DataIntegrityViolationException e) {
+            // Часть ключей уже записал другой узел (аренда истекла посреди отправки) — дописываем остальные
+            Set<String> known = new HashSet<>(deliveryRepository.findDeliveredKeys(
+                    deliveries.stream().map(NotificationDelivery::getIdempotencyKey).toList()));
+            List<NotificationDelivery> missing = deliveries.stream()
+                    .filter(delivery -> !known.contains(delivery.getIdempotencyKey()))
+                    .toList();
+            missing.forEach(delivery -> delivery.setId(null));
+            transactionTemplate.executeWithoutResult(status -> deliveryRepository.saveAll(missing));
+        }
+    }
+
+    /**
+     * Захват порции: SELECT ... FOR UPDATE SKIP LOCKED и аренда записей этим узлом в одной транзакции.
+     * Изменения claimed_by/claimed_until сохраняются при коммите (dirty checking, JDBC-батч).
+     */
+    private List<NotificationOutbox> claimBatch(LocalDateTime now) {
+        return transactionTemplate.execute(status -> {
+            List<NotificationOutbox> batch = outboxRepository.findClaimable(now, PageRequest.of(0, batchSize));
+            LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+            for (NotificationOutbox entry : batch) {
+                entry.setClaimedBy(nodeId());
+                entry.setClaimedUntil(leaseUntil);
+            }
+            return batch;
+        });
+    }
+
+    /**
+     * Перенос в dead letter и удаление из outbox — в одной транзакции.
+     */
+    private void moveToDeadLetter(List<NotificationOutbox> entries, Map<Long, Set<NotificationChannel>> failed,
+                                  LocalDateTime now) {
+        List<NotificationDeadLetter> deadLetters = entries.stream()
+                .map(entry -> NotificationDeadLetter.builder()
+                        .reminderId(entry.getReminderId())
+                        .attempts(entry.getAttempts() + 1)
+                        .failedChannels(failed.get(entry.getId()).stream()
+                                .sorted()
+                                .map(Enum::name)
+                                .collect(Collectors.joining(",")))
+                        .fireAt(entry.getFireAt())
+                        .missedCount(entry.getMissedCount())
+                        .enqueuedAt(entry.getCreatedAt())
+                        .failedAt(now)
+                        .build())
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            deadLetterRepository.saveAll(deadLetters);
+            outboxRepository.deleteAllByIdInBatch(entries.stream().map(NotificationOutbox::getId).toList());
+        });
+        log.warn("Moved {} notifications to dead letter after {} attempts: reminders {}", entries.size(), maxAttempts,
+                entries.stream().map(NotificationOutbox::getReminderId).toList());
+    }
+
+    private String nodeId() {
+        return nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    /**
+     * Экспоненциальная задержка: base * 2^(attempts-1), но не больше max,
+     * минус случайная доля до backoff-jitter.
+     */
+    private long backoffSeconds(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        long delay = Math.min(backoffBaseSeconds << shift, backoffMaxSeconds);
+        return delay - (long) (delay * backoffJitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Письма пачки (уже собранные в стадии render) уходят одним вызовом send(...) — по одному
+     * SMTP-соединению на пачку. Возвращает сообщения, письма которых не ушли.
+     */
+    private List<Notification> sendEmails(List<ChannelSender.Rendered<MimeMessage>> emails) {
+        // Ошибки MailSendException приходят по исходным объектам писем — сопоставляем по ссылке
+        List<MimeMessage> batch = new ArrayList<>(emails.size());
+        Map<MimeMessage, Notification> messages = new IdentityHashMap<>();
+        List<Notification> failed = new ArrayList<>();
+        for (ChannelSender.Rendered<MimeMessage> email : emails) {
+            batch.add(email.message());
+            messages.put(email.message(), email.notification());
+        }
+
+        try {
+            mailSender.send(batch.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Ошибки по отдельным письмам; пустая карта — пачка не ушла целиком
+            if (e.getFailedMessages().isEmpty()) {
+                log.error("Failed to send {} emails", batch.size(), e);
+                failed.addAll(messages.values());
+                return failed;
+            }
+            e.getFailedMessages().forEach((message, error) -> {
+                Notification notification = messages.get(message);
+                if (notification != null) {
+                    log.error("Failed to send email for reminders {}", notification.reminderIds(), error);
+                    failed.add(notification);
+                }
+            });
+            return failed;
+        } catch (MailException e) {
+            log.error("Failed to send {} emails", batch.size(), e);
+            failed.addAll(messages.values());
+            return failed;
+        }
+        // Без адреса получателя: в логах не должно быть персональных данных
+        messages.values().forEach(notification -> log.debug("Email sent for reminders {}", notification.reminderIds()));
+        return failed;
+    }
+
+    /**
+     * Письмо по шаблонам языка пользователя: текстовая часть и, если есть шаблон, HTML-часть.
+     */
+    private MimeMessage buildEmail(Notification notification) throws MessagingException {
+        String locale = notification.locale();
+        NotificationTemplate html = htmlEmail ? templates.get(TemplateKind.EMAIL_HTML, locale) : null;
+
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, html != null, "UTF-8");
+        helper.setTo(notification.email());
+        helper.setSubject(templates.require(TemplateKind.EMAIL_SUBJECT, locale).render(notification).strip());
+        String text = templates.require(TemplateKind.EMAIL_TEXT, locale).render(notification);
+        if (html != null) {
+            helper.setText(text, html.render(notification));
+        } else {
+            helper.setText(text);
+        }
+        return mimeMessage;
+    }
+
+    private String renderTelegram(Notification notification) {
+        return templates.require(TemplateKind.TELEGRAM, notification.locale()).render(notification);
+    }
+
+    /**
+     * Ключ группировки в сводку: пользователь и недоставленные каналы.
+     */
+    private record DigestKey(Long userId, Set<NotificationChannel> channels) {
+    }
+}
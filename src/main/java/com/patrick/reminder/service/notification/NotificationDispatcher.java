@@ -0,0 +1,206 @@
+package com.patrick.reminder.service.notification;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Конвейер доставки после сканирования outbox: render → send (по каналу) → ack.
+ * <p>
+ * Каждая стадия — PipelineStage со своей ограниченной очередью и потоками:
+ * <ul>
+ *   <li>render — сообщения порции по шаблонам для каждого канала (render-concurrency потоков);</li>
+ *   <li>email / telegram — отправка пачками. Число потоков канала и есть лимит одновременных отправок
+ *   в него: медленный SMTP занимает только "почтовые" потоки и не задерживает Telegram.
+ *   Почта — до email-batch-size писем на одно SMTP-соединение, Telegram — до telegram-batch-size
+ *   сообщений, которые уходят асинхронно, поэтому потоков Telegram нужно немного;</li>
+ *   <li>ack — подтверждение порции (удаление из outbox, повторы, dead letter), один поток.</li>
+ * </ul>
+ * Порция уходит в ack, когда завершены все её отправки во все каналы. Очереди ограничены, поэтому
+ * отставшая стадия через put(...) замедляет предыдущие вплоть до сканера, а тот не захватывает
+ * (и не арендует) новые порции, пока конвейеру некуда их положить.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final PipelineStage<Batch> renderStage;
+    private final Map<NotificationChannel, PipelineStage<SendTask<?>>> sendStages = new EnumMap<>(NotificationChannel.class);
+    private final PipelineStage<Batch> ackStage;
+    private final Map<NotificationChannel, Integer> concurrency = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Integer> batchSizes = new EnumMap<>(NotificationChannel.class);
+
+    public NotificationDispatcher(@Value("${reminder.dispatch.email-concurrency:8}") int emailConcurrency,
+                                  @Value("${reminder.dispatch.telegram-concurrency:4}") int telegramConcurrency,
+                                  @Value("${reminder.dispatch.email-batch-size:20}") int emailBatchSize,
+                                  @Value("${reminder.dispatch.telegram-batch-size:50}") int telegramBatchSize,
+                                  @Value("${reminder.pipeline.render-concurrency:2}") int renderConcurrency,
+                                  @Value("${reminder.pipeline.batch-queue-capacity:2}") int batchQueueCapacity,
+                                  @Value("${reminder.pipeline.send-queue-capacity:16}") int sendQueueCapacity,
+                                  MeterRegistry meterRegistry) {
+        concurrency.put(NotificationChannel.EMAIL, emailConcurrency);
+        concurrency.put(NotificationChannel.TELEGRAM, telegramConcurrency);
+        batchSizes.put(NotificationChannel.EMAIL, emailBatchSize);
+        batchSizes.put(NotificationChannel.TELEGRAM, telegramBatchSize);
+
+        renderStage = new PipelineStage<>("render", batchQueueCapacity, renderConcurrency,
+                this::render, batch -> batch.notifications.size(), meterRegistry);
+        concurrency.forEach((channel, threads) -> sendStages.put(channel, new PipelineStage<SendTask<?>>(
+                channel.name().toLowerCase(), sendQueueCapacity, threads,
+                task -> send(task), task -> task.messages().size(), meterRegistry)));
+        ackStage = new PipelineStage<>("ack", batchQueueCapacity, 1,
+                this::acknowledge, batch -> batch.notifications.size(), meterRegistry);
+    }
+
+    /**
+     * Ставит порцию в конвейер. Если стадия render не успевает, ждёт места в её очереди.
+     *
+     * @param notifications порция сообщений
+     * @param senders       отправитель для каждого канала
+     * @param channels      в какие каналы отправлять сообщение (уже доставленные каналы пропускаются)
+     * @param acknowledge   подтверждение порции (выполняется в стадии ack): получает каналы, в которые
+     *                      доставить не удалось, по id записи (Notification.entryIds; неудача сводки —
+     *                      неудача всех её записей); записей, доставленных во все каналы, в карте нет
+     * @return завершается после подтверждения порции (с ошибкой, если подтвердить не удалось)
+     */
+    public CompletableFuture<Void> submit(List<Notification> notifications,
+                                          Map<NotificationChannel, ChannelSender<?>> senders,
+                                          Function<Notification, Set<NotificationChannel>> channels,
+                                          Consumer<Map<Long, Set<NotificationChannel>>> acknowledge) {
+        Batch batch = new Batch(notifications, senders, channels, acknowledge);
+        renderStage.put(batch);
+        return batch.done;
+    }
+
+    private void render(Batch batch) {
+        try {
+            batch.senders.forEach((channel, sender) -> render(batch, channel, sender));
+        } catch (RuntimeException e) {
+            batch.done.completeExceptionally(e);
+            throw e;
+        } finally {
+            release(batch);
+        }
+    }
+
+    private <M> void render(Batch batch, NotificationChannel channel, ChannelSender<M> sender) {
+        List<ChannelSender.Rendered<M>> rendered = new ArrayList<>(batch.notifications.size());
+        for (Notification notification : batch.notifications) {
+            if (!batch.channels.apply(notification).contains(channel)) {
+                continue;
+            }
+            try {
+                rendered.add(new ChannelSender.Rendered<>(notification, sender.render(notification)));
+            } catch (Exception e) {
+                log.error("Failed to render {} notification for reminders {}", channel, notification.reminderIds(), e);
+                markFailed(batch.failed, notification, channel);
+            }
+        }
+        for (List<ChannelSender.Rendered<M>> chunk : chunks(rendered, chunkSize(channel, rendered.size()))) {
+            batch.pending.incrementAndGet();
+            sendStages.get(channel).put(new SendTask<>(batch, channel, sender, chunk));
+        }
+    }
+
+    private <M> void send(SendTask<M> task) {
+        try {
+            task.sender().send(task.messages())
+                    .forEach(notification -> markFailed(task.batch().failed, notification, task.channel()));
+        } catch (RuntimeException e) {
+            log.error("Failed to send {} notifications via {}", task.messages().size(), task.channel(), e);
+            task.messages().forEach(rendered -> markFailed(task.batch().failed, rendered.notification(), task.channel()));
+        } finally {
+            release(task.batch());
+        }
+    }
+
+    /**
+     * Завершение одной задачи порции; после последней порция уходит в ack.
+     */
+    private void release(Batch batch) {
+        if (batch.pending.decrementAndGet() == 0) {
+            try {
+                ackStage.put(batch);
+            } catch (RuntimeException e) {
+                batch.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void acknowledge(Batch batch) {
+        try {
+            batch.acknowledge.accept(batch.failed);
+            batch.done.complete(null);
+        } catch (RuntimeException e) {
+            batch.done.completeExceptionally(e);
+        }
+    }
+
+    private static void markFailed(Map<Long, Set<NotificationChannel>> failed, Notification notification,
+                                   NotificationChannel channel) {
+        for (Long entryId : notification.entryIds()) {
+            failed.computeIfAbsent(entryId, id -> ConcurrentHashMap.newKeySet()).add(channel);
+        }
+    }
+
+    /**
+     * Размер пачки: не больше batch-size канала, но так, чтобы пачек хватило на все его потоки.
+     */
+    private int chunkSize(NotificationChannel channel, int total) {
+        int perThread = (total + concurrency.get(channel) - 1) / concurrency.get(channel);
+        return Math.max(1, Math.min(batchSizes.get(channel), perThread));
+    }
+
+    private static <E> List<List<E>> chunks(List<E> items, int size) {
+        List<List<E>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderStage.stop();
+        sendStages.values().forEach(PipelineStage::stop);
+        ackStage.stop();
+    }
+
+    /**
+     * Порция в конвейере: результаты отправок копятся в failed, pending — незавершённые задачи
+     * (стадия render и пачки каналов).
+     */
+    private static final class Batch {
+        private final List<Notification> notifications;
+        private final Map<NotificationChannel, ChannelSender<?>> senders;
+        private final Function<Notification, Set<NotificationChannel>> channels;
+        private final Consumer<Map<Long, Set<NotificationChannel>>> acknowledge;
+        private final Map<Long, Set<NotificationChannel>> failed = new ConcurrentHashMap<>();
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Batch(List<Notification> notifications, Map<NotificationChannel, ChannelSender<?>> senders,
+                      Function<Notification, Set<NotificationChannel>> channels,
+                      Consumer<Map<Long, Set<NotificationChannel>>> acknowledge) {
+            this.notifications = notifications;
+            this.senders = senders;
+            this.channels = channels;
+            this.acknowledge = acknowledge;
+        }
+    }
+
+    private record SendTask<M>(Batch batch, NotificationChannel channel, ChannelSender<M> sender,
+                               List<ChannelSender.Rendered<M>> messages) {
+    }
+}
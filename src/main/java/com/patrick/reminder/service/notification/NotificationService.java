@@ -1,94 +1,378 @@
 package com.patrick.reminder.service.notification;
 
-import com.patrick.reminder.entity.Reminder;
+import com.patrick.reminder.recurrence.RecurrenceRule;
+import com.patrick.reminder.repository.NotificationOutboxRepository;
 import com.patrick.reminder.repository.ReminderRepository;
-import com.patrick.reminder.telegram.TelegramBotClient;
+import com.patrick.reminder.repository.projection.ReminderFireTime;
+import com.patrick.reminder.repository.projection.ReminderRecurrence;
+import com.patrick.reminder.service.user.UserTimeZones;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.util.List;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Обнаружение "созревших" напоминаний.
+ * <p>
+ * Сам ничего не отправляет: найденные напоминания одной транзакцией ставятся в outbox
+ * (notification_outbox) и их next_fire_at сдвигается: у разовых — в null (sent=true), у повторяющихся —
+ * на следующее срабатывание. Доставкой занимается NotificationDeliveryService.
+ * Поэтому проход сканера занимает миллисекунды и не зависит от скорости SMTP/Telegram.
+ * <p>
+ * Приложение может работать в нескольких экземплярах: строки захватываются через
+ * SELECT ... FOR UPDATE SKIP LOCKED в той же транзакции, что и постановка в outbox,
+ * так что узлы (и скан со срабатыванием колеса таймеров) делят работу без дублей.
+ * <p>
+ * Пропущенные срабатывания повторяющегося напоминания (приложение было остановлено) не досылаются:
+ * отправляется одно уведомление, а следующее срабатывание ищется после текущего момента.
+ * <p>
+ * Догоняющий режим: после простоя просроченных напоминаний может набраться столько, что отправка
+ * всех сразу упрётся в лимиты SMTP и Telegram. Поэтому "живые" (опоздавшие не больше чем на lag-seconds)
+ * ставятся в outbox все, а просроченные — не быстрее rate-per-second, с долей live-share, зарезервированной
+ * за живыми. Давно просроченные (старше stale-after-minutes) можно свернуть в одну сводку на пользователя.
+ */
 @Service
 public class NotificationService {
 
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
+    // Ограничение кэша разобранных правил повторения
+    private static final int MAX_CACHED_RULES = 1024;
+
+    // Нижняя граница диапазона next_fire_at, когда давно просроченные не сворачиваются в сводку
+    private static final Instant NO_LOWER_BOUND = Instant.parse("0001-01-01T00:00:00Z");
+
     private final ReminderRepository reminderRepository;
-    private final JavaMailSender mailSender;
-    private final TelegramBotClient telegramBotClient;
+    private final NotificationOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserTimeZones timeZones;
+    private final Map<String, RecurrenceRule> rules = new ConcurrentHashMap<>();
+
+    // Живые напоминания, поставленные колесом таймеров с прошлого прохода (занимают ёмкость догоняющего режима)
+    private final AtomicInteger liveEnqueued = new AtomicInteger();
+    private volatile boolean catchingUp;
+
+    // Максимальный размер одной порции, захватываемой за одну транзакцию
+    @Value("${reminder.notification.batch-size:500}")
+    private int batchSize = 500;
+
+    // Окно сводки: напоминания пользователя, сработавшие в одном окне, доставляются вместе в его конце.
+    // 0 — без задержки, в сводку попадает только то, что захвачено одним проходом
+    @Value("${reminder.digest.window-seconds:0}")
+    private long digestWindowSeconds = 0;
+
+    // Опоздавшие больше чем на столько — просроченные: догоняющий режим, ограничение скорости
+    @Value("${reminder.catch-up.lag-seconds:600}")
+    private long catchUpLagSeconds = 600;
+
+    // Скорость постановки в outbox во время догоняющего режима на весь кластер (живые и просроченные вместе), см. CatchUpState
+    @Value("${reminder.catch-up.rate-per-second:20}")
+    private double catchUpRatePerSecond = 20;
+
+    // Ёмкость копится не дольше стольких секунд (первый проход после старта получает столько же)
+    @Value("${reminder.catch-up.burst-seconds:10}")
+    private long catchUpBurstSeconds = 10;
+
+    // Доля ёмкости, которую просроченные не занимают, даже если живых сейчас нет
+    @Value("${reminder.catch-up.live-share:0.25}")
+    private double catchUpLiveShare = 0.25;
+
+    @Value("${reminder.catch-up.order:OLDEST_FIRST}")
+    private CatchUpOrder catchUpOrder = CatchUpOrder.OLDEST_FIRST;
+
+    // Опоздавшие больше чем на столько минут сворачиваются в одну сводку пропущенных на пользователя; 0 — не сворачивать
+    @Value("${reminder.catch-up.stale-after-minutes:0}")
+    private long staleAfterMinutes = 0;
 
     @Autowired
     public NotificationService(ReminderRepository reminderRepository,
-                               JavaMailSender mailSender,
-                               TelegramBotClient telegramBotClient) {
+                               NotificationOutboxRepository outboxRepository,
+                               TransactionTemplate transactionTemplate,
+                               UserTimeZones timeZones) {
         this.reminderRepository = reminderRepository;
-        this.mailSender = mailSender;
-        this.telegramBotClient = telegramBotClient;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.timeZones = timeZones;
     }
 
-    public void checkAndSendReminders() {
-        LocalDate today = LocalDate.now();
-        LocalTime nowTime = LocalTime.now();
+    /**
+     * Один проход сканера.
+     * Вместо findAll() захватываем только "созревшие" напоминания (next_fire_at <= now)
+     * порциями ограниченного размера (по частичному индексу), поэтому стоимость прохода
+     * зависит от числа напоминаний к отправке, а не от размера таблицы.
+     * <p>
+     * Каждая порция — отдельная короткая транзакция: захват, INSERT ... SELECT в outbox, UPDATE next_fire_at.
+     * После коммита строки выпадают из выборки, поэтому курсор (keyset) не нужен: следующий захват
+     * сразу возвращает следующую порцию, а строки, занятые другим узлом, просто пропускаются.
+     * <p>
+     * Сначала — все живые напоминания, затем просроченные в пределах бюджета прохода (overdueBudget).
+     * Остаток бэклога остаётся до следующих проходов: ReminderJob видит его голову в прошлом
+     * и запускает скан с минимальным интервалом, поэтому проход не растягивается на минуты.
+     *
+     * @param catchUp состояние бюджета с прошлого прохода (на любом узле); проход его обновляет
+     * @return сколько напоминаний поставлено в outbox за проход
+     */
+    public int enqueueDueReminders(CatchUpState catchUp) {
+        Instant scanStartedAt = Instant.now();
+        Instant liveFrom = scanStartedAt.minusSeconds(catchUpLagSeconds);
+
+        int live = claimRange(liveFrom, scanStartedAt, CatchUpOrder.OLDEST_FIRST, Integer.MAX_VALUE, scanStartedAt);
+        int budget = overdueBudget(catchUp, scanStartedAt, live + liveEnqueued.getAndSet(0));
+        int overdue = budget > 0 ? catchUp(liveFrom, scanStartedAt, budget) : 0;
+        trackCatchUp(liveFrom, overdue);
+        return live + overdue;
+    }
 
-        // Получаем все напоминания
-        List<Reminder> allReminders = reminderRepository.findAll();
+    /**
+     * Постановка в outbox конкретных напоминаний, срок которых наступил (вызывается колесом таймеров).
+     * Состояние перечитывается из БД при захвате: уже отправленные, удалённые, перенесённые на будущее
+     * и захваченные прямо сейчас другим узлом пропускаются.
+     */
+    public void enqueueReminders(Collection<Long> reminderIds) {
+        if (reminderIds.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        int enqueued = transactionTemplate.execute(status -> {
+            List<Long> ids = reminderRepository.claimDueByIds(reminderIds, now);
+            enqueue(ids, now);
+            return ids.size();
+        });
+        liveEnqueued.addAndGet(enqueued);
+    }
+
+    /**
+     * Ближайшее срабатывание (может быть и в прошлом, если его ещё не забрали).
+     */
+    public Optional<Instant> findNextDueAt() {
+        return reminderRepository.findNextFire(PageRequest.of(0, 1)).stream()
+                .findFirst()
+                .map(ReminderFireTime::getNextFireAt);
+    }
+
+    /**
+     * Догоняющий режим: просроченные напоминания в пределах бюджета, в порядке catch-up.order.
+     * Давно просроченные (если их сворачиваем) занимают бюджет одним сообщением на пользователя;
+     * при OLDEST_FIRST они идут первыми, при NEWEST_FIRST — после остальных просроченных.
+     *
+     * @return сколько напоминаний поставлено в outbox (в сводках — все, которые они заменяют)
+     */
+    private int catchUp(Instant liveFrom, Instant now, int budget) {
+        Instant staleBefore = staleAfterMinutes > 0 ? now.minus(Duration.ofMinutes(staleAfterMinutes)) : null;
+        boolean collapseStale = staleBefore != null && staleBefore.isBefore(liveFrom);
+        Instant overdueFrom = collapseStale ? staleBefore : NO_LOWER_BOUND;
+
+        int remaining = budget;
+        int enqueued = 0;
+        if (collapseStale && catchUpOrder == CatchUpOrder.OLDEST_FIRST) {
+            StaleClaim stale = claimStale(staleBefore, remaining, now);
+            remaining -= stale.summaries();
+            enqueued += stale.reminders();
+        }
+        int overdue = claimRange(overdueFrom, liveFrom, catchUpOrder, remaining, now);
+        remaining -= overdue;
+        enqueued += overdue;
+        if (collapseStale && catchUpOrder == CatchUpOrder.NEWEST_FIRST) {
+            enqueued += claimStale(staleBefore, remaining, now).reminders();
+        }
+        return enqueued;
+    }
 
-        // Проверяем для каждого, настало ли время
-        for (Reminder reminder : allReminders) {
-            if (!reminder.isSent() && isReminderDue(reminder, today, nowTime)) {
-                sendEmail(reminder);
-                sendTelegram(reminder);
+    /**
+     * Захват порциями не больше limit напоминаний со срабатыванием в (from, to].
+     * Неполная порция — дальше захватывать нечего.
+     */
+    private int claimRange(Instant from, Instant to, CatchUpOrder order, int limit, Instant now) {
+        int total = 0;
+        int requested;
+        int claimed;
+        do {
+            requested = Math.min(batchSize, limit - total);
+            if (requested <= 0) {
+                break;
+            }
+            int size = requested;
+            claimed = transactionTemplate.execute(status -> {
+                List<Long> ids = order == CatchUpOrder.OLDEST_FIRST
+                        ? reminderRepository.claimDueBatch(from, to, size)
+                        : reminderRepository.claimDueBatchNewestFirst(from, to, size);
+                enqueue(ids, now);
+                return ids.size();
+            });
+            total += claimed;
+        } while (claimed == requested);
+        return total;
+    }
 
-                reminder.setSent(true);
-                reminderRepository.save(reminder);
+    /**
+     * Сводки пропущенных: все давно просроченные напоминания не более чем maxUsers пользователей —
+     * одна запись outbox на пользователя.
+     */
+    private StaleClaim claimStale(Instant before, int maxUsers, Instant now) {
+        StaleClaim total = new StaleClaim(0, 0);
+        StaleClaim claimed;
+        int requested;
+        do {
+            requested = Math.min(batchSize, maxUsers - total.summaries());
+            if (requested <= 0) {
+                break;
             }
+            int users = requested;
+            claimed = transactionTemplate.execute(status -> {
+                List<Long> ids = reminderRepository.claimStaleBatch(before, users);
+                if (ids.isEmpty()) {
+                    return new StaleClaim(0, 0);
+                }
+                int summaries = outboxRepository.enqueueMissedSummary(ids, toLocal(now));
+                reminderRepository.markFired(ids);
+                advanceRecurring(ids, now);
+                return new StaleClaim(summaries, ids.size());
+            });
+            total = new StaleClaim(total.summaries() + claimed.summaries(), total.reminders() + claimed.reminders());
+        } while (claimed.summaries() == requested);
+        return total;
+    }
+
+    /**
+     * Сколько просроченных напоминаний можно поставить в outbox в этом проходе.
+     * Ёмкость прохода — rate-per-second за время с прошлого прохода (не больше burst-seconds).
+     * Прошлый проход берётся из catchUp, а не из памяти узла: иначе при проходах на разных узлах
+     * каждый считал бы время и с чужих проходов, и скорость в кластере умножалась бы на число узлов.
+     * Живые занимают ёмкость первыми и не ограничиваются; просроченным достаётся остаток,
+     * но не больше (1 - live-share) ёмкости. Дробный остаток переносится на следующий проход.
+     * Живые от колеса таймеров учитываются только свои (liveEnqueued) — колёса других узлов
+     * ёмкость не занимают.
+     */
+    private int overdueBudget(CatchUpState catchUp, Instant now, int live) {
+        long maxElapsed = TimeUnit.SECONDS.toNanos(catchUpBurstSeconds);
+        // Часы узлов могут расходиться: отрицательный интервал считаем нулевым
+        long elapsed = catchUp.getLastScanAt() != null
+                ? Math.max(0, Math.min(Duration.between(catchUp.getLastScanAt(), now).toNanos(), maxElapsed))
+                : maxElapsed;
+
+        double capacity = catchUpRatePerSecond * elapsed / 1_000_000_000d;
+        double budget = Math.min(capacity * (1 - catchUpLiveShare), capacity - live) + catchUp.getCarry();
+        if (budget <= 0) {
+            catchUp.advance(now, 0);
+            return 0;
         }
+        int whole = (int) Math.min(budget, Integer.MAX_VALUE);
+        catchUp.advance(now, budget - whole);
+        return whole;
     }
 
     /**
-     * Проверяем, не пришло ли время (или прошло) для напоминания.
+     * Журналирует вход в догоняющий режим и выход из него: остались ли напоминания старше liveFrom.
      */
-    private boolean isReminderDue(Reminder r, LocalDate today, LocalTime nowTime) {
-        // Если r.getRemindDate() < today => уже прошло
-        if (r.getRemindDate().isBefore(today)) {
-            return true;
+    private void trackCatchUp(Instant liveFrom, int overdue) {
+        boolean backlog = findNextDueAt().filter(next -> !next.isAfter(liveFrom)).isPresent();
+        if (backlog && !catchingUp) {
+            log.info("Overdue reminders found, catching up at {} per second", catchUpRatePerSecond);
+        } else if (!backlog && catchingUp) {
+            log.info("Caught up with overdue reminders");
         }
-        // Если r.getRemindDate() == today => сравниваем время
-        if (r.getRemindDate().isEqual(today)) {
-            // Если r.getRemindTime() <= nowTime => пора
-            return !r.getRemindTime().isAfter(nowTime);
+        catchingUp = backlog;
+        if (overdue > 0) {
+            log.debug("Enqueued {} overdue reminders", overdue);
         }
-        // Иначе напоминание в будущем
-        return false;
     }
 
-    private void sendEmail(Reminder reminder) {
-        String toEmail = reminder.getUser().getEmail();
-        String subject = "Напоминание: " + reminder.getName();
+    /**
+     * INSERT ... SELECT в outbox и сдвиг next_fire_at для захваченных строк — без построчных save().
+     * Вызывается внутри транзакции захвата.
+     */
+    private void enqueue(List<Long> reminderIds, Instant now) {
+        if (reminderIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime localNow = toLocal(now);
+        outboxRepository.enqueue(reminderIds, localNow, digestAt(localNow));
+        reminderRepository.markFired(reminderIds);
+        advanceRecurring(reminderIds, now);
+    }
 
-        String text = "Подробности: " + reminder.getDescription()
-                + "\nДата: " + reminder.getRemindDate()
-                + "\nВремя: " + reminder.getRemindTime();
+    /**
+     * Следующее срабатывание повторяющихся напоминаний из порции. Вычисляется инкрементально —
+     * от текущего срабатывания (или от now, если срабатывания пропущены), а не перебором всех дат.
+     * Напоминания с одинаковым следующим моментом (обычно все с одним правилом) сдвигаются одним UPDATE.
+     */
+    private void advanceRecurring(List<Long> reminderIds, Instant now) {
+        List<ReminderRecurrence> recurrences = reminderRepository.findRecurrences(reminderIds);
+        if (recurrences.isEmpty()) {
+            return;
+        }
+        Map<Instant, List<Long>> byNextFire = new HashMap<>();
+        for (ReminderRecurrence recurrence : recurrences) {
+            byNextFire.computeIfAbsent(nextFire(recurrence, now), next -> new ArrayList<>()).add(recurrence.id());
+        }
+        // null — повторения закончились (или правило не разбирается): напоминание больше не срабатывает
+        byNextFire.forEach((next, ids) -> reminderRepository.rescheduleFire(ids, next, next == null));
+    }
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setTo(toEmail);
-        mailMessage.setSubject(subject);
-        mailMessage.setText(text);
+    private Instant nextFire(ReminderRecurrence recurrence, Instant now) {
+        // Правило считается в "настенном" времени пользователя, результат — снова момент
+        ZoneId zone = timeZones.zoneOf(recurrence.timeZone());
+        Instant current = recurrence.nextFireAt();
+        LocalDateTime after = LocalDateTime.ofInstant(current.isAfter(now) ? current : now, zone);
+        LocalDateTime start = recurrence.remindDate() != null && recurrence.remindTime() != null
+                ? recurrence.remindDate().atTime(recurrence.remindTime())
+                : LocalDateTime.ofInstant(current, zone);
+        try {
+            LocalDateTime next = rule(recurrence.recurrence()).next(start, after);
+            return next == null ? null : next.atZone(zone).toInstant();
+        } catch (IllegalArgumentException e) {
+            // Правило проверяется при сохранении; сюда попадает только испорченное в БД вручную
+            log.warn("Invalid recurrence '{}' of reminder {}, recurrence stopped",
+                    recurrence.recurrence(), recurrence.id(), e);
+            return null;
+        }
+    }
 
-        mailSender.send(mailMessage);
-        System.out.println("Почтовое уведомление отправлено на " + toEmail + " | Subject: " + subject);
+    private RecurrenceRule rule(String expression) {
+        RecurrenceRule rule = rules.get(expression);
+        if (rule == null) {
+            rule = RecurrenceRule.parse(expression);
+            if (rules.size() >= MAX_CACHED_RULES) {
+                rules.clear();
+            }
+            rules.put(expression, rule);
+        }
+        return rule;
     }
 
-    private void sendTelegram(Reminder reminder) {
-        String telegramId = reminder.getUser().getTelegramId();
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
 
-        String message = "Напоминание: " + reminder.getName()
-                + "\n" + reminder.getDescription()
-                + "\nДата: " + reminder.getRemindDate()
-                + "\nВремя: " + reminder.getRemindTime();
+    /**
+     * Конец окна сводки, в которое попадает now. Окна выровнены по эпохе,
+     * поэтому у всех узлов и проходов граница одна и та же.
+     */
+    private LocalDateTime digestAt(LocalDateTime now) {
+        if (digestWindowSeconds <= 0) {
+            return now;
+        }
+        long epochSecond = now.toEpochSecond(ZoneOffset.UTC);
+        long windowEnd = (epochSecond + digestWindowSeconds - 1) / digestWindowSeconds * digestWindowSeconds;
+        return windowEnd == epochSecond ? now : LocalDateTime.ofEpochSecond(windowEnd, 0, ZoneOffset.UTC);
+    }
 
-        telegramBotClient.sendMessage(telegramId, message);
+    /**
+     * Результат захвата давно просроченных: записей-сводок в outbox и напоминаний, которые они заменяют.
+     */
+    private record StaleClaim(int summaries, int reminders) {
     }
 }
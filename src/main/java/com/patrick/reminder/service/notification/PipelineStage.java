@@ -0,0 +1,132 @@
+package com.patrick.reminder.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Стадия конвейера доставки: ограниченная очередь и свои потоки-обработчики.
+ * <p>
+ * put(...) блокируется, пока в очереди нет места, — так отставшая стадия замедляет предыдущую
+ * (backpressure), а не копит необработанные задачи в памяти.
+ * <p>
+ * Метрики (тег stage — имя стадии):
+ * <ul>
+ *   <li>reminder.pipeline.queue.depth / reminder.pipeline.queue.capacity — заполненность очереди;</li>
+ *   <li>reminder.pipeline.busy — сколько обработчиков сейчас заняты;</li>
+ *   <li>reminder.pipeline.stage — время обработки одной задачи (count — число задач);</li>
+ *   <li>reminder.pipeline.notifications — пропускная способность в сообщениях;</li>
+ *   <li>reminder.pipeline.backpressure — сколько предыдущая стадия ждала места в очереди.</li>
+ * </ul>
+ * Узкое место — стадия с полной очередью и занятыми обработчиками: перед ней растёт backpressure.
+ *
+ * @param <T> задача стадии
+ */
+public final class PipelineStage<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final Consumer<T> handler;
+    private final ToIntFunction<T> weight;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger busy = new AtomicInteger();
+
+    private final Timer processTimer;
+    private final Counter notifications;
+    private final Timer backpressure;
+
+    /**
+     * @param capacity размер очереди (в задачах)
+     * @param threads  число обработчиков
+     * @param handler  обработка задачи; исключения логируются, задачу обработчик должен завершить сам
+     * @param weight   сколько сообщений в задаче (для метрики пропускной способности)
+     */
+    public PipelineStage(String name, int capacity, int threads, Consumer<T> handler, ToIntFunction<T> weight,
+                         MeterRegistry registry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.weight = weight;
+
+        Gauge.builder("reminder.pipeline.queue.depth", queue, BlockingQueue::size)
+                .tag("stage", name).register(registry);
+        Gauge.builder("reminder.pipeline.queue.capacity", () -> capacity)
+                .tag("stage", name).register(registry);
+        Gauge.builder("reminder.pipeline.busy", busy, AtomicInteger::get)
+                .tag("stage", name).register(registry);
+        this.processTimer = Timer.builder("reminder.pipeline.stage").tag("stage", name).register(registry);
+        this.notifications = Counter.builder("reminder.pipeline.notifications").tag("stage", name).register(registry);
+        this.backpressure = Timer.builder("reminder.pipeline.backpressure").tag("stage", name).register(registry);
+
+        for (int i = 1; i <= threads; i++) {
+            Thread worker = new Thread(this::work, "notify-" + name + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Ставит задачу в очередь; если очередь полна — ждёт места.
+     *
+     * @throws IllegalStateException поток прерван (остановка приложения)
+     */
+    public void put(T task) {
+        if (queue.offer(task)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for pipeline stage " + name, e);
+        } finally {
+            backpressure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    public void stop() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            T task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            busy.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                handler.accept(task);
+            } catch (RuntimeException e) {
+                log.error("Pipeline stage {} failed to process a task", name, e);
+            } finally {
+                processTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                notifications.increment(weight.applyAsInt(task));
+                busy.decrementAndGet();
+            }
+        }
+    }
+}
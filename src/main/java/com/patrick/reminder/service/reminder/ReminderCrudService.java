@@ -1,22 +1,36 @@
 package com.patrick.reminder.service.reminder;
 
 import com.patrick.reminder.dto.reminder.ReminderCreatetDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderUpdateDto;
 import com.patrick.reminder.entity.Reminder;
 import com.patrick.reminder.entity.User;
 import com.patrick.reminder.mapper.ReminderMapper;
+import com.patrick.reminder.quartz.ReminderTimingWheel;
+import com.patrick.reminder.recurrence.RecurrenceRule;
 import com.patrick.reminder.repository.ReminderRepository;
 import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.repository.keyset.ReminderCursor;
+import com.patrick.reminder.repository.keyset.ReminderKeysetPage;
+import com.patrick.reminder.repository.keyset.ReminderSortKey;
+import com.patrick.reminder.service.user.UserTimeZones;
 import com.patrick.reminder.specification.ReminderSpecification;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис, отвечающий за базовые CRUD-операции и пагинацию для Reminder.
@@ -31,23 +45,45 @@ public class ReminderCrudService {
     private final ReminderRepository reminderRepository;
     private final UserRepository userRepository;
     private final ReminderMapper reminderMapper;
+    private final ReminderTimingWheel timingWheel; // точное срабатывание ближайших напоминаний
+    private final UserTimeZones timeZones;
+    private final ReminderSuggestService suggestService; // кэш подсказок по названиям
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Больший size в запросе урезается до этого
+    @Value("${reminder.query.max-page-size:100}")
+    private int maxPageSize = 100;
 
     public ReminderCrudService(ReminderRepository reminderRepository,
                                UserRepository userRepository,
-                               ReminderMapper reminderMapper) {
+                               ReminderMapper reminderMapper,
+                               ReminderTimingWheel timingWheel,
+                               UserTimeZones timeZones,
+                               ReminderSuggestService suggestService) {
         this.reminderRepository = reminderRepository;
         this.userRepository = userRepository;
         this.reminderMapper = reminderMapper;
+        this.timingWheel = timingWheel;
+        this.timeZones = timeZones;
+        this.suggestService = suggestService;
     }
 
     // ------------------ CREATE ------------------
 
+    /**
+     * @throws IllegalArgumentException некорректное правило повторения
+     */
     public ReminderResponseDto createReminder(String sub, ReminderCreatetDto dto) {
         User user = findUserBySubOrThrow(sub);
 
         // Создаем сущность через MapStruct
         Reminder reminder = reminderMapper.toEntity(dto, user);
+        arm(reminder);
         Reminder saved = reminderRepository.save(reminder);
+        timingWheel.schedule(saved);
+        suggestService.evict(sub);
 
         return reminderMapper.toResponseDto(saved);
     }
@@ -68,14 +104,40 @@ public class ReminderCrudService {
                 .collect(Collectors.toList());
     }
 
-    // Пагинация
-    public Page<ReminderResponseDto> getRemindersPaged(String sub, Pageable pageable) {
+    /**
+     * То же, что getAllReminders, но по одному напоминанию: каждое отдаётся в consumer сразу после чтения
+     * и отсоединяется от persistence context, поэтому память не растёт с числом напоминаний (/list в NDJSON).
+     */
+    @Transactional(readOnly = true)
+    public void streamAllReminders(String sub, Consumer<ReminderResponseDto> consumer) {
+        User user = findUserBySubOrThrow(sub);
+
+        try (Stream<Reminder> reminders = reminderRepository.streamByUserId(user.getId())) {
+            reminders.forEach(reminder -> {
+                consumer.accept(reminderMapper.toResponseDto(reminder));
+                entityManager.detach(reminder);
+            });
+        }
+    }
+
+    /**
+     * Пагинация по курсору в порядке id: следующая страница — строки после последнего id,
+     * без OFFSET и count(*).
+     *
+     * @param cursor nextCursor предыдущей страницы; null — первая страница
+     * @throws IllegalArgumentException некорректный курсор
+     */
+    public ReminderPageDto getRemindersPaged(String sub, String cursor, int size) {
+        ReminderCursor after = ReminderCursor.decode(cursor, ReminderSortKey.ID);
         User user = findUserBySubOrThrow(sub);
 
         Specification<Reminder> spec = Specification.where(ReminderSpecification.hasUser(user.getId()));
-        Page<Reminder> reminderPage = reminderRepository.findAll(spec, pageable);
+        ReminderKeysetPage page = reminderRepository.findPage(spec, ReminderSortKey.ID, after,
+                Math.max(1, Math.min(size, maxPageSize)));
 
-        return reminderPage.map(reminderMapper::toResponseDto);
+        return new ReminderPageDto(page.reminders().stream()
+                .map(reminderMapper::toResponseDto)
+                .toList(), page.nextCursor());
     }
 
     // ------------------ UPDATE ------------------
@@ -84,6 +146,9 @@ public class ReminderCrudService {
      * Обновление через MapStruct:
      *  - Находим существующую сущность.
      *  - Вызываем mаппер updateEntity(dto, existing), чтобы частично перезаписать поля.
+     *  - Если изменилось расписание (дата, время, правило повторения), срабатывание вычисляется заново.
+     *
+     * @throws IllegalArgumentException некорректное правило повторения
      */
     public ReminderResponseDto updateReminder(ReminderUpdateDto dto) {
         Optional<Reminder> optional = reminderRepository.findById(dto.getId());
@@ -91,15 +156,43 @@ public class ReminderCrudService {
             return null;
         }
         Reminder existing = optional.get();
+        LocalDateTime oldStart = start(existing);
+        String oldRecurrence = existing.getRecurrence();
 
         // Обновляем поля через метод MapStruct
         // (См. ниже пример updateEntity(...) в ReminderMapper)
         reminderMapper.updateEntity(dto, existing);
+        if (!Objects.equals(oldStart, start(existing)) || !Objects.equals(oldRecurrence, existing.getRecurrence())) {
+            arm(existing);
+        }
 
         Reminder saved = reminderRepository.save(existing);
+        timingWheel.schedule(saved); // время могло измениться — переносим таймер
+        if (saved.getUser() != null) {
+            suggestService.evict(saved.getUser().getSub()); // могло измениться название
+        }
         return reminderMapper.toResponseDto(saved);
     }
 
+    /**
+     * Пользователь сменил часовой пояс: remindDate/remindTime его напоминаний остаются прежними
+     * (9:00 остаётся 9:00 по местному времени), а моменты remind_at/next_fire_at пересчитываются.
+     * Уже отработавшие напоминания не "оживают": у них обновляется только remind_at.
+     */
+    public void rezoneReminders(User user) {
+        List<Reminder> reminders = reminderRepository.findByUserId(user.getId());
+        for (Reminder reminder : reminders) {
+            reminder.setUser(user);
+            if (reminder.getNextFireAt() != null) {
+                arm(reminder);
+            } else {
+                LocalDateTime start = start(reminder);
+                reminder.setRemindAt(start == null ? null : start.atZone(zoneOf(reminder)).toInstant());
+            }
+        }
+        reminderRepository.saveAll(reminders).forEach(timingWheel::schedule);
+    }
+
     // ------------------ DELETE ------------------
 
     public boolean deleteReminder(Long id) {
@@ -108,11 +201,51 @@ public class ReminderCrudService {
             return false;
         }
         reminderRepository.deleteById(id);
+        timingWheel.cancel(id);
+        if (optional.get().getUser() != null) {
+            suggestService.evict(optional.get().getUser().getSub());
+        }
         return true;
     }
 
     // ------------------ Вспомогательные методы ------------------
 
+    /**
+     * remind_at и ближайшее срабатывание по дате/времени (в поясе пользователя) и правилу повторения.
+     * Пропущенные срабатывания
+     * повторяющегося напоминания не досылаются — берётся первое не раньше текущего момента.
+     * Если повторения уже закончились (UNTIL в прошлом), напоминание считается отправленным.
+     */
+    private void arm(Reminder reminder) {
+        if (reminder.getRecurrence() != null && reminder.getRecurrence().isBlank()) {
+            reminder.setRecurrence(null);
+        }
+        ZoneId zone = zoneOf(reminder);
+        LocalDateTime start = start(reminder);
+        LocalDateTime next;
+        if (start == null) {
+            next = null;
+        } else if (reminder.getRecurrence() == null) {
+            next = start;
+        } else {
+            // "Сейчас" — по часам пользователя: правило задано в его местном времени
+            next = RecurrenceRule.parse(reminder.getRecurrence()).first(start, LocalDateTime.now(zone));
+        }
+        reminder.setRemindAt(start == null ? null : start.atZone(zone).toInstant());
+        reminder.setNextFireAt(next == null ? null : next.atZone(zone).toInstant());
+        reminder.setSent(start != null && next == null);
+    }
+
+    private ZoneId zoneOf(Reminder reminder) {
+        return timeZones.zoneOf(reminder.getUser() == null ? null : reminder.getUser().getTimeZone());
+    }
+
+    private static LocalDateTime start(Reminder reminder) {
+        return reminder.getRemindDate() != null && reminder.getRemindTime() != null
+                ? reminder.getRemindDate().atTime(reminder.getRemindTime())
+                : null;
+    }
+
     private User findUserBySubOrThrow(String sub) {
         return userRepository.findBySub(sub)
                 .orElseThrow(() -> new RuntimeException("User not found with sub = " + sub));
@@ -1,95 +1,136 @@
 package com.patrick.reminder.service.reminder;
 
 import com.patrick.reminder.dto.reminder.ReminderFilterRequestDto;
-import com.patrick.reminder.dto.reminder.ReminderResponseDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderSearchRequestDto;
 import com.patrick.reminder.entity.Reminder;
 import com.patrick.reminder.entity.User;
 import com.patrick.reminder.mapper.ReminderMapper;
 import com.patrick.reminder.repository.ReminderRepository;
 import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.repository.keyset.ReminderCursor;
+import com.patrick.reminder.repository.keyset.ReminderKeysetPage;
+import com.patrick.reminder.repository.keyset.ReminderSortKey;
+import com.patrick.reminder.repository.projection.ReminderSearchHit;
+import com.patrick.reminder.service.user.UserTimeZones;
 import com.patrick.reminder.specification.ReminderSpecification;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.Comparator;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
+/**
+ * Сортировка, фильтрация и поиск напоминаний пользователя.
+ * Выдача — страницами по курсору (см. ReminderKeysetRepository): ни один запрос не читает таблицу целиком.
+ */
 @Service
 public class ReminderQueryService {
 
     private final ReminderRepository reminderRepository;
     private final ReminderMapper reminderMapper;
     private final UserRepository userRepository; // Чтобы найти id пользователя по sub
+    private final UserTimeZones timeZones; // даты и время в фильтрах — в поясе пользователя
+
+    // Больший size в запросе урезается до этого
+    @Value("${reminder.query.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    // Полнотекстовый поиск (tsvector + GIN, только PostgreSQL); false — query ищется подстрокой (H2 в тестах)
+    @Value("${reminder.search.full-text:true}")
+    private boolean fullText = true;
 
     @Autowired
     public ReminderQueryService(ReminderRepository reminderRepository,
                                 ReminderMapper reminderMapper,
-                                UserRepository userRepository) {
+                                UserRepository userRepository,
+                                UserTimeZones timeZones) {
         this.reminderRepository = reminderRepository;
         this.reminderMapper = reminderMapper;
         this.userRepository = userRepository;
+        this.timeZones = timeZones;
     }
 
-    // метод сортировки
-    public List<ReminderResponseDto> sortReminders(String userSub, String by) {
-        Specification<Reminder> spec = ReminderSpecification.sortBy(by);
-        List<Reminder> reminders = reminderRepository.findAll(spec);
-        return reminders.stream()
-                .map(reminderMapper::toResponseDto)
-                .collect(Collectors.toList());
+    /**
+     * Напоминания пользователя, отсортированные по by (name, remindDate, remindTime).
+     *
+     * @param cursor nextCursor предыдущей страницы; null — первая страница
+     * @throws IllegalArgumentException неизвестный by или курсор, выданный для другого порядка
+     */
+    public ReminderPageDto sortReminders(String userSub, String by, String cursor, int size) {
+        ReminderSortKey key = ReminderSortKey.of(by);
+        ReminderCursor after = ReminderCursor.decode(cursor, key);
+        User user = findUserBySubOrThrow(userSub);
+        return page(ReminderSpecification.hasUser(user.getId()), key, after, size);
     }
 
-    // метод для фильтрации
-    public List<ReminderResponseDto> filterReminders(String userSub, ReminderFilterRequestDto filterDto) {
-        Long userId = userRepository.findBySub(userSub)
-                .orElseThrow(() -> new RuntimeException("User not found with sub = " + userSub))
-                .getId();
+    /**
+     * Фильтрация по интервалу: (afterDate, afterTime) — начало, (beforeDate, beforeTime) — конец, оба включительно.
+     * Дата и время складываются в один момент в поясе пользователя, поэтому интервал может переходить
+     * через полночь ("с 22:00 10-го до 02:00 11-го"), а запрос — один диапазон по remind_at.
+     * Дата без времени — весь день. Время без даты, как и раньше, — время суток на любую дату
+     * (по remind_time, как в searchReminders). Выдача — в порядке (remind_at, id).
+     *
+     * @throws IllegalArgumentException некорректный курсор
+     */
+    public ReminderPageDto filterReminders(String userSub, ReminderFilterRequestDto filterDto, String cursor, int size) {
+        ReminderCursor after = ReminderCursor.decode(cursor, ReminderSortKey.REMIND_AT);
+        User user = findUserBySubOrThrow(userSub);
+        ZoneId zone = timeZones.zoneOf(user.getTimeZone());
 
         // Начинаем с базовой спецификации "hasUser"
-        Specification<Reminder> spec = ReminderSpecification.hasUser(userId);
+        Specification<Reminder> spec = ReminderSpecification.hasUser(user.getId());
 
-        // Добавляем фильтрацию по дате
-        if (filterDto.getBeforeDate() != null) {
-            spec = spec.and(ReminderSpecification.filterByBeforeDate(filterDto.getBeforeDate()));
-        }
+        // Начало интервала
         if (filterDto.getAfterDate() != null) {
-            spec = spec.and(ReminderSpecification.filterByAfterDate(filterDto.getAfterDate()));
+            LocalTime time = filterDto.getAfterTime() != null ? filterDto.getAfterTime() : LocalTime.MIDNIGHT;
+            spec = spec.and(ReminderSpecification.remindAtFrom(
+                    filterDto.getAfterDate().atTime(time).atZone(zone).toInstant()));
+        } else if (filterDto.getAfterTime() != null) {
+            spec = spec.and(ReminderSpecification.remindTimeFrom(filterDto.getAfterTime()));
         }
 
-        // Добавляем фильтрацию по времени
-        if (filterDto.getBeforeTime() != null) {
-            spec = spec.and(ReminderSpecification.filterByBeforeTime(filterDto.getBeforeTime()));
-        }
-        if (filterDto.getAfterTime() != null) {
-            spec = spec.and(ReminderSpecification.filterByAfterTime(filterDto.getAfterTime()));
+        // Конец интервала (в запросе — строго меньше следующей минуты или следующего дня)
+        if (filterDto.getBeforeDate() != null) {
+            LocalDate date = filterDto.getBeforeDate();
+            Instant to = filterDto.getBeforeTime() != null
+                    ? date.atTime(filterDto.getBeforeTime()).plusMinutes(1).atZone(zone).toInstant()
+                    : date.plusDays(1).atStartOfDay(zone).toInstant();
+            spec = spec.and(ReminderSpecification.remindAtBefore(to));
+        } else if (filterDto.getBeforeTime() != null) {
+            spec = spec.and(ReminderSpecification.remindTimeTo(filterDto.getBeforeTime()));
         }
 
-        // Получаем список напоминаний
-        List<Reminder> reminders = reminderRepository.findAll(spec);
-
-        // Преобразуем в DTO
-        return reminders.stream()
-                .map(reminderMapper::toResponseDto)
-                .collect(Collectors.toList());
+        return page(spec, ReminderSortKey.REMIND_AT, after, size);
     }
 
 
-    // Метод для поиска напоминаний
-    public List<ReminderResponseDto> searchReminders(String userSub, ReminderSearchRequestDto searchDto) {
-        Long userId = userRepository.findBySub(userSub)
-                .orElseThrow(() -> new RuntimeException("User not found with sub = " + userSub))
-                .getId();
+    /**
+     * Поиск напоминаний по названию, описанию, дате и времени. Выдача — в порядке (remind_at, id).
+     * С query — полнотекстовый поиск по названию и описанию, выдача по релевантности (см. fullTextSearch).
+     *
+     * @throws IllegalArgumentException некорректный курсор или query вместе с другими полями
+     */
+    public ReminderPageDto searchReminders(String userSub, ReminderSearchRequestDto searchDto, String cursor, int size) {
+        if (searchDto.getQuery() != null && !searchDto.getQuery().isBlank()) {
+            return fullTextSearch(userSub, searchDto, cursor, size);
+        }
+        ReminderCursor after = ReminderCursor.decode(cursor, ReminderSortKey.REMIND_AT);
+        User user = findUserBySubOrThrow(userSub);
+        ZoneId zone = timeZones.zoneOf(user.getTimeZone());
 
         // Базовая спецификация - только напоминания текущего пользователя
-        Specification<Reminder> spec = ReminderSpecification.hasUser(userId);
+        Specification<Reminder> spec = ReminderSpecification.hasUser(user.getId());
 
         // Частичный поиск по названию
         if (searchDto.getName() != null && !searchDto.getName().isEmpty()) {
@@ -101,24 +142,83 @@ public class ReminderQueryService {
             spec = spec.and(ReminderSpecification.hasDescriptionLike(searchDto.getDescription()));
         }
 
-        // Поиск по точной дате
+        // Поиск по дате (весь день или конкретная минута) — диапазон по remind_at
         if (searchDto.getRemindDate() != null) {
-            spec = spec.and(ReminderSpecification.hasRemindDate(searchDto.getRemindDate()));
+            LocalDate date = searchDto.getRemindDate();
+            Instant from = searchDto.getRemindTime() != null
+                    ? date.atTime(searchDto.getRemindTime()).atZone(zone).toInstant()
+                    : date.atStartOfDay(zone).toInstant();
+            Instant to = searchDto.getRemindTime() != null
+                    ? from.plusSeconds(60)
+                    : date.plusDays(1).atStartOfDay(zone).toInstant();
+            spec = spec.and(ReminderSpecification.remindAtFrom(from))
+                    .and(ReminderSpecification.remindAtBefore(to));
+        } else if (searchDto.getRemindTime() != null) {
+            // Время без даты — время суток на любую дату
+            spec = spec.and(ReminderSpecification.hasRemindTime(searchDto.getRemindTime()));
         }
 
-        // Поиск по точному времени
-        if (searchDto.getRemindTime() != null) {
-            spec = spec.and(ReminderSpecification.hasRemindTime(searchDto.getRemindTime()));
+        return page(spec, ReminderSortKey.REMIND_AT, after, size);
+    }
+
+    /**
+     * Полнотекстовый поиск: совпадения по индексу, самые релевантные первыми (название весит больше описания).
+     * Курсор — ранг и id последнего результата. Без полнотекстового индекса (reminder.search.full-text: false)
+     * query ищется подстрокой в названии или описании, в порядке (remind_at, id).
+     */
+    private ReminderPageDto fullTextSearch(String userSub, ReminderSearchRequestDto searchDto, String cursor, int size) {
+        if (searchDto.getName() != null || searchDto.getDescription() != null
+                || searchDto.getRemindDate() != null || searchDto.getRemindTime() != null) {
+            throw new IllegalArgumentException("query is not combined with other search fields");
+        }
+        String query = searchDto.getQuery().trim();
+        if (!fullText) {
+            ReminderCursor after = ReminderCursor.decode(cursor, ReminderSortKey.REMIND_AT);
+            User user = findUserBySubOrThrow(userSub);
+            return page(ReminderSpecification.hasUser(user.getId()).and(ReminderSpecification.hasTextLike(query)),
+                    ReminderSortKey.REMIND_AT, after, size);
         }
 
-        // Выполняем запрос
-        List<Reminder> reminders = reminderRepository.findAll(spec);
+        ReminderCursor after = ReminderCursor.decode(cursor, ReminderSortKey.RANK);
+        User user = findUserBySubOrThrow(userSub);
+        int limit = pageSize(size);
+        List<ReminderSearchHit> hits = reminderRepository.searchFullText(user.getId(), query,
+                after != null ? (Float) after.value() : Float.MAX_VALUE, after != null ? after.id() : 0L, limit + 1);
+
+        String nextCursor = null;
+        if (hits.size() > limit) {
+            hits = hits.subList(0, limit);
+            ReminderSearchHit last = hits.get(limit - 1);
+            nextCursor = new ReminderCursor(ReminderSortKey.RANK, last.getRank(), last.getId()).encode();
+        }
+        // Сами напоминания — одним запросом по id, в порядке ранга
+        Map<Long, Reminder> reminders = reminderRepository.findAllById(hits.stream().map(ReminderSearchHit::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Reminder::getId, Function.identity()));
+        return new ReminderPageDto(hits.stream()
+                .map(hit -> reminders.get(hit.getId()))
+                .filter(Objects::nonNull)
+                .map(reminderMapper::toResponseDto)
+                .toList(), nextCursor);
+    }
 
-        // Преобразуем результат в DTO
-        return reminders.stream()
+    /**
+     * Страница по курсору; size ограничен сверху reminder.query.max-page-size.
+     */
+    private ReminderPageDto page(Specification<Reminder> spec, ReminderSortKey key, ReminderCursor after, int size) {
+        ReminderKeysetPage page = reminderRepository.findPage(spec, key, after, pageSize(size));
+        return new ReminderPageDto(page.reminders().stream()
                 .map(reminderMapper::toResponseDto)
-                .collect(Collectors.toList());
+                .toList(), page.nextCursor());
     }
 
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private User findUserBySubOrThrow(String userSub) {
+        return userRepository.findBySub(userSub)
+                .orElseThrow(() -> new RuntimeException("User not found with sub = " + userSub));
+    }
 }
 
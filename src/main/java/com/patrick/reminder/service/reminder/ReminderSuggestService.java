@@ -0,0 +1,180 @@
+package com.patrick.reminder.service.reminder;
+
+import com.patrick.reminder.dto.reminder.ReminderSuggestionDto;
+import com.patrick.reminder.entity.User;
+import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подсказки при наборе названия напоминания (/suggest): до limit пар (id, название) по триграммному индексу.
+ * <p>
+ * Интерфейс спрашивает на каждое нажатие клавиши, и одни и те же префиксы повторяются (набор, стирание),
+ * поэтому результаты кэшируются по пользователю на cache-seconds. Попадание в кэш не обращается к БД вовсе,
+ * даже за пользователем. ReminderCrudService сбрасывает кэш пользователя при изменении его напоминаний;
+ * на других узлах устаревшая подсказка живёт не дольше cache-seconds. Загрузка, начатая до сброса,
+ * в кэш не попадает (см. UserSuggestions.generation).
+ */
+@Service
+public class ReminderSuggestService {
+
+    // Префиксов в кэше одного пользователя; дальше вытесняются давно не запрошенные
+    private static final int PREFIXES_PER_USER = 64;
+
+    private final ReminderRepository reminderRepository;
+    private final UserRepository userRepository;
+
+    private final Map<String, UserSuggestions> cache = new ConcurrentHashMap<>();
+
+    // Сколько подсказок отдаётся
+    @Value("${reminder.suggest.limit:10}")
+    private int limit = 10;
+
+    @Value("${reminder.suggest.cache-seconds:30}")
+    private long cacheSeconds = 30;
+
+    // Пользователей в кэше; когда места нет, сначала выбрасываются устаревшие, иначе результат не кэшируется
+    @Value("${reminder.suggest.cache-max-users:10000}")
+    private int cacheMaxUsers = 10000;
+
+    // pg_trgm (PostgreSQL); false — подстрока через LIKE (H2 в тестах)
+    @Value("${reminder.suggest.trigram:true}")
+    private boolean trigram = true;
+
+    public ReminderSuggestService(ReminderRepository reminderRepository, UserRepository userRepository) {
+        this.reminderRepository = reminderRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Подсказки для введённого текста; пустой текст — пустой список.
+     */
+    public List<ReminderSuggestionDto> suggest(String userSub, String text) {
+        String normalized = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        long now = System.nanoTime();
+        UserSuggestions userSuggestions = userSuggestions(userSub, now);
+        if (userSuggestions == null) {
+            // Кэш заполнен — без кэширования
+            return load(userSub, normalized);
+        }
+        List<ReminderSuggestionDto> cached = userSuggestions.get(normalized, now);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Поколение — до загрузки: если напоминания изменятся, пока она идёт, результат уже устарел
+        long generation = userSuggestions.generation();
+        List<ReminderSuggestionDto> suggestions = load(userSub, normalized);
+        userSuggestions.put(normalized, suggestions, now + cacheSeconds * 1_000_000_000L, generation);
+        return suggestions;
+    }
+
+    /**
+     * Сбрасывает подсказки пользователя (напоминание создано, переименовано или удалено).
+     */
+    public void evict(String userSub) {
+        if (userSub != null) {
+            UserSuggestions userSuggestions = cache.get(userSub);
+            if (userSuggestions != null) {
+                userSuggestions.invalidate();
+            }
+        }
+    }
+
+    private List<ReminderSuggestionDto> load(String userSub, String text) {
+        User user = userRepository.findBySub(userSub)
+                .orElseThrow(() -> new RuntimeException("User not found with sub = " + userSub));
+        String escaped = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return (trigram
+                ? reminderRepository.suggestByTrigram(user.getId(), text, "%" + escaped + "%", escaped + "%", limit)
+                : reminderRepository.suggestByLike(user.getId(), "%" + escaped + "%", PageRequest.of(0, limit)))
+                .stream()
+                .map(suggestion -> new ReminderSuggestionDto(suggestion.getId(), suggestion.getName()))
+                .toList();
+    }
+
+    /**
+     * Кэш пользователя; null — места нет (после выброса устаревших).
+     */
+    private UserSuggestions userSuggestions(String userSub, long now) {
+        UserSuggestions userSuggestions = cache.get(userSub);
+        if (userSuggestions != null) {
+            return userSuggestions;
+        }
+        if (cache.size() >= cacheMaxUsers) {
+            cache.values().removeIf(candidate -> candidate.expired(now));
+            if (cache.size() >= cacheMaxUsers) {
+                return null;
+            }
+        }
+        return cache.computeIfAbsent(userSub, sub -> new UserSuggestions(now));
+    }
+
+    /**
+     * Подсказки одного пользователя по префиксам: LRU на PREFIXES_PER_USER записей.
+     * generation растёт при каждом сбросе: результат загрузки кладётся, только если сброса с её начала не было.
+     */
+    private static final class UserSuggestions {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PREFIXES_PER_USER;
+            }
+        };
+        private long lastExpiresAt;
+        private long generation;
+
+        UserSuggestions(long now) {
+            lastExpiresAt = now;
+        }
+
+        synchronized List<ReminderSuggestionDto> get(String text, long now) {
+            Entry entry = entries.get(text);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt() >= 0) {
+                entries.remove(text);
+                return null;
+            }
+            return entry.suggestions();
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized void put(String text, List<ReminderSuggestionDto> suggestions, long expiresAt, long loadedAt) {
+            if (loadedAt != generation) {
+                return;
+            }
+            entries.put(text, new Entry(suggestions, expiresAt));
+            lastExpiresAt = expiresAt;
+        }
+
+        synchronized void invalidate() {
+            entries.clear();
+            generation++;
+        }
+
+        // Устарели все записи: положенная последней истекает позже остальных
+        synchronized boolean expired(long now) {
+            return now - lastExpiresAt >= 0;
+        }
+    }
+
+    private record Entry(List<ReminderSuggestionDto> suggestions, long expiresAt) {
+    }
+}
@@ -5,8 +5,10 @@ import com.patrick.reminder.dto.user.UserResponseDto;
 import com.patrick.reminder.entity.User;
 import com.patrick.reminder.mapper.UserMapper;
 import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.service.reminder.ReminderCrudService;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -14,18 +16,26 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper; // <-- MapStruct-интерфейс
+    private final ReminderCrudService reminderCrudService; // пересчёт напоминаний при смене пояса
 
     public UserService(UserRepository userRepository,
-                       UserMapper userMapper) {
+                       UserMapper userMapper,
+                       ReminderCrudService reminderCrudService) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.reminderCrudService = reminderCrudService;
     }
 
+    /**
+     * @throws IllegalArgumentException неизвестный часовой пояс
+     */
     public UserResponseDto createOrUpdateUser(String sub, UserRequestDto dto) {
+        UserTimeZones.validate(dto.getTimeZone());
         // Ищем, есть ли уже пользователь с таким sub
         Optional<User> existingOpt = userRepository.findBySub(sub);
 
         User user;
+        boolean zoneChanged = false;
         if (existingOpt.isEmpty()) {
             // Создаём нового
             user = userMapper.toEntity(dto);
@@ -36,9 +46,18 @@ public class UserService {
             user.setUsername(dto.getUsername());
             user.setEmail(dto.getEmail());
             user.setTelegramId(dto.getTelegramId());
+            user.setLocale(dto.getLocale());
+            zoneChanged = !Objects.equals(user.getTimeZone(), dto.getTimeZone());
+            user.setTimeZone(dto.getTimeZone());
+        }
+        if (dto.getDigestEnabled() != null) {
+            user.setDigestEnabled(dto.getDigestEnabled());
         }
 
         User saved = userRepository.save(user);
+        if (zoneChanged) {
+            reminderCrudService.rezoneReminders(saved);
+        }
         return userMapper.toResponseDto(saved);
     }
 
@@ -0,0 +1,51 @@
+package com.patrick.reminder.service.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+/**
+ * Часовые пояса пользователей.
+ * <p>
+ * remindDate/remindTime напоминания — "настенное" время в поясе его владельца, а в БД хранятся
+ * моменты (remind_at, next_fire_at, TIMESTAMP WITH TIME ZONE). Перевод между ними — здесь.
+ */
+@Component
+public class UserTimeZones {
+
+    // Пояс пользователей без time_zone; пусто — пояс сервера (так интерпретировались напоминания до поясов)
+    @Value("${reminder.default-time-zone:}")
+    private String defaultTimeZone = "";
+
+    /**
+     * Пояс пользователя; неизвестный или пустой — пояс по умолчанию.
+     */
+    public ZoneId zoneOf(String timeZone) {
+        if (timeZone != null && !timeZone.isBlank()) {
+            try {
+                return ZoneId.of(timeZone);
+            } catch (DateTimeException e) {
+                // Значение проверяется при сохранении (validate); сюда попадает только испорченное в БД
+            }
+        }
+        return defaultTimeZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(defaultTimeZone);
+    }
+
+    /**
+     * Проверка пояса, пришедшего от клиента.
+     *
+     * @throws IllegalArgumentException неизвестный пояс
+     */
+    public static void validate(String timeZone) {
+        if (timeZone == null) {
+            return;
+        }
+        try {
+            ZoneId.of(timeZone);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone: " + timeZone);
+        }
+    }
+}
@@ -3,35 +3,11 @@ package com.patrick.reminder.specification;
 import com.patrick.reminder.entity.Reminder;
 import org.springframework.data.jpa.domain.Specification;
 
-import java.time.LocalDate;
+import java.time.Instant;
 import java.time.LocalTime;
 
 public class ReminderSpecification {
 
-    /**
-     * Сортировка по переданному полю (name, remindDate, remindTime).
-     */
-    public static Specification<Reminder> sortBy(String by) {
-        return (root, query, criteriaBuilder) -> {
-            // Устанавливаем сортировку в запрос
-            switch (by) {
-                case "name":
-                    query.orderBy(criteriaBuilder.asc(root.get("name")));
-                    break;
-                case "remindDate":
-                    query.orderBy(criteriaBuilder.asc(root.get("remindDate")));
-                    break;
-                case "remindTime":
-                    query.orderBy(criteriaBuilder.asc(root.get("remindTime")));
-                    break;
-                default:
-                    throw new IllegalArgumentException("Invalid sort parameter: " + by);
-            }
-            // Возвращаем null, так как сам фильтр не накладывается
-            return null;
-        };
-    }
-
     /**
      * Фильтрация по пользователю (напоминания принадлежат конкретному userId).
      */
@@ -41,40 +17,42 @@ public class ReminderSpecification {
     }
 
     /**
-     * Фильтрация по дате: напоминания ДО указанной даты (beforeDate).
+     * Напоминания не раньше момента from (remind_at >= from).
+     * Вместе с remindAtBefore — один диапазон по индексу (user_id, remind_at, id).
      */
-    public static Specification<Reminder> filterByBeforeDate(LocalDate date) {
+    public static Specification<Reminder> remindAtFrom(Instant from) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.lessThanOrEqualTo(root.get("remindDate"), date);
+                criteriaBuilder.greaterThanOrEqualTo(root.get("remindAt"), from);
     }
 
     /**
-     * Фильтрация по дате: напоминания ПОСЛЕ указанной даты (afterDate).
+     * Напоминания строго раньше момента to (remind_at < to).
      */
-    public static Specification<Reminder> filterByAfterDate(LocalDate date) {
+    public static Specification<Reminder> remindAtBefore(Instant to) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.greaterThanOrEqualTo(root.get("remindDate"), date);
+                criteriaBuilder.lessThan(root.get("remindAt"), to);
     }
 
     /**
-     * Фильтрация по времени: напоминания ДО указанного времени (beforeTime).
+     * Время суток (remindTime) не раньше time — на любую дату (индекс (user_id, remind_time, id)).
      */
-    public static Specification<Reminder> filterByBeforeTime(LocalTime time) {
+    public static Specification<Reminder> remindTimeFrom(LocalTime time) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.lessThanOrEqualTo(root.get("remindTime"), time);
+                criteriaBuilder.greaterThanOrEqualTo(root.get("remindTime"), time);
     }
 
     /**
-     * Фильтрация по времени: напоминания ПОСЛЕ указанного времени (afterTime).
+     * Время суток (remindTime) не позже time — на любую дату.
      */
-    public static Specification<Reminder> filterByAfterTime(LocalTime time) {
+    public static Specification<Reminder> remindTimeTo(LocalTime time) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.greaterThanOrEqualTo(root.get("remindTime"), time);
+                criteriaBuilder.lessThanOrEqualTo(root.get("remindTime"), time);
     }
 
     /**
      * Частичный поиск по названию (LIKE %...%).
      * Игнорируем регистр, приводя и поле, и искомую строку к нижнему регистру.
+     * На PostgreSQL — по триграммному индексу на lower(name) (idx_reminders_name_lower_trgm).
      */
     public static Specification<Reminder> hasNameLike(String name) {
         return (root, query, cb) ->
@@ -82,22 +60,25 @@ public class ReminderSpecification {
     }
 
     /**
-     * Поиск по точному совпадению даты (remindDate).
+     * Поиск по точному совпадению времени суток (remindTime) на любую дату.
+     * Это не диапазон моментов, поэтому используется, только когда дата не задана.
      */
-    public static Specification<Reminder> hasRemindDate(LocalDate date) {
+    public static Specification<Reminder> hasRemindTime(LocalTime time) {
         return (root, query, cb) ->
-                cb.equal(root.get("remindDate"), date);
+                cb.equal(root.get("remindTime"), time);
     }
 
     /**
-     * Поиск по точному совпадению времени (remindTime).
+     * Подстрока в названии или описании — замена полнотекстового поиска, где его нет (H2 в тестах):
+     * без ранжирования и без индекса.
      */
-    public static Specification<Reminder> hasRemindTime(LocalTime time) {
-        return (root, query, cb) ->
-                cb.equal(root.get("remindTime"), time);
+    public static Specification<Reminder> hasTextLike(String text) {
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("name")), "%" + text.toLowerCase() + "%"),
+                cb.like(cb.lower(root.get("description")), "%" + text.toLowerCase() + "%"));
     }
 
-    // Частичный поиск по описанию
+    // Частичный поиск по описанию (индекс idx_reminders_description_lower_trgm на lower(description))
     public static Specification<Reminder> hasDescriptionLike(String description) {
         return (root, query, cb) ->
                 cb.like(cb.lower(root.get("description")), "%" + description.toLowerCase() + "%");
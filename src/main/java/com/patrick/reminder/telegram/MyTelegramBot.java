@@ -1,24 +1,44 @@
 package com.patrick.reminder.telegram;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Реальный класс бота, по-прежнему наследует TelegramLongPollingBot.
  * Теперь он также реализует TelegramBotClient.
+ * <p>
+ * Сам по себе скорость не ограничивает: уведомления отправляются через
+ * RateLimitedTelegramBotClient, который стоит перед ботом.
  */
 @Component
 public class MyTelegramBot extends TelegramLongPollingBot implements TelegramBotClient {
 
-    @Value("${telegram.bot.token}")
-    private String botToken;
+    private final String botUsername;
 
-    @Value("${telegram.bot.username:}")
-    private String botUsername;
+    /**
+     * base-url можно переопределить (локальный Bot API server, фейковый сервер в тестах).
+     * max-in-flight — сколько запросов executeAsync выполняется одновременно: это размер пула
+     * потоков бота (DefaultBotOptions.setMaxThreads). Пул HTTP-соединений к Bot API здесь не задаётся —
+     * его строит сама библиотека (TelegramHttpClientBuilder) по тому же числу потоков.
+     */
+    @Autowired
+    public MyTelegramBot(@Value("${telegram.bot.token}") String botToken,
+                         @Value("${telegram.bot.username:}") String botUsername,
+                         @Value("${telegram.bot.base-url:https://api.telegram.org/bot}") String baseUrl,
+                         @Value("${telegram.bot.max-in-flight:32}") int maxInFlight) {
+        super(botOptions(baseUrl, maxInFlight), botToken);
+        this.botUsername = botUsername;
+    }
 
     /**
      * Вызывается при получении новых Update. Для упрощения
@@ -32,11 +52,6 @@ public class MyTelegramBot extends TelegramLongPollingBot implements TelegramBot
         }
     }
 
-    @Override
-    public String getBotToken() {
-        return botToken;
-    }
-
     @Override
     public String getBotUsername() {
         return botUsername;
@@ -45,17 +60,62 @@ public class MyTelegramBot extends TelegramLongPollingBot implements TelegramBot
     /**
      * Метод интерфейса TelegramBotClient,
      * а также публичный метод нашего TelegramLongPollingBot.
+     * Ошибка больше не глотается: сообщение останется в outbox и будет отправлено повторно,
+     * а retry_after из ответа 429 учтёт RateLimitedTelegramBotClient.
      */
     @Override
     public void sendMessage(String chatId, String text) {
+        try {
+            execute(message(chatId, text)); // метод execute(...) наследуется от TelegramLongPollingBot
+        } catch (TelegramApiException e) {
+            throw toSendException(e);
+        }
+    }
+
+    /**
+     * Отправка через executeAsync: HTTP-запрос выполняется в пуле бота (max-in-flight),
+     * вызывающий поток сразу получает future.
+     */
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(String chatId, String text) {
+        try {
+            return executeAsync(message(chatId, text))
+                    .handle((sent, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            throw toSendException(cause);
+                        }
+                        return null;
+                    });
+        } catch (TelegramApiException e) {
+            return CompletableFuture.failedFuture(toSendException(e));
+        }
+    }
+
+    private static SendMessage message(String chatId, String text) {
         SendMessage msg = new SendMessage();
         msg.setChatId(chatId);
         msg.setText(text);
+        return msg;
+    }
 
-        try {
-            execute(msg); // метод execute(...) наследуется от TelegramLongPollingBot
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    private static TelegramSendException toSendException(Throwable error) {
+        if (error instanceof TelegramSendException e) {
+            return e;
         }
+        if (error instanceof TelegramApiRequestException e) {
+            Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+            return new TelegramSendException("Telegram API error " + e.getErrorCode() + ": " + e.getApiResponse(),
+                    retryAfter, e);
+        }
+        return new TelegramSendException("Failed to send Telegram message", null, error);
+    }
+
+    private static DefaultBotOptions botOptions(String baseUrl, int maxInFlight) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(baseUrl);
+        options.setMaxThreads(maxInFlight);
+        return options;
     }
 }
@@ -0,0 +1,107 @@
+package com.patrick.reminder.telegram;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь отправки в Telegram с ограничением скорости — стоит перед MyTelegramBot.
+ * <ul>
+ *   <li>общий token bucket на бота (Telegram: ~30 сообщений в секунду);</li>
+ *   <li>token bucket на чат (~1 сообщение в секунду). Чаты распределены по фиксированному числу
+ *   "полос" (striping) по хэшу chatId, поэтому память не растёт с числом пользователей;
+ *   чаты из одной полосы делят лимит, что лишь чуть строже нужного;</li>
+ *   <li>ответ 429: оба бакета ставятся на паузу на retry_after. Короткую паузу дожидаемся и повторяем
+ *   отправку, длинную — отдаём наверх, и сообщение повторится из outbox.</li>
+ * </ul>
+ * Отправка ставится на момент своего слота (без блокировки потока), так что всплеск растягивается
+ * до максимальной допустимой скорости, а не упирается в 429.
+ * Лимиты — на узел: при нескольких экземплярах global-per-second нужно делить между ними.
+ */
+@Primary
+@Component
+public class RateLimitedTelegramBotClient implements TelegramBotClient {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitedTelegramBotClient.class);
+
+    private final TelegramBotClient delegate;
+    private final TokenBucket globalBucket;
+    private final TokenBucket[] chatBuckets;
+    private final long maxInlineRetrySeconds;
+
+    @Autowired
+    public RateLimitedTelegramBotClient(MyTelegramBot bot,
+                                        @Value("${telegram.rate-limit.global-per-second:30}") double globalPerSecond,
+                                        @Value("${telegram.rate-limit.per-chat-per-second:1}") double perChatPerSecond,
+                                        @Value("${telegram.rate-limit.chat-stripes:1024}") int chatStripes,
+                                        @Value("${telegram.rate-limit.max-inline-retry-seconds:5}") long maxInlineRetrySeconds) {
+        this((TelegramBotClient) bot, globalPerSecond, perChatPerSecond, chatStripes, maxInlineRetrySeconds);
+    }
+
+    public RateLimitedTelegramBotClient(TelegramBotClient delegate,
+                                        double globalPerSecond,
+                                        double perChatPerSecond,
+                                        int chatStripes,
+                                        long maxInlineRetrySeconds) {
+        this.delegate = delegate;
+        this.globalBucket = new TokenBucket(globalPerSecond, 1);
+        this.chatBuckets = new TokenBucket[chatStripes];
+        for (int i = 0; i < chatStripes; i++) {
+            chatBuckets[i] = new TokenBucket(perChatPerSecond, 1);
+        }
+        this.maxInlineRetrySeconds = maxInlineRetrySeconds;
+    }
+
+    @Override
+    public void sendMessage(String chatId, String text) {
+        try {
+            sendMessageAsync(chatId, text).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(String chatId, String text) {
+        TokenBucket chatBucket = chatBuckets[Math.floorMod(chatId.hashCode(), chatBuckets.length)];
+        return attempt(chatId, text, chatBucket, false);
+    }
+
+    private CompletableFuture<Void> attempt(String chatId, String text, TokenBucket chatBucket, boolean retried) {
+        // Сначала слот в чате, затем общий слот не раньше него — общий лимит не тратится на ожидание чата
+        long chatSlot = chatBucket.reserve(System.nanoTime());
+        long delayNanos = Math.max(0, globalBucket.reserve(chatSlot) - System.nanoTime());
+
+        // Запрос уходит в момент слота; сам вызов не блокирующий (executeAsync), поэтому выполняем его прямо в таймере
+        return CompletableFuture
+                .supplyAsync(() -> delegate.sendMessageAsync(chatId, text),
+                        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, Runnable::run))
+                .thenCompose(send -> send)
+                .handle((ignored, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (!(cause instanceof TelegramSendException e) || !e.isRateLimited()) {
+                        return CompletableFuture.<Void>failedFuture(cause);
+                    }
+                    long pauseUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(e.getRetryAfterSeconds());
+                    chatBucket.pauseUntil(pauseUntil);
+                    globalBucket.pauseUntil(pauseUntil);
+                    log.warn("Telegram rate limit hit for chat {}, retry after {} s", chatId, e.getRetryAfterSeconds());
+                    if (retried || e.getRetryAfterSeconds() > maxInlineRetrySeconds) {
+                        return CompletableFuture.<Void>failedFuture(e);
+                    }
+                    return attempt(chatId, text, chatBucket, true);
+                })
+                .thenCompose(result -> result);
+    }
+}
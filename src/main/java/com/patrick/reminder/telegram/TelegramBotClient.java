@@ -1,9 +1,17 @@
 package com.patrick.reminder.telegram;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Интерфейс, описывающий лишь те методы, которые нужны
  * для отправки сообщений в Telegram. Можно расширить при необходимости.
  */
 public interface TelegramBotClient {
     void sendMessage(String chatId, String text);
+
+    /**
+     * Асинхронная отправка: поток вызывающего не ждёт HTTP-ответа.
+     * Future завершается с TelegramSendException, если сообщение не отправлено.
+     */
+    CompletableFuture<Void> sendMessageAsync(String chatId, String text);
 }
@@ -0,0 +1,23 @@
+package com.patrick.reminder.telegram;
+
+/**
+ * Ошибка отправки сообщения в Telegram.
+ * Для ответа 429 (Too Many Requests) содержит retry_after — сколько секунд Telegram просит подождать.
+ */
+public class TelegramSendException extends RuntimeException {
+
+    private final Integer retryAfterSeconds;
+
+    public TelegramSendException(String message, Integer retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Integer getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public boolean isRateLimited() {
+        return retryAfterSeconds != null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.patrick.reminder.telegram;
+
+/**
+ * Token bucket в форме GCRA (generic cell rate algorithm): вместо счётчика токенов хранится
+ * "теоретическое время прибытия" (tat) следующего запроса.
+ * <p>
+ * reserve() не отказывает, а резервирует ближайший свободный слот и возвращает момент,
+ * когда можно отправлять, — отправка просто откладывается до него. Так всплеск запросов
+ * растягивается в равномерный поток с заданной скоростью, а не теряется.
+ * Время — в наносекундах (System.nanoTime()), передаётся снаружи, чтобы класс было легко тестировать.
+ */
+public final class TokenBucket {
+
+    // Интервал между запросами при установившейся скорости
+    private final long intervalNanos;
+    // Допустимое "опережение" графика: (burst - 1) интервалов
+    private final long burstToleranceNanos;
+
+    private long tat;
+    private boolean used;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Expected permitsPerSecond > 0 and burst >= 1");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = intervalNanos * (burst - 1);
+    }
+
+    /**
+     * Резервирует слот не раньше earliestNanos.
+     *
+     * @return момент (nanoTime), начиная с которого можно отправлять
+     */
+    public synchronized long reserve(long earliestNanos) {
+        if (!used) {
+            tat = earliestNanos;
+            used = true;
+        }
+        long sendAt = Math.max(earliestNanos, tat - burstToleranceNanos);
+        tat = Math.max(tat, sendAt) + intervalNanos;
+        return sendAt;
+    }
+
+    /**
+     * Запрещает отправку до untilNanos (например, по retry_after из ответа 429).
+     */
+    public synchronized void pauseUntil(long untilNanos) {
+        if (!used) {
+            tat = untilNanos;
+            used = true;
+        }
+        tat = Math.max(tat, untilNanos + burstToleranceNanos);
+    }
+}
@@ -0,0 +1,315 @@
+package com.patrick.reminder.template;
+
+import com.patrick.reminder.repository.projection.ReminderDispatchView;
+import com.patrick.reminder.service.notification.Notification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Скомпилированный шаблон уведомления (подмножество Mustache).
+ * <ul>
+ *   <li>{{name}}, {{description}}, {{date}}, {{time}} — поля напоминания,
+ *   {{count}} — число напоминаний в сообщении, {{username}} — имя пользователя,
+ *   {{missed}} — сколько напоминаний заменяет сводка пропущенных (у обычного сообщения пусто);</li>
+ *   <li>{{#reminders}}...{{/reminders}} — повтор для каждого напоминания сводки;</li>
+ *   <li>{{#digest}}...{{/digest}} — только для сводки, {{^digest}}...{{/digest}} — только для одиночного;</li>
+ *   <li>{{#поле}}...{{/поле}} / {{^поле}}...{{/поле}} — если поле заполнено / пусто;</li>
+ *   <li>{{! комментарий}}. Строка, на которой стоит только секция или комментарий, в вывод не попадает.</li>
+ * </ul>
+ * Текст разбирается один раз при загрузке; рендеринг — проход по готовому дереву без разбора строк
+ * и рефлексии, в переиспользуемый буфер потока. В HTML-шаблонах значения экранируются.
+ * Вне {{#reminders}} поля напоминания берутся из первого напоминания сообщения.
+ */
+public final class NotificationTemplate {
+
+    // Буфер рендеринга на поток: при тысячах сообщений за проход не растим новый StringBuilder на каждое
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    // Слишком выросший буфер (длинная сводка) не держим в потоке навсегда
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private final Node[] nodes;
+    private final boolean html;
+
+    private NotificationTemplate(List<Node> nodes, boolean html) {
+        this.nodes = nodes.toArray(new Node[0]);
+        this.html = html;
+    }
+
+    /**
+     * Разбирает шаблон.
+     *
+     * @param html экранировать ли значения как HTML
+     * @throws IllegalArgumentException синтаксическая ошибка (незакрытая секция, неизвестное поле и т.п.)
+     */
+    public static NotificationTemplate compile(String source, boolean html) {
+        return new NotificationTemplate(new Parser(source).parse(), html);
+    }
+
+    public String render(Notification notification) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        render(notification, out);
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    public void render(Notification notification, StringBuilder out) {
+        renderNodes(nodes, notification, notification.reminders().get(0), out);
+    }
+
+    private void renderNodes(Node[] nodes, Notification notification, ReminderDispatchView reminder, StringBuilder out) {
+        for (Node node : nodes) {
+            if (node instanceof Text text) {
+                out.append(text.value);
+            } else if (node instanceof Var var) {
+                var.field.append(notification, reminder, out, html);
+            } else if (node instanceof Section section) {
+                renderSection(section, notification, reminder, out);
+            }
+        }
+    }
+
+    private void renderSection(Section section, Notification notification, ReminderDispatchView reminder, StringBuilder out) {
+        switch (section.kind) {
+            case REMINDERS -> {
+                if (section.inverted) {
+                    return; // в сообщении всегда есть хотя бы одно напоминание
+                }
+                for (ReminderDispatchView item : notification.reminders()) {
+                    renderNodes(section.children, notification, item, out);
+                }
+            }
+            case DIGEST -> {
+                if (notification.isDigest() != section.inverted) {
+                    renderNodes(section.children, notification, reminder, out);
+                }
+            }
+            case FIELD -> {
+                if (section.field.isPresent(notification, reminder) != section.inverted) {
+                    renderNodes(section.children, notification, reminder, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Поля, доступные в шаблоне.
+     */
+    private enum Field {
+        NAME("name"),
+        DESCRIPTION("description"),
+        DATE("date"),
+        TIME("time"),
+        COUNT("count"),
+        USERNAME("username"),
+        MISSED("missed");
+
+        private final String tag;
+
+        Field(String tag) {
+            this.tag = tag;
+        }
+
+        static Field byTag(String tag) {
+            for (Field field : values()) {
+                if (field.tag.equals(tag)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        private Object value(Notification notification, ReminderDispatchView reminder) {
+            return switch (this) {
+                case NAME -> reminder.name();
+                case DESCRIPTION -> reminder.description();
+                case DATE -> reminder.remindDate();
+                case TIME -> reminder.remindTime();
+                case COUNT -> notification.reminders().size();
+                case USERNAME -> notification.username();
+                case MISSED -> notification.missed() > 0 ? notification.missed() : null;
+            };
+        }
+
+        boolean isPresent(Notification notification, ReminderDispatchView reminder) {
+            Object value = value(notification, reminder);
+            return value != null && !(value instanceof String s && s.isBlank());
+        }
+
+        void append(Notification notification, ReminderDispatchView reminder, StringBuilder out, boolean html) {
+            if (this == COUNT) {
+                out.append(notification.reminders().size());
+                return;
+            }
+            Object value = value(notification, reminder);
+            if (value == null) {
+                return;
+            }
+            if (value instanceof String s) {
+                if (html) {
+                    appendEscaped(s, out);
+                } else {
+                    out.append(s);
+                }
+            } else {
+                // Дата и время — без экранирования, спецсимволов в них нет
+                out.append(value);
+            }
+        }
+
+        private static void appendEscaped(String value, StringBuilder out) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> out.append("&amp;");
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    case '"' -> out.append("&quot;");
+                    case '\'' -> out.append("&#39;");
+                    case '\n' -> out.append("<br>");
+                    default -> out.append(c);
+                }
+            }
+        }
+    }
+
+    private interface Node {
+    }
+
+    private record Text(String value) implements Node {
+    }
+
+    private record Var(Field field) implements Node {
+    }
+
+    private enum SectionKind {REMINDERS, DIGEST, FIELD}
+
+    private static final class Section implements Node {
+        private final String tag;
+        private final SectionKind kind;
+        private final Field field;
+        private final boolean inverted;
+        private Node[] children;
+
+        private Section(String tag, SectionKind kind, Field field, boolean inverted) {
+            this.tag = tag;
+            this.kind = kind;
+            this.field = field;
+            this.inverted = inverted;
+        }
+    }
+
+    private static final class Parser {
+
+        private final String source;
+        private final Deque<Section> open = new ArrayDeque<>();
+        private final Deque<List<Node>> levels = new ArrayDeque<>();
+
+        private Parser(String source) {
+            this.source = source;
+        }
+
+        List<Node> parse() {
+            levels.push(new ArrayList<>());
+            StringBuilder text = new StringBuilder();
+            int pos = 0;
+            while (pos < source.length()) {
+                int start = source.indexOf("{{", pos);
+                if (start < 0) {
+                    text.append(source, pos, source.length());
+                    break;
+                }
+                int end = source.indexOf("}}", start + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed tag at offset " + start);
+                }
+                text.append(source, pos, start);
+                String tag = source.substring(start + 2, end).trim();
+                pos = end + 2;
+
+                char type = tag.isEmpty() ? ' ' : tag.charAt(0);
+                boolean block = type == '#' || type == '^' || type == '/' || type == '!';
+                if (block && isStandalone(start, pos)) {
+                    // Строка только с тегом секции: убираем её отступ и перевод строки
+                    text.setLength(text.lastIndexOf("\n") + 1);
+                    pos = skipLineEnd(pos);
+                }
+                flush(text);
+
+                switch (type) {
+                    case '!' -> {
+                    }
+                    case '#', '^' -> openSection(tag.substring(1).trim(), type == '^', start);
+                    case '/' -> closeSection(tag.substring(1).trim(), start);
+                    default -> levels.peek().add(new Var(field(tag, start)));
+                }
+            }
+            flush(text);
+            if (!open.isEmpty()) {
+                throw new IllegalArgumentException("Unclosed section {{#" + open.peek().tag + "}}");
+            }
+            return levels.pop();
+        }
+
+        private void openSection(String tag, boolean inverted, int offset) {
+            Section section = switch (tag) {
+                case "reminders" -> new Section(tag, SectionKind.REMINDERS, null, inverted);
+                case "digest" -> new Section(tag, SectionKind.DIGEST, null, inverted);
+                default -> new Section(tag, SectionKind.FIELD, field(tag, offset), inverted);
+            };
+            levels.peek().add(section);
+            open.push(section);
+            levels.push(new ArrayList<>());
+        }
+
+        private void closeSection(String tag, int offset) {
+            if (open.isEmpty() || !open.peek().tag.equals(tag)) {
+                throw new IllegalArgumentException("Unexpected {{/" + tag + "}} at offset " + offset);
+            }
+            open.pop().children = levels.pop().toArray(new Node[0]);
+        }
+
+        private static Field field(String tag, int offset) {
+            Field field = Field.byTag(tag);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field {{" + tag + "}} at offset " + offset);
+            }
+            return field;
+        }
+
+        private void flush(StringBuilder text) {
+            if (!text.isEmpty()) {
+                levels.peek().add(new Text(text.toString()));
+                text.setLength(0);
+            }
+        }
+
+        /**
+         * Тег стоит на строке один (вокруг только пробелы).
+         */
+        private boolean isStandalone(int tagStart, int tagEnd) {
+            for (int i = tagStart - 1; i >= 0 && source.charAt(i) != '\n'; i--) {
+                if (!Character.isWhitespace(source.charAt(i))) {
+                    return false;
+                }
+            }
+            for (int i = tagEnd; i < source.length() && source.charAt(i) != '\n'; i++) {
+                if (!Character.isWhitespace(source.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int skipLineEnd(int pos) {
+            int newline = source.indexOf('\n', pos);
+            return newline < 0 ? source.length() : newline + 1;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.patrick.reminder.template;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш скомпилированных шаблонов уведомлений: по одному на вид (канал) и локаль.
+ * <p>
+ * Шаблоны по умолчанию лежат в classpath:templates/notification. Если задан reminder.templates.dir,
+ * файлы из этого каталога их переопределяют и перечитываются без перезапуска: раз в reload-seconds
+ * каталог проверяется, и при изменении все шаблоны компилируются заново и подменяются целиком.
+ * Шаблон с ошибкой не подменяет рабочий — ошибка пишется в лог.
+ * <p>
+ * Локаль ищется так: точный тег (pt-BR), затем язык (pt), затем default-locale.
+ */
+@Component
+public class NotificationTemplates {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationTemplates.class);
+
+    private static final String CLASSPATH_PATTERN = "classpath*:templates/notification/*.mustache";
+    private static final String EXTENSION = ".mustache";
+
+    @Value("${reminder.templates.dir:}")
+    private String templatesDir = "";
+
+    @Value("${reminder.templates.default-locale:ru}")
+    private String defaultLocale = "ru";
+
+    @Value("${reminder.templates.reload-seconds:5}")
+    private long reloadSeconds = 5;
+
+    // Ключ — "вид_локаль"; карта неизменяемая и подменяется целиком при перезагрузке
+    private volatile Map<String, NotificationTemplate> templates = Map.of();
+    private volatile long dirFingerprint;
+
+    private ScheduledExecutorService reloader;
+
+    @PostConstruct
+    public void start() {
+        templates = load();
+        if (!templatesDir.isBlank()) {
+            dirFingerprint = fingerprint();
+            reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "notification-templates-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reloadIfChanged, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    /**
+     * Шаблон для локали пользователя (null — локаль по умолчанию).
+     *
+     * @return null, если шаблона этого вида нет ни для локали, ни для локали по умолчанию
+     * (так бывает только с необязательным EMAIL_HTML)
+     */
+    @Nullable
+    public NotificationTemplate get(TemplateKind kind, @Nullable String locale) {
+        Map<String, NotificationTemplate> current = templates;
+        if (locale != null && !locale.isBlank()) {
+            Locale parsed = Locale.forLanguageTag(locale.replace('_', '-'));
+            NotificationTemplate template = current.get(key(kind, parsed.toLanguageTag()));
+            if (template == null) {
+                template = current.get(key(kind, parsed.getLanguage()));
+            }
+            if (template != null) {
+                return template;
+            }
+        }
+        return current.get(key(kind, defaultLocale));
+    }
+
+    /**
+     * То же, но шаблон обязателен.
+     *
+     * @throws IllegalStateException шаблона нет
+     */
+    public NotificationTemplate require(TemplateKind kind, @Nullable String locale) {
+        NotificationTemplate template = get(kind, locale);
+        if (template == null) {
+            throw new IllegalStateException("No " + kind.getFileName() + " template for locale " + defaultLocale);
+        }
+        return template;
+    }
+
+    /**
+     * Перечитывает шаблоны, если файлы в каталоге изменились.
+     */
+    public void reloadIfChanged() {
+        try {
+            long current = fingerprint();
+            if (current == dirFingerprint) {
+                return;
+            }
+            templates = load();
+            dirFingerprint = current;
+            log.info("Notification templates reloaded from {}", templatesDir);
+        } catch (RuntimeException e) {
+            // Оставляем прежние шаблоны; попробуем снова, когда файл исправят
+            log.error("Failed to reload notification templates from {}", templatesDir, e);
+        }
+    }
+
+    private Map<String, NotificationTemplate> load() {
+        Map<String, NotificationTemplate> loaded = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_PATTERN)) {
+                try (InputStream in = resource.getInputStream()) {
+                    put(loaded, resource.getFilename(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            if (!templatesDir.isBlank() && Files.isDirectory(Path.of(templatesDir))) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(templatesDir), "*" + EXTENSION)) {
+                    for (Path file : files) {
+                        put(loaded, file.getFileName().toString(), Files.readString(file, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read notification templates", e);
+        }
+        return Map.copyOf(loaded);
+    }
+
+    private static void put(Map<String, NotificationTemplate> loaded, String fileName, String source) {
+        if (fileName == null || !fileName.endsWith(EXTENSION)) {
+            return;
+        }
+        String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+        int separator = name.lastIndexOf('_');
+        TemplateKind kind = separator > 0 ? TemplateKind.byFileName(name.substring(0, separator)) : null;
+        if (kind == null) {
+            log.warn("Skipping unknown notification template {}", fileName);
+            return;
+        }
+        String locale = Locale.forLanguageTag(name.substring(separator + 1)).toLanguageTag();
+        try {
+            loaded.put(key(kind, locale), NotificationTemplate.compile(source, kind.isHtml()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid notification template " + fileName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Сумма времени изменения и размера файлов каталога: меняется при правке, добавлении и удалении файла.
+     */
+    private long fingerprint() {
+        Path dir = Path.of(templatesDir);
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        long fingerprint = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                // Сумма не зависит от порядка, в котором каталог отдаёт файлы
+                long hash = file.getFileName().hashCode();
+                hash = 31 * hash + Files.getLastModifiedTime(file).toMillis();
+                fingerprint += 31 * hash + Files.size(file);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to scan " + dir, e);
+        }
+        return fingerprint;
+    }
+
+    private static String key(TemplateKind kind, String locale) {
+        return kind.getFileName() + "_" + locale;
+    }
+}
@@ -0,0 +1,36 @@
+package com.patrick.reminder.template;
+
+/**
+ * Виды шаблонов уведомлений. Файл шаблона: {fileName}_{locale}.mustache, например email-html_en.mustache.
+ */
+public enum TemplateKind {
+    EMAIL_SUBJECT("email-subject", false),
+    EMAIL_TEXT("email-text", false),
+    EMAIL_HTML("email-html", true),
+    TELEGRAM("telegram", false);
+
+    private final String fileName;
+    private final boolean html;
+
+    TemplateKind(String fileName, boolean html) {
+        this.fileName = fileName;
+        this.html = html;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    static TemplateKind byFileName(String fileName) {
+        for (TemplateKind kind : values()) {
+            if (kind.fileName.equals(fileName)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+}
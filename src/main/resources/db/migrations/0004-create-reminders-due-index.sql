@@ -0,0 +1,6 @@
+-- Частичный индекс только по неотправленным напоминаниям.
+-- Отправленные строки в индекс не попадают, поэтому выборка "созревших"
+-- напоминаний читает ровно столько строк, сколько их пора отправить.
+CREATE INDEX idx_reminders_due_unsent
+    ON reminders (remind_date, remind_time, id)
+    WHERE sent = FALSE;
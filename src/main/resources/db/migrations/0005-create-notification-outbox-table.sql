@@ -0,0 +1,12 @@
+-- Outbox уведомлений: запись появляется, когда напоминание "созрело",
+-- и удаляется после доставки. Доставку выполняют отдельные воркеры.
+CREATE TABLE notification_outbox (
+                                     id BIGSERIAL PRIMARY KEY,
+                                     reminder_id BIGINT NOT NULL,
+                                     created_at TIMESTAMP NOT NULL,
+                                     available_at TIMESTAMP NOT NULL, -- не раньше этого момента (backoff после ошибки)
+                                     attempts INT NOT NULL DEFAULT 0,
+                                     FOREIGN KEY (reminder_id) REFERENCES reminders(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_outbox_available ON notification_outbox (available_at, id);
@@ -0,0 +1,4 @@
+-- Аренда (lease) записи outbox узлом доставки: кто взял запись и до какого момента.
+-- Если узел упал, по истечении claimed_until запись забирает другой узел.
+ALTER TABLE notification_outbox ADD COLUMN claimed_by VARCHAR(255);
+ALTER TABLE notification_outbox ADD COLUMN claimed_until TIMESTAMP;
@@ -0,0 +1,13 @@
+-- Недоставленные уведомления: запись outbox переносится сюда, когда исчерпан лимит попыток.
+-- Отсюда уведомление можно вернуть в outbox вручную (replay).
+CREATE TABLE notification_dead_letter (
+                                          id BIGSERIAL PRIMARY KEY,
+                                          reminder_id BIGINT NOT NULL,
+                                          attempts INT NOT NULL,
+                                          failed_channels VARCHAR(64), -- каналы, в которые не удалось доставить (EMAIL,TELEGRAM)
+                                          enqueued_at TIMESTAMP NOT NULL, -- когда напоминание впервые попало в outbox
+                                          failed_at TIMESTAMP NOT NULL,
+                                          FOREIGN KEY (reminder_id) REFERENCES reminders(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_dead_letter_reminder ON notification_dead_letter (reminder_id);
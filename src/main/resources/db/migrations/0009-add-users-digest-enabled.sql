@@ -0,0 +1,3 @@
+-- Сводка (digest): несколько напоминаний пользователя, сработавших одновременно, уходят одним сообщением.
+-- По умолчанию включена; пользователь может отказаться и получать каждое напоминание отдельно.
+ALTER TABLE users ADD COLUMN digest_enabled BOOLEAN NOT NULL DEFAULT TRUE;
@@ -0,0 +1,2 @@
+-- Язык уведомлений пользователя (тег BCP 47: ru, en, pt-BR). NULL — reminder.templates.default-locale.
+ALTER TABLE users ADD COLUMN locale VARCHAR(16);
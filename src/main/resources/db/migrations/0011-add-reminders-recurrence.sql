@@ -0,0 +1,8 @@
+-- Повторяющиеся напоминания: правило повторения (RRULE или cron) и ближайшее срабатывание.
+-- Правило не разворачивается в строки: next_fire_at сдвигается на следующее срабатывание после каждой отправки.
+-- next_fire_at IS NULL — срабатывать больше нечему (разовое уже отправлено или повторения закончились).
+ALTER TABLE reminders ADD COLUMN recurrence VARCHAR(255);
+ALTER TABLE reminders ADD COLUMN next_fire_at TIMESTAMP;
+
+-- Срабатывание, для которого запись поставлена в outbox (дата в тексте уведомления повторяющегося напоминания)
+ALTER TABLE notification_outbox ADD COLUMN fire_at TIMESTAMP;
@@ -0,0 +1,15 @@
+-- Существующие неотправленные напоминания срабатывают в свои remind_date + remind_time.
+UPDATE reminders
+SET next_fire_at = remind_date + remind_time
+WHERE sent = FALSE
+  AND remind_date IS NOT NULL
+  AND remind_time IS NOT NULL;
+
+-- Частичный индекс только по напоминаниям, которым ещё есть чему срабатывать.
+-- Скан "созревших" — один диапазон по next_fire_at, повторяющиеся напоминания занимают в индексе одну строку.
+CREATE INDEX idx_reminders_next_fire
+    ON reminders (next_fire_at, id)
+    WHERE next_fire_at IS NOT NULL;
+
+-- Скан по remind_date/remind_time больше не используется
+DROP INDEX idx_reminders_due_unsent;
@@ -0,0 +1,12 @@
+-- Часовой пояс пользователя (IANA: Europe/Moscow). NULL — reminder.default-time-zone.
+-- remind_date/remind_time — "настенное" время в поясе пользователя.
+ALTER TABLE users ADD COLUMN time_zone VARCHAR(64);
+
+-- Момент напоминания (remind_date + remind_time в поясе пользователя) — для фильтров и поиска
+-- одним диапазоном по индексу вместо раздельных условий на дату и время.
+ALTER TABLE reminders ADD COLUMN remind_at TIMESTAMP WITH TIME ZONE;
+
+-- Срабатывания — тоже моменты времени, а не локальное время сервера.
+-- Существующие значения интерпретируются в поясе сессии БД (так их и писал сервер).
+ALTER TABLE reminders ALTER COLUMN next_fire_at SET DATA TYPE TIMESTAMP WITH TIME ZONE;
+ALTER TABLE notification_outbox ALTER COLUMN fire_at SET DATA TYPE TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,23 @@
+-- Заполнение remind_at порциями по id с COMMIT после каждой: без одной длинной транзакции,
+-- которая держала бы блокировки всей таблицы и раздувала WAL. Changeset выполняется вне транзакции
+-- Liquibase (runInTransaction=false), иначе COMMIT внутри DO недопустим.
+-- У пользователей ещё нет time_zone, поэтому время интерпретируется в поясе сессии — как его писал сервер.
+DO $$
+DECLARE
+    chunk_size CONSTANT BIGINT := 10000;
+    last_id BIGINT := 0;
+    max_id BIGINT;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM reminders;
+    WHILE last_id < max_id LOOP
+        UPDATE reminders
+        SET remind_at = (remind_date + remind_time) AT TIME ZONE current_setting('TimeZone')
+        WHERE id > last_id
+          AND id <= last_id + chunk_size
+          AND remind_date IS NOT NULL
+          AND remind_time IS NOT NULL
+          AND remind_at IS NULL;
+        last_id := last_id + chunk_size;
+        COMMIT;
+    END LOOP;
+END $$;
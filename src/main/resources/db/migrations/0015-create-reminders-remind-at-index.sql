@@ -0,0 +1,4 @@
+-- Фильтры и поиск всегда ограничены пользователем: (user_id, remind_at) — один диапазон по индексу.
+-- id в конце — для выдачи по курсору в порядке (remind_at, id) без сортировки.
+-- Строится после заполнения remind_at, чтобы backfill не обновлял индекс построчно.
+CREATE INDEX idx_reminders_user_remind_at_id ON reminders (user_id, remind_at, id);
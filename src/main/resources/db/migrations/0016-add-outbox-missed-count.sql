@@ -0,0 +1,4 @@
+-- Сводка пропущенных напоминаний (догоняющий режим после простоя): одна запись outbox на пользователя
+-- вместо записи на каждое давно просроченное напоминание. missed_count — сколько напоминаний она заменяет,
+-- 0 — обычная запись.
+ALTER TABLE notification_outbox ADD COLUMN missed_count INT NOT NULL DEFAULT 0;
@@ -0,0 +1,23 @@
+-- Состояние доставки по каналам: строка — срабатывание напоминания, доставленное в один канал.
+-- idempotency_key = reminder_id:fire_at:channel; перед отправкой доставленные каналы пропускаются,
+-- поэтому повтор из outbox (или replay из dead letter) отправляет только в недоставленные каналы.
+-- fire_at / enqueued_at / delivered_at — задержка доставки от срабатывания и от постановки в outbox.
+CREATE TABLE notification_delivery (
+                                       id BIGSERIAL PRIMARY KEY,
+                                       idempotency_key VARCHAR(64) NOT NULL,
+                                       reminder_id BIGINT NOT NULL,
+                                       channel VARCHAR(16) NOT NULL,
+                                       fire_at TIMESTAMP WITH TIME ZONE,
+                                       enqueued_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                                       delivered_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                                       CONSTRAINT uq_notification_delivery_key UNIQUE (idempotency_key),
+                                       FOREIGN KEY (reminder_id) REFERENCES reminders(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_delivery_reminder ON notification_delivery (reminder_id);
+-- Очистка истории старше reminder.delivery.retention-days
+CREATE INDEX idx_notification_delivery_delivered ON notification_delivery (delivered_at);
+
+-- Dead letter сохраняет срабатывание (и сводку пропущенных), чтобы после replay ключи доставки совпали
+ALTER TABLE notification_dead_letter ADD COLUMN fire_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE notification_dead_letter ADD COLUMN missed_count INT NOT NULL DEFAULT 0;
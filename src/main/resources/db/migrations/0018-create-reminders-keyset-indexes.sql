@@ -0,0 +1,6 @@
+-- Выдача по курсору: у каждого порядка — индекс (user_id, ключ, id). Страница — один диапазон
+-- по индексу от последней строки предыдущей страницы, без OFFSET и сортировки.
+-- Для порядка по remind_at индекс уже есть (idx_reminders_user_remind_at_id, 0015).
+CREATE INDEX idx_reminders_user_id ON reminders (user_id, id);
+CREATE INDEX idx_reminders_user_name ON reminders (user_id, name, id);
+CREATE INDEX idx_reminders_user_remind_time ON reminders (user_id, remind_time, id);
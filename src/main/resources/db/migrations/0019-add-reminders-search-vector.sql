@@ -0,0 +1,18 @@
+-- Полнотекстовый поиск по названию и описанию: tsvector, который поддерживает триггер.
+-- Конфигурация russian: русские слова приводятся к основе русским стеммером, латиница — английским.
+-- Название весит больше описания (A против B) — совпадения в названии выше в выдаче.
+ALTER TABLE reminders ADD COLUMN search_vector tsvector;
+
+CREATE FUNCTION reminders_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector :=
+            setweight(to_tsvector('russian', coalesce(NEW.name, '')), 'A') ||
+            setweight(to_tsvector('russian', coalesce(NEW.description, '')), 'B');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_reminders_search_vector
+    BEFORE INSERT OR UPDATE OF name, description ON reminders
+    FOR EACH ROW
+EXECUTE FUNCTION reminders_search_vector_update();
@@ -0,0 +1,19 @@
+-- Заполнение search_vector порциями по id с COMMIT после каждой (как 0014-backfill-reminders-remind-at.sql).
+-- name = name — вектор пересчитывает триггер trg_reminders_search_vector, выражение в одном месте.
+DO $$
+DECLARE
+    chunk_size CONSTANT BIGINT := 10000;
+    last_id BIGINT := 0;
+    max_id BIGINT;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM reminders;
+    WHILE last_id < max_id LOOP
+        UPDATE reminders
+        SET name = name
+        WHERE id > last_id
+          AND id <= last_id + chunk_size
+          AND search_vector IS NULL;
+        last_id := last_id + chunk_size;
+        COMMIT;
+    END LOOP;
+END $$;
@@ -0,0 +1,3 @@
+-- GIN-индекс по search_vector: поиск находит совпадения по индексу, а не читает описания всех напоминаний.
+-- Строится после заполнения, чтобы backfill не обновлял индекс построчно.
+CREATE INDEX idx_reminders_search ON reminders USING GIN (search_vector);
@@ -0,0 +1,6 @@
+-- Подсказки при наборе (/suggest): подстрока и нечёткое совпадение названия по триграммам.
+-- GIN (gin_trgm_ops) обслуживает и LIKE '%...%', и оператор похожести %. Индекс — по lower(name),
+-- тому же выражению, что в запросе: регистр не важен, а поиск подстрокой (/search?name=...) использует его же.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_reminders_name_lower_trgm ON reminders USING GIN (lower(name) gin_trgm_ops);
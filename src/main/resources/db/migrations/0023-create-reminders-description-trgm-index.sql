@@ -0,0 +1,4 @@
+-- Поиск подстрокой по описанию (/search?description=...) — lower(description) LIKE '%...%': B-tree по (user_id, ...)
+-- сужает его только до напоминаний пользователя. Триграммный индекс по тому же выражению, что в запросе,
+-- находит совпадения сразу. Для названия такой индекс уже есть (idx_reminders_name_lower_trgm, 0022).
+CREATE INDEX idx_reminders_description_lower_trgm ON reminders USING GIN (lower(description) gin_trgm_ops);
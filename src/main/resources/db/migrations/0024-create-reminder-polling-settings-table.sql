@@ -0,0 +1,9 @@
+-- Пороги адаптивного опроса (AdaptivePollingPolicy), изменённые через /actuator/reminderpolling.
+-- Одна строка (id = 1) на весь кластер: скан выполняется на любом узле и читает пороги отсюда.
+-- Строки нет — действуют значения из конфигурации (reminder.polling.*).
+CREATE TABLE reminder_polling_settings (
+                                           id INT PRIMARY KEY,
+                                           min_interval_seconds BIGINT NOT NULL,
+                                           max_interval_seconds BIGINT NOT NULL,
+                                           backlog_threshold INT NOT NULL
+);
@@ -0,0 +1,74 @@
+package functional.com.patrick.reminder.controller;
+
+import com.patrick.reminder.ReminderApplication;
+import com.patrick.reminder.config.SecurityConfig.JwtAuthoritiesConverter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+// Импорт для jwt()
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+
+/**
+ * Доступ к служебным эндпоинтам (/actuator/*): токен обычного пользователя Google не даёт
+ * ни менять пороги опроса, ни читать метрики — нужна роль ADMIN.
+ * Права запроса строятся тем же преобразованием, что и в фильтре (sub из reminder.security.admin-subs -> ROLE_ADMIN).
+ */
+@SpringBootTest(classes = ReminderApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "reminder.security.admin-subs=admin-sub")
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtAuthoritiesConverter authoritiesConverter;
+
+    @Test
+    @DisplayName("POST /actuator/reminderpolling обычным пользователем -> 403 Forbidden")
+    void testUpdatePolling_OrdinaryUserForbidden() throws Exception {
+        mockMvc.perform(post("/actuator/reminderpolling")
+                        .with(jwt().jwt(builder -> builder.subject("test-sub")).authorities(authoritiesConverter))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"minIntervalSeconds\": 1}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/reminderpolling и /actuator/metrics обычным пользователем -> 403 Forbidden")
+    void testRead_OrdinaryUserForbidden() throws Exception {
+        mockMvc.perform(get("/actuator/reminderpolling")
+                        .with(jwt().jwt(builder -> builder.subject("test-sub")).authorities(authoritiesConverter)))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/actuator/metrics")
+                        .with(jwt().jwt(builder -> builder.subject("test-sub")).authorities(authoritiesConverter)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/reminderpolling без токена -> 401 Unauthorized")
+    void testRead_Unauthorized() throws Exception {
+        mockMvc.perform(get("/actuator/reminderpolling"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/reminderpolling пользователем из reminder.security.admin-subs -> 200 ОК")
+    void testRead_Admin() throws Exception {
+        mockMvc.perform(get("/actuator/reminderpolling")
+                        .with(jwt().jwt(builder -> builder.subject("admin-sub")).authorities(authoritiesConverter)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.minIntervalSeconds").exists());
+    }
+}
@@ -0,0 +1,102 @@
+package functional.com.patrick.reminder.controller;
+
+import com.patrick.reminder.ReminderApplication;
+import com.patrick.reminder.dto.notification.DeadLetterResponseDto;
+import com.patrick.reminder.service.notification.DeadLetterService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+// Импорт для jwt()
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+
+/**
+ * Тесты для эндпоинтов недоставленных уведомлений (DeadLetterController).
+ */
+@SpringBootTest(classes = ReminderApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DeadLetterControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DeadLetterService deadLetterService;
+
+    private static DeadLetterResponseDto deadLetter(Long id, String userSub) {
+        LocalDateTime now = LocalDateTime.now();
+        return new DeadLetterResponseDto(id, 5L, "Reminder", 8, "EMAIL", now.minusHours(3), now, userSub);
+    }
+
+    @Nested
+    class ListTests {
+
+        @Test
+        @DisplayName("GET /api/v1/notification/dead-letter/list - список пользователя (200 ОК)")
+        void testGetDeadLetters() throws Exception {
+            when(deadLetterService.getDeadLetters("test-sub"))
+                    .thenReturn(Collections.singletonList(deadLetter(1L, "test-sub")));
+
+            mockMvc.perform(get("/api/v1/notification/dead-letter/list")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(1))
+                    .andExpect(jsonPath("$[0].reminderId").value(5))
+                    .andExpect(jsonPath("$[0].failedChannels").value("EMAIL"))
+                    .andExpect(jsonPath("$[0].attempts").value(8));
+        }
+    }
+
+    @Nested
+    class ReplayTests {
+
+        @Test
+        @DisplayName("POST /api/v1/notification/dead-letter/{id}/replay - возврат в outbox (202)")
+        void testReplay_Success() throws Exception {
+            when(deadLetterService.getDeadLetter(1L)).thenReturn(deadLetter(1L, "test-sub"));
+            when(deadLetterService.replay(1L)).thenReturn(true);
+
+            mockMvc.perform(post("/api/v1/notification/dead-letter/1/replay")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build())))
+                    .andExpect(status().isAccepted());
+
+            verify(deadLetterService, times(1)).replay(1L);
+        }
+
+        @Test
+        @DisplayName("POST /api/v1/notification/dead-letter/{id}/replay - запись не найдена (404)")
+        void testReplay_NotFound() throws Exception {
+            when(deadLetterService.getDeadLetter(99L)).thenReturn(null);
+
+            mockMvc.perform(post("/api/v1/notification/dead-letter/99/replay")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build())))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("POST /api/v1/notification/dead-letter/{id}/replay - чужая запись (403)")
+        void testReplay_Forbidden() throws Exception {
+            when(deadLetterService.getDeadLetter(2L)).thenReturn(deadLetter(2L, "another-sub"));
+
+            mockMvc.perform(post("/api/v1/notification/dead-letter/2/replay")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build())))
+                    .andExpect(status().isForbidden());
+
+            verify(deadLetterService, never()).replay(anyLong());
+        }
+    }
+}
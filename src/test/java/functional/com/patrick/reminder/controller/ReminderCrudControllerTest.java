@@ -3,6 +3,7 @@ package functional.com.patrick.reminder.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.patrick.reminder.ReminderApplication;
 import com.patrick.reminder.dto.reminder.ReminderCreatetDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderUpdateDto;
 import com.patrick.reminder.service.reminder.ReminderCrudService;
@@ -14,19 +15,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.security.test.context.support.WithMockUser; // Можно удалить, если не понадобится
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -168,6 +169,42 @@ class ReminderCrudControllerTest {
                     .andExpect(jsonPath("$[0].name").value("Reminder #10"))
                     .andExpect(jsonPath("$[1].id").value(11));
         }
+
+        @Test
+        @DisplayName("GET /api/v1/reminder/list, Accept: application/x-ndjson - по напоминанию на строку (200 ОК)")
+        void testListReminders_Ndjson() throws Exception {
+            ReminderResponseDto r1 = new ReminderResponseDto();
+            r1.setId(10L);
+            r1.setName("Reminder #10");
+
+            ReminderResponseDto r2 = new ReminderResponseDto();
+            r2.setId(11L);
+            r2.setName("Reminder #11");
+
+            doAnswer(invocation -> {
+                Consumer<ReminderResponseDto> consumer = invocation.getArgument(1);
+                consumer.accept(r1);
+                consumer.accept(r2);
+                return null;
+            }).when(crudService).streamAllReminders(eq("test-sub"), any());
+
+            MvcResult result = mockMvc.perform(get("/api/v1/reminder/list")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertEquals(10L, objectMapper.readValue(lines[0], ReminderResponseDto.class).getId());
+            assertEquals(11L, objectMapper.readValue(lines[1], ReminderResponseDto.class).getId());
+            verify(crudService, never()).getAllReminders(anyString());
+        }
     }
 
     // ---------------- PAGED ----------------
@@ -175,7 +212,7 @@ class ReminderCrudControllerTest {
     class PagedRemindersTests {
 
         @Test
-        @DisplayName("GET /api/v1/reminder/paged?page=0&size=10 - возвращает страницу (200 ОК)")
+        @DisplayName("GET /api/v1/reminder/paged?size=10 - возвращает страницу (200 ОК)")
         void testPagedReminders() throws Exception {
             ReminderResponseDto r1 = new ReminderResponseDto();
             r1.setId(101L);
@@ -187,22 +224,18 @@ class ReminderCrudControllerTest {
             r2.setName("Paged #2");
             r2.setUserSub("test-sub");
 
-            Page<ReminderResponseDto> mockPage =
-                    new PageImpl<>(Arrays.asList(r1, r2), PageRequest.of(0, 10), 2);
+            ReminderPageDto mockPage = new ReminderPageDto(Arrays.asList(r1, r2), "next-cursor");
 
-            when(crudService.getRemindersPaged(eq("test-sub"), any(PageRequest.class)))
+            when(crudService.getRemindersPaged(eq("test-sub"), isNull(), eq(10)))
                     .thenReturn(mockPage);
 
             mockMvc.perform(get("/api/v1/reminder/paged")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
-                            .param("page", "0")
                             .param("size", "10"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.content[0].id").value(101))
                     .andExpect(jsonPath("$.content[1].id").value(102))
-                    .andExpect(jsonPath("$.size").value(10))
-                    .andExpect(jsonPath("$.totalElements").value(2))
-                    .andExpect(jsonPath("$.number").value(0));
+                    .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
         }
     }
 
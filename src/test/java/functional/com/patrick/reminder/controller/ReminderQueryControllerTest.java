@@ -3,9 +3,12 @@ package functional.com.patrick.reminder.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.patrick.reminder.ReminderApplication;
 import com.patrick.reminder.dto.reminder.ReminderFilterRequestDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderSearchRequestDto;
+import com.patrick.reminder.dto.reminder.ReminderSuggestionDto;
 import com.patrick.reminder.service.reminder.ReminderQueryService;
+import com.patrick.reminder.service.reminder.ReminderSuggestService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -41,6 +45,9 @@ class ReminderQueryControllerTest {
     @MockBean
     private ReminderQueryService queryService;
 
+    @MockBean
+    private ReminderSuggestService suggestService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,14 +62,47 @@ class ReminderQueryControllerTest {
             r.setName("Sorted Name");
             r.setUserSub("test-sub");
 
-            when(queryService.sortReminders("test-sub", "name"))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.sortReminders("test-sub", "name", null, 20))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/sort")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
                             .param("by", "name"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].name").value("Sorted Name"));
+                    .andExpect(jsonPath("$.content[0].name").value("Sorted Name"));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/reminder/sort?by=name&cursor=...&size=1 - следующая страница по курсору (200 ОК)")
+        void testSortReminders_NextPage() throws Exception {
+            ReminderResponseDto r = new ReminderResponseDto();
+            r.setId(3L);
+            r.setName("Second Page");
+            r.setUserSub("test-sub");
+
+            when(queryService.sortReminders("test-sub", "name", "prev-cursor", 1))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), "next-cursor"));
+
+            mockMvc.perform(get("/api/v1/reminder/sort")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
+                            .param("by", "name")
+                            .param("cursor", "prev-cursor")
+                            .param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].id").value(3))
+                    .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/reminder/sort?by=unknown - неизвестное поле или курсор (400 Bad Request)")
+        void testSortReminders_BadRequest() throws Exception {
+            when(queryService.sortReminders("test-sub", "unknown", null, 20))
+                    .thenThrow(new IllegalArgumentException("Invalid sort parameter: unknown"));
+
+            mockMvc.perform(get("/api/v1/reminder/sort")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
+                            .param("by", "unknown"))
+                    .andExpect(status().isBadRequest());
         }
     }
 
@@ -77,8 +117,8 @@ class ReminderQueryControllerTest {
             r.setName("Filtered Reminder");
             r.setUserSub("test-sub");
 
-            when(queryService.filterReminders(eq("test-sub"), any(ReminderFilterRequestDto.class)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.filterReminders(eq("test-sub"), any(ReminderFilterRequestDto.class), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/filter")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
@@ -87,8 +127,8 @@ class ReminderQueryControllerTest {
                             .param("beforeTime", "15:00")
                             .param("afterTime", "08:00"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(2))
-                    .andExpect(jsonPath("$[0].name").value("Filtered Reminder"));
+                    .andExpect(jsonPath("$.content[0].id").value(2))
+                    .andExpect(jsonPath("$.content[0].name").value("Filtered Reminder"));
         }
     }
 
@@ -106,17 +146,17 @@ class ReminderQueryControllerTest {
             r.setRemindDate(LocalDate.parse("2025-01-10"));
             r.setUserSub("test-sub");
 
-            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/search")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
                             .param("name", "test")
                             .param("remindDate", "2025-01-10"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(5))
-                    .andExpect(jsonPath("$[0].name").value("Test Reminder by Date"))
-                    .andExpect(jsonPath("$[0].remindDate").value("2025-01-10"));
+                    .andExpect(jsonPath("$.content[0].id").value(5))
+                    .andExpect(jsonPath("$.content[0].name").value("Test Reminder by Date"))
+                    .andExpect(jsonPath("$.content[0].remindDate").value("2025-01-10"));
         }
 
         @Test
@@ -129,18 +169,18 @@ class ReminderQueryControllerTest {
             r.setRemindTime(LocalTime.parse("10:00"));
             r.setUserSub("test-sub");
 
-            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/search")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
                             .param("remindDate", "2025-01-10")
                             .param("remindTime", "10:00"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(6))
-                    .andExpect(jsonPath("$[0].name").value("Test Reminder by Time"))
-                    .andExpect(jsonPath("$[0].remindDate").value("2025-01-10"))
-                    .andExpect(jsonPath("$[0].remindTime").value("10:00:00")); // Учитываем формат с секундами
+                    .andExpect(jsonPath("$.content[0].id").value(6))
+                    .andExpect(jsonPath("$.content[0].name").value("Test Reminder by Time"))
+                    .andExpect(jsonPath("$.content[0].remindDate").value("2025-01-10"))
+                    .andExpect(jsonPath("$.content[0].remindTime").value("10:00:00")); // Учитываем формат с секундами
         }
 
         @Test
@@ -153,8 +193,8 @@ class ReminderQueryControllerTest {
             r.setRemindTime(LocalTime.parse("10:00"));
             r.setUserSub("test-sub");
 
-            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/search")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
@@ -162,14 +202,68 @@ class ReminderQueryControllerTest {
                             .param("remindDate", "2025-01-10")
                             .param("remindTime", "10:00"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(7))
-                    .andExpect(jsonPath("$[0].name").value("Complete Test Reminder"))
-                    .andExpect(jsonPath("$[0].remindDate").value("2025-01-10"))
-                    .andExpect(jsonPath("$[0].remindTime").value("10:00:00")); // Учитываем формат с секундами
+                    .andExpect(jsonPath("$.content[0].id").value(7))
+                    .andExpect(jsonPath("$.content[0].name").value("Complete Test Reminder"))
+                    .andExpect(jsonPath("$.content[0].remindDate").value("2025-01-10"))
+                    .andExpect(jsonPath("$.content[0].remindTime").value("10:00:00")); // Учитываем формат с секундами
         }
     }
 
 
+    @Nested
+    class FullTextSearchTests {
+
+        @Test
+        @DisplayName("GET /api/v1/reminder/search?query=врач - полнотекстовый поиск (200 OK)")
+        void testSearchReminders_FullText() throws Exception {
+            ReminderResponseDto r = new ReminderResponseDto();
+            r.setId(8L);
+            r.setName("Записаться к врачу");
+            r.setUserSub("test-sub");
+
+            when(queryService.searchReminders(eq("test-sub"), argThat(dto -> "врач".equals(dto.getQuery())), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
+
+            mockMvc.perform(get("/api/v1/reminder/search")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
+                            .param("query", "врач"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].id").value(8));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/reminder/search?query=врач&remindDate=... - query с другими полями (400 Bad Request)")
+        void testSearchReminders_FullTextWithOtherFields() throws Exception {
+            when(queryService.searchReminders(eq("test-sub"), any(ReminderSearchRequestDto.class), isNull(), eq(20)))
+                    .thenThrow(new IllegalArgumentException("query is not combined with other search fields"));
+
+            mockMvc.perform(get("/api/v1/reminder/search")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
+                            .param("query", "врач")
+                            .param("remindDate", "2025-01-10"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    class SuggestTests {
+
+        @Test
+        @DisplayName("GET /api/v1/reminder/suggest?query=вра - подсказки: только id и название (200 OK)")
+        void testSuggest() throws Exception {
+            when(suggestService.suggest("test-sub", "вра"))
+                    .thenReturn(List.of(new ReminderSuggestionDto(8L, "Записаться к врачу")));
+
+            mockMvc.perform(get("/api/v1/reminder/suggest")
+                            .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
+                            .param("query", "вра"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(8))
+                    .andExpect(jsonPath("$[0].name").value("Записаться к врачу"))
+                    .andExpect(jsonPath("$[0].remindDate").doesNotExist());
+        }
+    }
+
     @Nested
     class SecurityTests {
         @Test
@@ -0,0 +1,135 @@
+package integration.com.patrick.reminder.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.patrick.reminder.mail.PooledJavaMailSender;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PooledJavaMailSender против локального SMTP (GreenMail) и сравнение с обычным JavaMailSenderImpl.
+ * Главное, что проверяем, — число SMTP-соединений: на Gmail каждое стоит TCP + STARTTLS + AUTH,
+ * и именно они определяют время отправки.
+ */
+class PooledJavaMailSenderIntegrationTest {
+
+    private static final int MESSAGES = 200;
+    private static final int THREADS = 4;
+    private static final int BATCH_SIZE = 20;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Test
+    void send_PooledSenderReusesConnections() throws Exception {
+        // Обычный JavaMailSenderImpl: соединение на каждый send(...)
+        JavaMailSenderImpl plain = new JavaMailSenderImpl() {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                connections.incrementAndGet();
+                return super.connectTransport();
+            }
+        };
+        configure(plain);
+        List<Runnable> plainSends = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            SimpleMailMessage message = message(i);
+            plainSends.add(() -> plain.send(message));
+        }
+        run(plainSends);
+        int plainConnections = connections.getAndSet(0);
+        assertTrue(greenMail.waitForIncomingEmail(15_000, MESSAGES));
+        greenMail.reset();
+
+        // Пул соединений + пачки писем
+        PooledJavaMailSender pooled = pooledSender();
+        List<Runnable> pooledSends = new ArrayList<>();
+        for (int from = 0; from < MESSAGES; from += BATCH_SIZE) {
+            SimpleMailMessage[] batch = new SimpleMailMessage[BATCH_SIZE];
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch[i] = message(from + i);
+            }
+            pooledSends.add(() -> pooled.send(batch));
+        }
+        run(pooledSends);
+        int pooledConnections = connections.get();
+        assertTrue(greenMail.waitForIncomingEmail(15_000, MESSAGES));
+        pooled.destroy();
+
+        assertEquals(MESSAGES, plainConnections);
+        assertTrue(pooledConnections <= THREADS, "pooled connections: " + pooledConnections);
+    }
+
+    @Test
+    void send_ServerDroppedConnection_ReconnectsAndDelivers() throws Exception {
+        PooledJavaMailSender pooled = pooledSender();
+        pooled.send(message(1));
+        assertEquals(1, pooled.getIdleConnections());
+
+        // Сервер перезапускается — соединение в пуле "протухло"
+        greenMail.reset();
+
+        pooled.send(message(2));
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 1));
+        assertEquals("Reminder 2", greenMail.getReceivedMessages()[0].getSubject());
+        assertEquals(2, connections.get());
+        pooled.destroy();
+    }
+
+    private PooledJavaMailSender pooledSender() {
+        PooledJavaMailSender pooled = new PooledJavaMailSender(THREADS, 100, 60) {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                connections.incrementAndGet();
+                return super.connectTransport();
+            }
+        };
+        configure(pooled);
+        return pooled;
+    }
+
+    private static void configure(JavaMailSenderImpl sender) {
+        sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+    }
+
+    private static SimpleMailMessage message(int i) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("reminder@example.com");
+        message.setTo("user" + i % 10 + "@example.com");
+        message.setSubject("Reminder " + i);
+        message.setText("Body " + i);
+        return message;
+    }
+
+    /**
+     * Выполняет отправки в THREADS потоков и дожидается их завершения.
+     */
+    private static void run(List<Runnable> sends) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable send : sends) {
+            futures.add(executor.submit(send));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
@@ -5,22 +5,28 @@ import com.patrick.reminder.entity.Reminder;
 import com.patrick.reminder.entity.User;
 import com.patrick.reminder.repository.ReminderRepository;
 import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.service.notification.NotificationDeliveryService;
+import com.patrick.reminder.service.notification.CatchUpState;
 import com.patrick.reminder.service.notification.NotificationService;
 import com.patrick.reminder.telegram.TelegramBotClient;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.*;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -43,6 +49,9 @@ class NotificationServiceIntegrationTest {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationDeliveryService deliveryService;
+
     @Autowired
     private ReminderRepository reminderRepository;
 
@@ -56,7 +65,7 @@ class NotificationServiceIntegrationTest {
     private TelegramBotClient telegramBotClient;
 
     @Captor
-    private ArgumentCaptor<SimpleMailMessage> mailCaptor;
+    private ArgumentCaptor<MimeMessage[]> mailCaptor;
 
     /**
      * Создаёт пользователя в базе — у него есть email и telegramId.
@@ -74,7 +83,7 @@ class NotificationServiceIntegrationTest {
 
     @Test
     @Order(1)
-    @DisplayName("checkAndSendReminders: отправляет уведомления только для 'просроченных' (remindDate+remindTime <= now), обновляет sent=true")
+    @DisplayName("enqueueDueReminders + drain: отправляет уведомления только для 'просроченных' (remindDate+remindTime <= now), обновляет sent=true")
     void testCheckAndSendReminders() {
         // Создаем двух пользователей
         User user1 = createUser("sub1", "user1@example.com", "user1_telegram");
@@ -116,23 +125,39 @@ class NotificationServiceIntegrationTest {
                 .user(user2)
                 .build();
 
-        reminderRepository.save(reminder1);
-        reminderRepository.save(reminder2);
-        reminderRepository.save(reminder3);
-        reminderRepository.save(reminder4);
+        // Сохраняем в обход ReminderCrudService, поэтому срабатывание выставляем сами
+        for (Reminder reminder : List.of(reminder1, reminder2, reminder3, reminder4)) {
+            reminder.setNextFireAt(reminder.getRemindDate().atTime(reminder.getRemindTime())
+                    .atZone(ZoneId.systemDefault()).toInstant());
+            reminderRepository.save(reminder);
+        }
+
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        when(telegramBotClient.sendMessageAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
-        // Запускаем логику отправки
-        notificationService.checkAndSendReminders();
+        // Запускаем логику отправки: скан ставит в outbox, воркер доставки разбирает его
+        notificationService.enqueueDueReminders(new CatchUpState());
+        deliveryService.drain();
 
         // Проверяем: reminder1 и reminder2 должны были быть отправлены (mail + telegram), reminder3 и reminder4 — нет
-        verify(mailSender, times(2)).send(mailCaptor.capture());
-        verify(telegramBotClient, times(2)).sendMessage(anyString(), anyString());
+        verify(mailSender, atLeastOnce()).send(mailCaptor.capture());
+        verify(telegramBotClient, times(2)).sendMessageAsync(anyString(), anyString());
 
         // Проверяем, что письма ушли конкретным адресатам
-        List<SimpleMailMessage> allMails = mailCaptor.getAllValues();
+        // Письма уходят пачками — собираем все пачки вместе
+        List<MimeMessage> allMails = mailCaptor.getAllValues().stream().flatMap(Arrays::stream).toList();
         assertThat(allMails).hasSize(2);
-        assertThat(allMails.get(0).getTo()).containsAnyOf("user1@example.com", "user2@example.com");
-        assertThat(allMails.get(1).getTo()).containsAnyOf("user1@example.com", "user2@example.com");
+        List<String> recipients = allMails.stream()
+                .map(mail -> {
+                    try {
+                        return mail.getAllRecipients()[0].toString();
+                    } catch (jakarta.mail.MessagingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+        assertThat(recipients).containsExactlyInAnyOrder("user1@example.com", "user2@example.com");
 
         // Смотрим в базе, что reminder1 и reminder2 теперь sent=true
         Reminder r1InDb = reminderRepository.findById(reminder1.getId()).orElseThrow();
@@ -145,9 +170,10 @@ class NotificationServiceIntegrationTest {
         assertThat(r3InDb.isSent()).isFalse();
         assertThat(r4InDb.isSent()).isFalse();
 
-        // Повторный вызов checkAndSendReminders() не отправит снова уже "sent" напоминания
+        // Повторный проход не отправит снова уже "sent" напоминания
         reset(mailSender, telegramBotClient);
-        notificationService.checkAndSendReminders();
+        notificationService.enqueueDueReminders(new CatchUpState());
+        deliveryService.drain();
         verifyNoInteractions(mailSender);
         verifyNoInteractions(telegramBotClient);
     }
@@ -3,6 +3,7 @@ package integration.com.patrick.reminder.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.patrick.reminder.ReminderApplication;
 import com.patrick.reminder.dto.reminder.ReminderCreatetDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderUpdateDto;
 import com.patrick.reminder.service.reminder.ReminderCrudService;
@@ -14,9 +15,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -178,22 +176,18 @@ class ReminderCrudControllerIntegrationTest {
             r2.setName("Paged #2");
             r2.setUserSub("test-sub");
 
-            Page<ReminderResponseDto> mockPage =
-                    new PageImpl<>(Arrays.asList(r1, r2), PageRequest.of(0, 10), 2);
+            ReminderPageDto mockPage = new ReminderPageDto(Arrays.asList(r1, r2), "next-cursor");
 
-            when(crudService.getRemindersPaged(eq("test-sub"), any(PageRequest.class)))
+            when(crudService.getRemindersPaged(eq("test-sub"), isNull(), eq(10)))
                     .thenReturn(mockPage);
 
             mockMvc.perform(get("/api/v1/reminder/paged")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
-                            .param("page", "0")
                             .param("size", "10"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.content[0].id").value(101))
                     .andExpect(jsonPath("$.content[1].id").value(102))
-                    .andExpect(jsonPath("$.totalElements").value(2))
-                    .andExpect(jsonPath("$.number").value(0))
-                    .andExpect(jsonPath("$.size").value(10));
+                    .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
         }
     }
 
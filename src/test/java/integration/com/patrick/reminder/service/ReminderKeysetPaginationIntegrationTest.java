@@ -0,0 +1,93 @@
+package integration.com.patrick.reminder.service;
+
+import com.patrick.reminder.ReminderApplication;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
+import com.patrick.reminder.dto.reminder.ReminderResponseDto;
+import com.patrick.reminder.entity.Reminder;
+import com.patrick.reminder.entity.User;
+import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.service.reminder.ReminderQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выдача по курсору на настоящей базе: страницы без пропусков и повторов при одинаковых ключах
+ * и ключах NULL, только напоминания текущего пользователя.
+ */
+@SpringBootTest(classes = ReminderApplication.class)
+@ActiveProfiles("test")
+@Transactional
+class ReminderKeysetPaginationIntegrationTest {
+
+    @Autowired
+    private ReminderQueryService queryService;
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        User owner = userRepository.save(User.builder().sub("owner").username("Owner").email("owner@example.com").build());
+        User other = userRepository.save(User.builder().sub("other").username("Other").email("other@example.com").build());
+
+        // Одинаковые названия и время, у двух напоминаний времени нет вовсе
+        ids.add(save(owner, "B", LocalTime.of(9, 0)));
+        ids.add(save(owner, "A", LocalTime.of(9, 0)));
+        ids.add(save(owner, "B", null));
+        ids.add(save(owner, "A", LocalTime.of(8, 0)));
+        ids.add(save(owner, "C", null));
+        save(other, "A", LocalTime.of(7, 0));
+    }
+
+    @Test
+    @DisplayName("sort by=name: порядок (name, id), чужих напоминаний нет")
+    void sortByName_PagesCoverAllInOrder() {
+        assertThat(collect("name", 2)).containsExactly(ids.get(1), ids.get(3), ids.get(0), ids.get(2), ids.get(4));
+    }
+
+    @Test
+    @DisplayName("sort by=remindTime: NULL — после остальных, курсор проходит границу")
+    void sortByTime_NullKeysLast() {
+        assertThat(collect("remindTime", 2)).containsExactly(ids.get(3), ids.get(0), ids.get(1), ids.get(2), ids.get(4));
+        assertThat(collect("remindTime", 1)).containsExactly(ids.get(3), ids.get(0), ids.get(1), ids.get(2), ids.get(4));
+    }
+
+    private List<Long> collect(String by, int size) {
+        List<Long> result = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReminderPageDto page = queryService.sortReminders("owner", by, cursor, size);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(size);
+            page.getContent().stream().map(ReminderResponseDto::getId).forEach(result::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return result;
+    }
+
+    private Long save(User user, String name, LocalTime time) {
+        return reminderRepository.save(Reminder.builder()
+                .name(name)
+                .remindTime(time)
+                .remindAt(time != null ? Instant.parse("2025-01-02T00:00:00Z").plusSeconds(time.toSecondOfDay()) : null)
+                .user(user)
+                .build()).getId();
+    }
+}
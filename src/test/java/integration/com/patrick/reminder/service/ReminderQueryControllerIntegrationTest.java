@@ -3,6 +3,7 @@ package integration.com.patrick.reminder.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.patrick.reminder.ReminderApplication;
 import com.patrick.reminder.dto.reminder.ReminderFilterRequestDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderSearchRequestDto;
 import com.patrick.reminder.service.reminder.ReminderQueryService;
@@ -52,14 +53,14 @@ class ReminderQueryControllerIntegrationTest {
             r.setName("SortedName");
             r.setUserSub("test-sub");
 
-            when(queryService.sortReminders(eq("test-sub"), eq("name")))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.sortReminders(eq("test-sub"), eq("name"), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/sort")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
                             .param("by", "name"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].name").value("SortedName"));
+                    .andExpect(jsonPath("$.content[0].name").value("SortedName"));
         }
     }
 
@@ -73,8 +74,8 @@ class ReminderQueryControllerIntegrationTest {
             r.setName("Filtered Reminder");
             r.setUserSub("test-sub");
 
-            when(queryService.filterReminders(eq("test-sub"), any(ReminderFilterRequestDto.class)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.filterReminders(eq("test-sub"), any(ReminderFilterRequestDto.class), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/filter")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
@@ -83,8 +84,8 @@ class ReminderQueryControllerIntegrationTest {
                             .param("beforeTime", "15:00")
                             .param("afterTime", "09:00"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(2))
-                    .andExpect(jsonPath("$[0].name").value("Filtered Reminder"));
+                    .andExpect(jsonPath("$.content[0].id").value(2))
+                    .andExpect(jsonPath("$.content[0].name").value("Filtered Reminder"));
         }
     }
 
@@ -105,17 +106,17 @@ class ReminderQueryControllerIntegrationTest {
             searchRequestDto.setName("test");
             searchRequestDto.setRemindDate(LocalDate.parse("2025-01-10"));
 
-            when(queryService.searchReminders(eq("test-sub"), eq(searchRequestDto)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.searchReminders(eq("test-sub"), eq(searchRequestDto), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/search")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
                             .param("name", "test")
                             .param("remindDate", "2025-01-10"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(5))
-                    .andExpect(jsonPath("$[0].name").value("Test Reminder by Date"))
-                    .andExpect(jsonPath("$[0].remindDate").value("2025-01-10"));
+                    .andExpect(jsonPath("$.content[0].id").value(5))
+                    .andExpect(jsonPath("$.content[0].name").value("Test Reminder by Date"))
+                    .andExpect(jsonPath("$.content[0].remindDate").value("2025-01-10"));
         }
 
         @Test
@@ -133,18 +134,18 @@ class ReminderQueryControllerIntegrationTest {
             searchRequestDto.setRemindDate(LocalDate.parse("2025-01-10"));
             searchRequestDto.setRemindTime(LocalTime.parse("10:00:00"));
 
-            when(queryService.searchReminders(eq("test-sub"), eq(searchRequestDto)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.searchReminders(eq("test-sub"), eq(searchRequestDto), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/search")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
                             .param("remindDate", "2025-01-10")
                             .param("remindTime", "10:00"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(6))
-                    .andExpect(jsonPath("$[0].name").value("Test Reminder by Time"))
-                    .andExpect(jsonPath("$[0].remindDate").value("2025-01-10"))
-                    .andExpect(jsonPath("$[0].remindTime").value("10:00:00"));
+                    .andExpect(jsonPath("$.content[0].id").value(6))
+                    .andExpect(jsonPath("$.content[0].name").value("Test Reminder by Time"))
+                    .andExpect(jsonPath("$.content[0].remindDate").value("2025-01-10"))
+                    .andExpect(jsonPath("$.content[0].remindTime").value("10:00:00"));
         }
 
         @Test
@@ -163,8 +164,8 @@ class ReminderQueryControllerIntegrationTest {
             searchRequestDto.setRemindDate(LocalDate.parse("2025-01-10"));
             searchRequestDto.setRemindTime(LocalTime.parse("10:00:00"));
 
-            when(queryService.searchReminders(eq("test-sub"), eq(searchRequestDto)))
-                    .thenReturn(Collections.singletonList(r));
+            when(queryService.searchReminders(eq("test-sub"), eq(searchRequestDto), isNull(), eq(20)))
+                    .thenReturn(new ReminderPageDto(Collections.singletonList(r), null));
 
             mockMvc.perform(get("/api/v1/reminder/search")
                             .with(jwt().jwt(builder -> builder.claim("sub", "test-sub").build()))
@@ -172,10 +173,10 @@ class ReminderQueryControllerIntegrationTest {
                             .param("remindDate", "2025-01-10")
                             .param("remindTime", "10:00"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].id").value(7))
-                    .andExpect(jsonPath("$[0].name").value("Complete Test Reminder"))
-                    .andExpect(jsonPath("$[0].remindDate").value("2025-01-10"))
-                    .andExpect(jsonPath("$[0].remindTime").value("10:00:00"));
+                    .andExpect(jsonPath("$.content[0].id").value(7))
+                    .andExpect(jsonPath("$.content[0].name").value("Complete Test Reminder"))
+                    .andExpect(jsonPath("$.content[0].remindDate").value("2025-01-10"))
+                    .andExpect(jsonPath("$.content[0].remindTime").value("10:00:00"));
         }
     }
 
@@ -0,0 +1,331 @@
+package integration.com.patrick.reminder.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patrick.reminder.ReminderApplication;
+import com.patrick.reminder.dto.reminder.ReminderFilterRequestDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
+import com.patrick.reminder.dto.reminder.ReminderSearchRequestDto;
+import com.patrick.reminder.service.reminder.ReminderQueryService;
+import com.patrick.reminder.service.reminder.ReminderSuggestService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Планы запросов выдачи на PostgreSQL с синтетическими данными: ни одного Seq Scan,
+ * стоимость каждого запроса — не больше бюджета.
+ * <p>
+ * SQL, который Hibernate выполняет во время вызова сервиса, перехватывается (SqlCapture) и объясняется
+ * через EXPLAIN (GENERIC_PLAN) — план с параметрами, как у подготовленного запроса. Если изменение
+ * спецификации или запроса перестанет попадать в индекс, здесь упадёт тест. Без Docker тесты пропускаются.
+ */
+@SpringBootTest(classes = ReminderApplication.class)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class ReminderQueryPlanIntegrationTest {
+
+    private static final int USERS = 2000;
+    private static final int REMINDERS_PER_USER = 100;
+    private static final String SUB = "sub-42";
+
+    // Бюджет стоимости запроса — доля стоимости чтения всей таблицы reminders
+    private static final double COST_BUDGET_SHARE = 0.1;
+
+    // EXPLAIN (GENERIC_PLAN) — с PostgreSQL 16
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static double costBudget;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", postgres::getDriverClassName);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlCapture.class::getName);
+        registry.add("reminder.search.full-text", () -> "true");
+        registry.add("reminder.suggest.trigram", () -> "true");
+    }
+
+    @Autowired
+    private ReminderQueryService queryService;
+
+    @Autowired
+    private ReminderSuggestService suggestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seed() {
+        if (costBudget > 0) {
+            return; // база одна на все тесты класса
+        }
+        jdbcTemplate.update("""
+                INSERT INTO users (username, sub, email)
+                SELECT 'User ' || u, 'sub-' || u, 'user' || u || '@example.com'
+                FROM generate_series(1, ?) u
+                """, USERS);
+        // Каждое десятое напоминание — без даты и времени, у каждого третьего нет описания
+        jdbcTemplate.update("""
+                INSERT INTO reminders (name, description, remind_date, remind_time, remind_at, sent, user_id)
+                SELECT 'Напоминание ' || n || ' ' || md5((u.id * 1000 + n)::text),
+                       CASE WHEN n % 3 = 0 THEN NULL ELSE 'Описание ' || md5(n::text) END,
+                       v.remind_date, v.remind_time, (v.remind_date + v.remind_time) AT TIME ZONE 'UTC',
+                       FALSE, u.id
+                FROM users u
+                CROSS JOIN generate_series(1, ?) n
+                CROSS JOIN LATERAL (
+                    SELECT CASE WHEN n % 10 = 0 THEN NULL
+                                ELSE DATE '2025-01-01' + ((n * 7 + u.id) % 365)::int END AS remind_date,
+                           CASE WHEN n % 10 = 0 THEN NULL
+                                ELSE TIME '00:00' + ((n * 37 + u.id) % 1440) * INTERVAL '1 minute' END AS remind_time
+                ) v
+                """, REMINDERS_PER_USER);
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE reminders");
+        costBudget = explain("SELECT * FROM reminders").get("Total Cost").asDouble() * COST_BUDGET_SHARE;
+    }
+
+    @Nested
+    class SortPlanTests {
+
+        @Test
+        @DisplayName("sort by=name: все страницы — по индексу")
+        void sortByName() {
+            assertIndexed(() -> allPages(cursor -> queryService.sortReminders(SUB, "name", cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("sort by=remindDate: все страницы, включая напоминания без даты, — по индексу")
+        void sortByRemindDate() {
+            assertIndexed(() -> allPages(cursor -> queryService.sortReminders(SUB, "remindDate", cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("sort by=remindTime: все страницы, включая напоминания без времени, — по индексу")
+        void sortByRemindTime() {
+            assertIndexed(() -> allPages(cursor -> queryService.sortReminders(SUB, "remindTime", cursor, 30)));
+        }
+    }
+
+    @Nested
+    class FilterPlanTests {
+
+        @Test
+        @DisplayName("filter: только начало интервала")
+        void filterAfter() {
+            ReminderFilterRequestDto filter = new ReminderFilterRequestDto();
+            filter.setAfterDate(LocalDate.of(2025, 6, 1));
+            filter.setAfterTime(LocalTime.of(8, 0));
+            assertIndexed(() -> allPages(cursor -> queryService.filterReminders(SUB, filter, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("filter: только конец интервала")
+        void filterBefore() {
+            ReminderFilterRequestDto filter = new ReminderFilterRequestDto();
+            filter.setBeforeDate(LocalDate.of(2025, 3, 1));
+            assertIndexed(() -> allPages(cursor -> queryService.filterReminders(SUB, filter, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("filter: интервал дат и времени")
+        void filterBetween() {
+            ReminderFilterRequestDto filter = new ReminderFilterRequestDto();
+            filter.setAfterDate(LocalDate.of(2025, 2, 1));
+            filter.setAfterTime(LocalTime.of(22, 0));
+            filter.setBeforeDate(LocalDate.of(2025, 8, 2));
+            filter.setBeforeTime(LocalTime.of(2, 0));
+            assertIndexed(() -> allPages(cursor -> queryService.filterReminders(SUB, filter, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("filter: время суток без даты")
+        void filterTimeOfDay() {
+            ReminderFilterRequestDto filter = new ReminderFilterRequestDto();
+            filter.setAfterTime(LocalTime.of(9, 0));
+            filter.setBeforeTime(LocalTime.of(18, 0));
+            assertIndexed(() -> allPages(cursor -> queryService.filterReminders(SUB, filter, cursor, 30)));
+        }
+    }
+
+    @Nested
+    class SearchPlanTests {
+
+        @Test
+        @DisplayName("search: по названию")
+        void searchByName() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setName("напоминание 1");
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("search: по описанию")
+        void searchByDescription() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setDescription("описание");
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("search: по дате")
+        void searchByDate() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setRemindDate(LocalDate.of(2025, 4, 10));
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("search: по дате и времени")
+        void searchByDateAndTime() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setRemindDate(LocalDate.of(2025, 4, 10));
+            search.setRemindTime(LocalTime.of(10, 0));
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("search: по времени без даты")
+        void searchByTime() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setRemindTime(LocalTime.of(10, 0));
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("search: по названию, описанию, дате и времени")
+        void searchByAllFields() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setName("напоминание");
+            search.setDescription("описание");
+            search.setRemindDate(LocalDate.of(2025, 4, 10));
+            search.setRemindTime(LocalTime.of(10, 0));
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("search: полнотекстовый query")
+        void searchFullText() {
+            ReminderSearchRequestDto search = new ReminderSearchRequestDto();
+            search.setQuery("напоминание");
+            assertIndexed(() -> allPages(cursor -> queryService.searchReminders(SUB, search, cursor, 30)));
+        }
+
+        @Test
+        @DisplayName("suggest: подстрока и опечатка в названии")
+        void suggest() {
+            assertIndexed(() -> suggestService.suggest(SUB, "напоминание 4"));
+            assertIndexed(() -> suggestService.suggest(SUB, "нопаминание"));
+        }
+    }
+
+    /**
+     * Выполняет call и проверяет планы всех запросов, которые он отправил в базу.
+     */
+    private void assertIndexed(Runnable call) {
+        List<String> statements = SqlCapture.capture(call);
+        assertFalse(statements.isEmpty(), "Не перехвачено ни одного запроса");
+        for (String sql : statements) {
+            JsonNode plan = explain(sql);
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(plan, seqScans);
+            assertTrue(seqScans.isEmpty(),
+                    () -> "Seq Scan по " + seqScans + ":\n" + sql + "\n" + plan.toPrettyString());
+            double cost = plan.get("Total Cost").asDouble();
+            assertTrue(cost <= costBudget,
+                    () -> "Стоимость " + cost + " больше бюджета " + costBudget + ":\n" + sql + "\n" + plan.toPrettyString());
+        }
+    }
+
+    // Проходит выдачу до конца: так в проверку попадают и запросы следующих страниц, и хвост NULL-ключей
+    private void allPages(Function<String, ReminderPageDto> page) {
+        String cursor = null;
+        do {
+            cursor = page.apply(cursor).getNextCursor();
+        } while (cursor != null);
+    }
+
+    private JsonNode explain(String sql) {
+        // Параметры JDBC (?) — нумерованные ($1, $2, ...): их типы GENERIC_PLAN выводит сам
+        StringBuilder numbered = new StringBuilder();
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++index);
+            } else {
+                numbered.append(c);
+            }
+        }
+        String json = jdbcTemplate.queryForObject("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numbered, String.class);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unexpected EXPLAIN output: " + json, e);
+        }
+    }
+
+    private static void collectSeqScans(JsonNode plan, List<String> seqScans) {
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            seqScans.add(plan.path("Relation Name").asText());
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+
+    /**
+     * Запоминает SQL, который Hibernate готовит в потоке теста во время capture(...).
+     * Запросы фоновых задач (опрос напоминаний, outbox) идут в других потоках и сюда не попадают.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = STATEMENTS.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        static List<String> capture(Runnable call) {
+            List<String> statements = new ArrayList<>();
+            STATEMENTS.set(statements);
+            try {
+                call.run();
+            } finally {
+                STATEMENTS.remove();
+            }
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package integration.com.patrick.reminder.telegram;
+
+import com.patrick.reminder.telegram.MyTelegramBot;
+import com.patrick.reminder.telegram.RateLimitedTelegramBotClient;
+import com.patrick.reminder.telegram.TelegramSendException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Отправка через RateLimitedTelegramBotClient + настоящий MyTelegramBot в локальный фейковый Bot API.
+ * Фейковый сервер сам следит за лимитами (с небольшим запасом) и отвечает 429 с retry_after при превышении,
+ * как настоящий Telegram.
+ */
+class RateLimitedTelegramBotClientIntegrationTest {
+
+    private static final String TOKEN = "TEST_TOKEN";
+    private static final Pattern CHAT_ID = Pattern.compile("\"chat_id\"\\s*:\\s*\"?([^\",}]+)");
+
+    // Лимиты клиента в тесте (меньше настоящих, чтобы тест шёл быстро)
+    private static final int CLIENT_GLOBAL_PER_SECOND = 20;
+    private static final int CLIENT_PER_CHAT_PER_SECOND = 5;
+
+    // Лимиты фейкового сервера — чуть мягче клиентских, чтобы не ловить джиттер планировщика потоков
+    private static final int SERVER_GLOBAL_PER_SECOND = 25;
+    private static final long SERVER_MIN_CHAT_GAP_MS = 150;
+
+    private HttpServer server;
+    private final Deque<Long> requestTimes = new ArrayDeque<>();
+    private final Map<String, Long> lastByChat = new HashMap<>();
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    // Принудительный ответ 429 для первых N запросов (retry_after в секундах)
+    private volatile int forcedRejections;
+    private volatile int forcedRetryAfter;
+
+    private MyTelegramBot bot;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.start();
+
+        bot = new MyTelegramBot(TOKEN, "test_bot", "http://localhost:" + server.getAddress().getPort() + "/bot", 16);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void burst_SmoothedToAllowedRate_No429() throws Exception {
+        RateLimitedTelegramBotClient client = new RateLimitedTelegramBotClient(
+                bot, CLIENT_GLOBAL_PER_SECOND, CLIENT_PER_CHAT_PER_SECOND, 1024, 5);
+
+        // 60 сообщений в 10 чатов одновременно из 16 потоков
+        ExecutorService senders = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 60; i++) {
+            String chatId = String.valueOf(100 + i % 10);
+            String text = "Reminder " + i;
+            futures.add(senders.submit(() -> client.sendMessage(chatId, text)));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        senders.shutdown();
+
+        assertEquals(60, delivered.get());
+        assertEquals(0, rejected.get(), "client must not exceed API limits");
+        // 60 сообщений при 20/с — не быстрее ~3 с, но и без лишних простоев
+        assertTrue(elapsedMs >= 2_500, "too fast: " + elapsedMs + " ms");
+        assertTrue(elapsedMs < 6_000, "too slow: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void asyncBurst_FromSingleThread_SmoothedToAllowedRate() {
+        RateLimitedTelegramBotClient client = new RateLimitedTelegramBotClient(
+                bot, CLIENT_GLOBAL_PER_SECOND, CLIENT_PER_CHAT_PER_SECOND, 1024, 5);
+
+        // Те же 60 сообщений, но все запущены из одного потока без ожидания
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 60; i++) {
+            sends.add(client.sendMessageAsync(String.valueOf(100 + i % 10), "Reminder " + i));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).orTimeout(30, TimeUnit.SECONDS).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(60, delivered.get());
+        assertEquals(0, rejected.get(), "client must not exceed API limits");
+        assertTrue(elapsedMs >= 2_500, "too fast: " + elapsedMs + " ms");
+        assertTrue(elapsedMs < 6_000, "too slow: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void retryAfter_ShortPause_WaitsAndRetries() {
+        RateLimitedTelegramBotClient client = new RateLimitedTelegramBotClient(
+                bot, CLIENT_GLOBAL_PER_SECOND, CLIENT_PER_CHAT_PER_SECOND, 1024, 5);
+        forcedRetryAfter = 1;
+        forcedRejections = 1;
+
+        long start = System.nanoTime();
+        client.sendMessage("100", "Reminder");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(2, requests.get());
+        assertEquals(1, delivered.get());
+        assertTrue(elapsedMs >= 900, "retry_after must be honored: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void retryAfter_LongPause_PropagatedForOutboxRetry() {
+        RateLimitedTelegramBotClient client = new RateLimitedTelegramBotClient(
+                bot, CLIENT_GLOBAL_PER_SECOND, CLIENT_PER_CHAT_PER_SECOND, 1024, 5);
+        forcedRetryAfter = 30;
+        forcedRejections = 1;
+
+        TelegramSendException e = assertThrows(TelegramSendException.class,
+                () -> client.sendMessage("100", "Reminder"));
+
+        assertTrue(e.isRateLimited());
+        assertEquals(30, e.getRetryAfterSeconds());
+        assertEquals(1, requests.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Matcher matcher = CHAT_ID.matcher(body);
+        String chatId = matcher.find() ? matcher.group(1) : "0";
+        requests.incrementAndGet();
+
+        Integer retryAfter = null;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            while (!requestTimes.isEmpty() && requestTimes.peekFirst() <= now - 1000) {
+                requestTimes.pollFirst();
+            }
+            Long last = lastByChat.get(chatId);
+            if (forcedRejections > 0) {
+                forcedRejections--;
+                retryAfter = forcedRetryAfter;
+            } else if (requestTimes.size() >= SERVER_GLOBAL_PER_SECOND
+                    || (last != null && now - last < SERVER_MIN_CHAT_GAP_MS)) {
+                retryAfter = 1;
+                rejected.incrementAndGet();
+            } else {
+                requestTimes.addLast(now);
+                lastByChat.put(chatId, now);
+            }
+        }
+
+        if (retryAfter != null) {
+            respond(exchange, 429, "{\"ok\":false,\"error_code\":429,"
+                    + "\"description\":\"Too Many Requests: retry after " + retryAfter + "\","
+                    + "\"parameters\":{\"retry_after\":" + retryAfter + "}}");
+        } else {
+            int messageId = delivered.incrementAndGet();
+            respond(exchange, 200, "{\"ok\":true,\"result\":{\"message_id\":" + messageId
+                    + ",\"date\":1700000000,\"chat\":{\"id\":" + chatId + ",\"type\":\"private\"},"
+                    + "\"text\":\"ok\"}}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package unit.com.patrick.reminder.quartz;
+
+import com.patrick.reminder.entity.PollingSettings;
+import com.patrick.reminder.quartz.AdaptivePollingPolicy;
+import com.patrick.reminder.repository.PollingSettingsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdaptivePollingPolicyTest {
+
+    @Mock
+    private PollingSettingsRepository settingsRepository;
+
+    private AdaptivePollingPolicy policy;
+
+    @BeforeEach
+    void setup() {
+        // Порогов в БД нет: min = 5 с, max = 300 с, пик — от 100 напоминаний за скан
+        policy = new AdaptivePollingPolicy(settingsRepository);
+    }
+
+    @Test
+    void nextInterval_Backlog_PollsAtMinInterval() {
+        assertEquals(Duration.ofSeconds(5), policy.nextInterval(100, Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void nextInterval_NextDueSoon_WaitsUntilIt() {
+        assertEquals(Duration.ofSeconds(42), policy.nextInterval(3, Duration.ofSeconds(42)));
+    }
+
+    @Test
+    void nextInterval_NextDueOverdueOrFar_ClampedToBounds() {
+        assertEquals(Duration.ofSeconds(5), policy.nextInterval(0, Duration.ofSeconds(-30)));
+        assertEquals(Duration.ofSeconds(300), policy.nextInterval(0, Duration.ofHours(8)));
+    }
+
+    @Test
+    void nextInterval_NothingPending_Heartbeat() {
+        assertEquals(Duration.ofSeconds(300), policy.nextInterval(0, null));
+        assertEquals(Duration.ofSeconds(300), policy.getLastInterval());
+    }
+
+    @Test
+    void nextInterval_ThresholdsChangedOnAnotherNode_Applied() {
+        // given: пороги записаны через эндпоинт другого узла
+        when(settingsRepository.findById(PollingSettings.SINGLETON_ID))
+                .thenReturn(Optional.of(new PollingSettings(PollingSettings.SINGLETON_ID, 2, 60, 10)));
+
+        // then
+        assertEquals(Duration.ofSeconds(2), policy.nextInterval(10, null));
+        assertEquals(Duration.ofSeconds(60), policy.nextInterval(0, Duration.ofHours(8)));
+        assertEquals(Duration.ofSeconds(2), policy.retryInterval());
+    }
+
+    @Test
+    void update_ChangesOnlyGivenThresholds() {
+        policy.update(2L, null, 10);
+
+        // пороги сохраняются в общую для кластера строку
+        ArgumentCaptor<PollingSettings> saved = ArgumentCaptor.forClass(PollingSettings.class);
+        verify(settingsRepository).save(saved.capture());
+        assertEquals(PollingSettings.SINGLETON_ID, saved.getValue().getId());
+        assertEquals(2, saved.getValue().getMinIntervalSeconds());
+        assertEquals(300, saved.getValue().getMaxIntervalSeconds());
+        assertEquals(10, saved.getValue().getBacklogThreshold());
+    }
+
+    @Test
+    void update_InvalidBounds_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> policy.update(0L, null, null));
+        assertThrows(IllegalArgumentException.class, () -> policy.update(60L, 30L, null));
+        assertThrows(IllegalArgumentException.class, () -> policy.update(null, null, 0));
+
+        // неудачное изменение ничего не трогает
+        verify(settingsRepository, never()).save(any());
+        assertEquals(5, policy.getMinIntervalSeconds());
+    }
+}
@@ -0,0 +1,106 @@
+package unit.com.patrick.reminder.quartz;
+
+import com.patrick.reminder.quartz.AdaptivePollingPolicy;
+import com.patrick.reminder.quartz.ReminderJob;
+import com.patrick.reminder.repository.PollingSettingsRepository;
+import com.patrick.reminder.service.notification.CatchUpState;
+import com.patrick.reminder.service.notification.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReminderJobTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Spy
+    private AdaptivePollingPolicy pollingPolicy = new AdaptivePollingPolicy(mock(PollingSettingsRepository.class));
+
+    @Mock
+    private JobExecutionContext context;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private ReminderJob reminderJob;
+
+    @BeforeEach
+    void setup() throws SchedulerException {
+        JobDetail jobDetail = JobBuilder.newJob(ReminderJob.class).withIdentity("reminderJob").build();
+        when(context.getJobDetail()).thenReturn(jobDetail);
+        when(context.getScheduler()).thenReturn(scheduler);
+        when(scheduler.rescheduleJob(any(TriggerKey.class), any(Trigger.class))).thenReturn(new Date());
+    }
+
+    @Test
+    void execute_ReschedulesByTimeUntilNextDue() throws Exception {
+        // given
+        when(notificationService.enqueueDueReminders(any(CatchUpState.class))).thenReturn(0);
+        when(notificationService.findNextDueAt()).thenReturn(Optional.of(Instant.now().plusSeconds(60)));
+
+        // when
+        long before = System.currentTimeMillis();
+        reminderJob.execute(context);
+
+        // then: следующий запуск — примерно через минуту, к сроку ближайшего напоминания
+        ArgumentCaptor<Trigger> next = ArgumentCaptor.forClass(Trigger.class);
+        verify(scheduler).rescheduleJob(eq(TriggerKey.triggerKey("reminderTrigger")), next.capture());
+        long delayMs = next.getValue().getStartTime().getTime() - before;
+        assertTrue(delayMs > Duration.ofSeconds(55).toMillis() && delayMs <= Duration.ofSeconds(61).toMillis());
+    }
+
+    @Test
+    void execute_CatchUpStateCarriedInJobDataBetweenRuns() throws Exception {
+        // given: каждый проход сдвигает состояние бюджета
+        when(notificationService.findNextDueAt()).thenReturn(Optional.empty());
+        List<CatchUpState> seen = new ArrayList<>();
+        when(notificationService.enqueueDueReminders(any(CatchUpState.class))).thenAnswer(invocation -> {
+            CatchUpState catchUp = invocation.getArgument(0);
+            seen.add(new CatchUpState(catchUp.getLastScanAt(), catchUp.getCarry()));
+            catchUp.advance(Instant.ofEpochMilli(1_000), 0.25);
+            return 0;
+        });
+
+        // when: два запуска (в кластере — возможно, на разных узлах) с общим JobDataMap
+        reminderJob.execute(context);
+        reminderJob.execute(context);
+
+        // then: первый — без прошлого прохода, второй продолжает с состояния первого
+        assertNull(seen.get(0).getLastScanAt());
+        assertEquals(Instant.ofEpochMilli(1_000), seen.get(1).getLastScanAt());
+        assertEquals(0.25, seen.get(1).getCarry());
+        assertTrue(ReminderJob.class.isAnnotationPresent(PersistJobDataAfterExecution.class));
+    }
+
+    @Test
+    void execute_ScanFails_StillReschedulesAtMinInterval() throws Exception {
+        // given
+        when(notificationService.enqueueDueReminders(any(CatchUpState.class))).thenThrow(new RuntimeException("DB down"));
+
+        // when
+        long before = System.currentTimeMillis();
+        assertThrows(RuntimeException.class, () -> reminderJob.execute(context));
+
+        // then: опрос не останавливается
+        ArgumentCaptor<Trigger> next = ArgumentCaptor.forClass(Trigger.class);
+        verify(scheduler).rescheduleJob(any(TriggerKey.class), next.capture());
+        long delayMs = next.getValue().getStartTime().getTime() - before;
+        assertTrue(delayMs <= Duration.ofSeconds(6).toMillis());
+    }
+}
@@ -0,0 +1,76 @@
+package unit.com.patrick.reminder.quartz;
+
+import com.patrick.reminder.quartz.TimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    // 10 ячеек по 100 мс: нижний уровень покрывает 1 секунду, дальше — overflow-уровни
+    private TimingWheel<Long> wheel;
+
+    @BeforeEach
+    void setup() {
+        wheel = new TimingWheel<>(100, 10, START);
+    }
+
+    @Test
+    void schedule_AlreadyDue_ReturnsFalse() {
+        assertFalse(wheel.schedule(1L, START - 1));
+        assertFalse(wheel.contains(1L));
+    }
+
+    @Test
+    void advance_NeverFiresBeforeExpiration() {
+        assertTrue(wheel.schedule(1L, START + 250));
+
+        assertTrue(wheel.advance(START + 249).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(START + 350));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_CascadesFromOverflowLevels() {
+        // 1 час вперёд — попадает на верхние уровни
+        long expiration = START + 3_600_000;
+        assertTrue(wheel.schedule(7L, expiration));
+
+        // идём по времени шагами, как это делает тикер
+        List<Long> fired = new ArrayList<>();
+        long now = START;
+        while (fired.isEmpty() && now <= expiration + 1_000) {
+            now += 100;
+            fired.addAll(wheel.advance(now));
+        }
+
+        assertEquals(List.of(7L), fired);
+        assertTrue(now >= expiration);
+        assertTrue(now - expiration <= 200);
+    }
+
+    @Test
+    void cancel_RemovesTimer() {
+        wheel.schedule(1L, START + 500);
+
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.cancel(1L));
+        assertTrue(wheel.advance(START + 10_000).isEmpty());
+    }
+
+    @Test
+    void schedule_SameKey_Reschedules() {
+        wheel.schedule(1L, START + 500);
+        wheel.schedule(1L, START + 5_000);
+
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(START + 1_000).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(START + 5_100));
+    }
+}
@@ -0,0 +1,103 @@
+package unit.com.patrick.reminder.recurrence;
+
+import com.patrick.reminder.recurrence.RecurrenceRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    // Понедельник
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 9, 0);
+
+    @Test
+    void weekly_WithInterval_SkipsOffWeeks() {
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH");
+
+        assertEquals(LocalDateTime.of(2025, 1, 9, 9, 0), rule.next(START, START));
+        // неделя 13-19 января пропускается
+        assertEquals(LocalDateTime.of(2025, 1, 20, 9, 0), rule.next(START, LocalDateTime.of(2025, 1, 9, 9, 0)));
+    }
+
+    @Test
+    void daily_ByDay_OnlyWeekdays() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO,TU,WE,TH,FR");
+
+        // после пятницы — понедельник
+        assertEquals(LocalDateTime.of(2025, 1, 13, 9, 0), rule.next(START, LocalDateTime.of(2025, 1, 10, 9, 0)));
+    }
+
+    @Test
+    void monthly_MissingDay_SkipsMonth() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=31");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+        // в феврале 31-го нет
+        assertEquals(LocalDateTime.of(2025, 3, 31, 9, 0), rule.next(start, start));
+    }
+
+    @Test
+    void monthly_LastDay() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=-1");
+
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0), rule.next(START, LocalDateTime.of(2025, 1, 31, 9, 0)));
+    }
+
+    @Test
+    void yearly_February29_OnlyLeapYears() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=YEARLY");
+        LocalDateTime start = LocalDateTime.of(2024, 2, 29, 9, 0);
+
+        assertEquals(LocalDateTime.of(2028, 2, 29, 9, 0), rule.next(start, start));
+    }
+
+    @Test
+    void next_FarAfterStart_ComputedWithoutIteratingPeriods() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=HOURLY;INTERVAL=5");
+
+        // ~ 87600 часов от начала
+        LocalDateTime after = LocalDateTime.of(2035, 1, 6, 9, 30);
+        LocalDateTime next = rule.next(START, after);
+        assertTrue(next.isAfter(after));
+        assertEquals(0, Duration.between(START, next).toHours() % 5);
+        assertTrue(next.isBefore(after.plusHours(5).plusMinutes(1)));
+    }
+
+    @Test
+    void until_Passed_ReturnsNull() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250107");
+
+        assertEquals(LocalDateTime.of(2025, 1, 7, 9, 0), rule.next(START, START));
+        assertNull(rule.next(START, LocalDateTime.of(2025, 1, 7, 9, 0)));
+    }
+
+    @Test
+    void first_StartInPast_SkipsMissedOccurrences() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY");
+
+        assertEquals(LocalDateTime.of(2025, 3, 2, 9, 0), rule.first(START, LocalDateTime.of(2025, 3, 1, 12, 0)));
+        // срабатывание ровно в now тоже подходит
+        assertEquals(START, rule.first(START, START));
+    }
+
+    @Test
+    void cron_WeekdaysAtNine() {
+        RecurrenceRule rule = RecurrenceRule.parse("0 0 9 * * MON-FRI");
+
+        assertEquals(LocalDateTime.of(2025, 1, 13, 9, 0), rule.next(START, LocalDateTime.of(2025, 1, 10, 9, 0)));
+    }
+
+    @Test
+    void parse_Unsupported_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=10"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=1MO"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("INTERVAL=2"));
+        // чаще раза в минуту
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("*/5 * * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("not a rule"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(" "));
+    }
+}
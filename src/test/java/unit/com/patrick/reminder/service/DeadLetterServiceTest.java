@@ -0,0 +1,69 @@
+package unit.com.patrick.reminder.service;
+
+import com.patrick.reminder.entity.NotificationDeadLetter;
+import com.patrick.reminder.entity.NotificationOutbox;
+import com.patrick.reminder.repository.NotificationDeadLetterRepository;
+import com.patrick.reminder.repository.NotificationOutboxRepository;
+import com.patrick.reminder.service.notification.DeadLetterService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceTest {
+
+    @Mock
+    private NotificationDeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @InjectMocks
+    private DeadLetterService deadLetterService;
+
+    @Test
+    void replay_ReturnsToOutboxWithFreshAttempts() {
+        // given
+        Instant fireAt = Instant.parse("2025-01-02T09:00:00Z");
+        NotificationDeadLetter deadLetter = NotificationDeadLetter.builder()
+                .id(1L).reminderId(5L).attempts(8).failedChannels("EMAIL").fireAt(fireAt)
+                .enqueuedAt(LocalDateTime.now().minusHours(3)).failedAt(LocalDateTime.now())
+                .build();
+        when(deadLetterRepository.findById(1L)).thenReturn(Optional.of(deadLetter));
+
+        // when
+        boolean result = deadLetterService.replay(1L);
+
+        // then
+        assertTrue(result);
+        ArgumentCaptor<NotificationOutbox> captor = ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals(5L, captor.getValue().getReminderId());
+        assertEquals(0, captor.getValue().getAttempts());
+        // то же срабатывание — ключи доставки совпадут, доставленные каналы не повторятся
+        assertEquals(fireAt, captor.getValue().getFireAt());
+        assertFalse(captor.getValue().getAvailableAt().isAfter(LocalDateTime.now()));
+        verify(deadLetterRepository).delete(deadLetter);
+    }
+
+    @Test
+    void replay_NotFound() {
+        // given
+        when(deadLetterRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // when
+        boolean result = deadLetterService.replay(99L);
+
+        // then
+        assertFalse(result);
+        verifyNoInteractions(outboxRepository);
+    }
+}
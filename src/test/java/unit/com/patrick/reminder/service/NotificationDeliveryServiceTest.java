@@ -0,0 +1,397 @@
+package unit.com.patrick.reminder.service;
+
+import com.patrick.reminder.entity.NotificationDeadLetter;
+import com.patrick.reminder.entity.NotificationDelivery;
+import com.patrick.reminder.entity.NotificationOutbox;
+import com.patrick.reminder.repository.NotificationDeadLetterRepository;
+import com.patrick.reminder.repository.NotificationDeliveryRepository;
+import com.patrick.reminder.repository.NotificationOutboxRepository;
+import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.projection.ReminderDispatchView;
+import com.patrick.reminder.service.notification.NotificationChannel;
+import com.patrick.reminder.service.notification.NotificationDeliveryService;
+import com.patrick.reminder.service.notification.NotificationDispatcher;
+import com.patrick.reminder.service.user.UserTimeZones;
+import com.patrick.reminder.telegram.TelegramBotClient;
+import com.patrick.reminder.template.NotificationTemplates;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDeliveryServiceTest {
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationDeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private NotificationDeliveryRepository deliveryRepository;
+
+    @Mock
+    private ReminderRepository reminderRepository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private TelegramBotClient telegramBotClient;
+
+    // Настоящий конвейер: отправки идут в его стадиях, drain() дожидается подтверждения всех порций
+    @Spy
+    private NotificationDispatcher dispatcher = new NotificationDispatcher(2, 2, 20, 50, 2, 2, 16, new SimpleMeterRegistry());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Настоящие шаблоны из src/main/resources/templates/notification
+    @Spy
+    private NotificationTemplates templates = loadTemplates();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private UserTimeZones timeZones = new UserTimeZones();
+
+    @InjectMocks
+    private NotificationDeliveryService deliveryService;
+
+    private ReminderDispatchView reminder1;
+    private ReminderDispatchView reminder2;
+
+    @BeforeEach
+    void setup() {
+        reminder1 = userReminder(1L, "First Reminder", "Desc", 1, true);
+        reminder2 = new ReminderDispatchView(2L, "Second Reminder", "Desc2",
+                LocalDate.now(), LocalTime.now().minusMinutes(1),
+                2L, "other", "other@example.com", "67890", null, null, true);
+
+        lenient().when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        lenient().when(telegramBotClient.sendMessageAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @AfterEach
+    void teardown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void drain_SendsAllChannelsAndDeletesDelivered() {
+        // given
+        NotificationOutbox entry = outboxEntry(10L, 1L);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(entry));
+        when(reminderRepository.findDispatchViews(List.of(1L))).thenReturn(List.of(reminder1));
+
+        // when
+        deliveryService.drain();
+
+        // then
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        verify(telegramBotClient, times(1)).sendMessageAsync(eq("12345"), contains("First Reminder"));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L));
+        verify(outboxRepository, never()).reschedule(any(), any());
+
+        // запись была арендована этим узлом на время отправки
+        assertNotNull(entry.getClaimedBy());
+        assertTrue(entry.getClaimedUntil().isAfter(LocalDateTime.now()));
+        assertEquals(1, meterRegistry.get("reminder.pipeline.notifications").tag("stage", "scan").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_ChannelFails_RescheduledWithBackoffAndOthersDelivered() {
+        // given: у первого напоминания падает отправка почты
+        NotificationOutbox failing = outboxEntry(10L, 1L);
+        NotificationOutbox ok = outboxEntry(11L, 2L);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(failing, ok));
+        when(reminderRepository.findDispatchViews(List.of(1L, 2L))).thenReturn(List.of(reminder1, reminder2));
+        doAnswer(invocation -> {
+            // Пачка ушла, кроме письма первого напоминания
+            Map<Object, Exception> failed = new HashMap<>();
+            for (Object message : invocation.getArguments()) {
+                if (((MimeMessage) message).getSubject().contains("First Reminder")) {
+                    failed.put(message, new MessagingException("Mailbox unavailable"));
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        LocalDateTime before = LocalDateTime.now();
+
+        // when
+        deliveryService.drain();
+
+        // then: второе доставлено и удалено, первое осталось в outbox и отложено (30 с минус jitter до 20%)
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(11L));
+        verify(outboxRepository).reschedule(eq(List.of(10L)),
+                argThat(availableAt -> availableAt.isAfter(before.plusSeconds(23))
+                        && !availableAt.isAfter(LocalDateTime.now().plusSeconds(30))));
+        verifyNoInteractions(deadLetterRepository);
+
+        // доставленные каналы записаны, письмо первого — нет: повтор отправит только его
+        ArgumentCaptor<List<NotificationDelivery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deliveryRepository).saveAll(captor.capture());
+        assertEquals(List.of("1:-:TELEGRAM", "2:-:EMAIL", "2:-:TELEGRAM"), captor.getValue().stream()
+                .map(NotificationDelivery::getIdempotencyKey)
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_ChannelAlreadyDelivered_OnlyPendingChannelSent() {
+        // given: повтор после того, как письмо этого срабатывания уже ушло, а Telegram — нет
+        Instant fireAt = Instant.parse("2025-01-02T09:00:00Z");
+        NotificationOutbox retry = outboxEntry(10L, 1L);
+        retry.setFireAt(fireAt);
+        retry.setAttempts(1);
+        String emailKey = "1:" + fireAt.toEpochMilli() + ":EMAIL";
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(retry));
+        when(reminderRepository.findDispatchViews(List.of(1L))).thenReturn(List.of(reminder1));
+        when(deliveryRepository.findDeliveredKeys(argThat(keys -> keys.contains(emailKey))))
+                .thenReturn(List.of(emailKey));
+
+        // when
+        deliveryService.drain();
+
+        // then: письмо повторно не отправлено, записан только Telegram
+        verify(mailSender, never()).send(any(MimeMessage[].class));
+        verify(telegramBotClient).sendMessageAsync(eq("12345"), contains("First Reminder"));
+        ArgumentCaptor<List<NotificationDelivery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deliveryRepository).saveAll(captor.capture());
+        NotificationDelivery delivery = captor.getValue().get(0);
+        assertEquals(1, captor.getValue().size());
+        assertEquals("1:" + fireAt.toEpochMilli() + ":TELEGRAM", delivery.getIdempotencyKey());
+        assertEquals(NotificationChannel.TELEGRAM, delivery.getChannel());
+        assertEquals(fireAt, delivery.getFireAt());
+        assertNotNull(delivery.getDeliveredAt());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L));
+        assertEquals(1, meterRegistry.get("reminder.delivery.lag").tag("channel", "telegram").timer().count());
+    }
+
+    @Test
+    void drain_TelegramFutureFails_OnlyThatReminderRescheduled() {
+        // given: асинхронная отправка в Telegram первого напоминания завершилась ошибкой
+        NotificationOutbox failing = outboxEntry(10L, 1L);
+        NotificationOutbox ok = outboxEntry(11L, 2L);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(failing, ok));
+        when(reminderRepository.findDispatchViews(List.of(1L, 2L))).thenReturn(List.of(reminder1, reminder2));
+        when(telegramBotClient.sendMessageAsync(eq("12345"), contains("First Reminder")))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Bad Request: chat not found")));
+
+        // when
+        deliveryService.drain();
+
+        // then
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(11L));
+        verify(outboxRepository).reschedule(eq(List.of(10L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_TwoOccurrencesOfOneReminder_DeliveredIndependently() {
+        // given: в порции два срабатывания одного повторяющегося напоминания, Telegram падает только для первого
+        Instant firstFire = Instant.parse("2026-07-01T12:00:00Z");
+        Instant secondFire = Instant.parse("2027-07-01T12:00:00Z");
+        NotificationOutbox first = outboxEntry(10L, 1L);
+        first.setFireAt(firstFire);
+        NotificationOutbox second = outboxEntry(11L, 1L);
+        second.setFireAt(secondFire);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(first, second));
+        when(reminderRepository.findDispatchViews(List.of(1L)))
+                .thenReturn(List.of(userReminder(1L, "Weekly Reminder", "Desc", 1, false)));
+        when(telegramBotClient.sendMessageAsync(eq("12345"), contains("2026-07-01")))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Too Many Requests")));
+
+        // when
+        deliveryService.drain();
+
+        // then: каждое срабатывание отправлено отдельно, удалено только полностью доставленное
+        verify(telegramBotClient).sendMessageAsync(eq("12345"), contains("2026-07-01"));
+        verify(telegramBotClient).sendMessageAsync(eq("12345"), contains("2027-07-01"));
+        ArgumentCaptor<MimeMessage[]> mails = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, atLeastOnce()).send(mails.capture());
+        assertEquals(2, mails.getAllValues().stream().mapToInt(batch -> batch.length).sum());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(11L));
+        verify(outboxRepository).reschedule(eq(List.of(10L)), any(LocalDateTime.class));
+
+        ArgumentCaptor<List<NotificationDelivery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deliveryRepository).saveAll(captor.capture());
+        assertEquals(List.of(
+                "1:" + firstFire.toEpochMilli() + ":EMAIL",
+                "1:" + secondFire.toEpochMilli() + ":EMAIL",
+                "1:" + secondFire.toEpochMilli() + ":TELEGRAM"), captor.getValue().stream()
+                .map(NotificationDelivery::getIdempotencyKey)
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_MaxAttemptsReached_MovedToDeadLetter() {
+        // given: последняя разрешённая попытка (max-attempts = 8), Telegram снова не доставил
+        NotificationOutbox poisoned = outboxEntry(10L, 1L);
+        poisoned.setAttempts(7);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(poisoned));
+        when(reminderRepository.findDispatchViews(List.of(1L))).thenReturn(List.of(reminder1));
+        when(telegramBotClient.sendMessageAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Forbidden: bot was blocked by the user")));
+
+        // when
+        deliveryService.drain();
+
+        // then: запись перенесена в dead letter и удалена из outbox, повтора нет
+        ArgumentCaptor<List<NotificationDeadLetter>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deadLetterRepository).saveAll(captor.capture());
+        NotificationDeadLetter deadLetter = captor.getValue().get(0);
+        assertEquals(1L, deadLetter.getReminderId());
+        assertEquals(8, deadLetter.getAttempts());
+        assertEquals("TELEGRAM", deadLetter.getFailedChannels());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L));
+        verify(outboxRepository, never()).reschedule(any(), any());
+    }
+
+    @Test
+    void drain_SameUser_OneDigestPerChannel() throws Exception {
+        // given: у пользователя два напоминания в одной порции
+        ReminderDispatchView sameUser = userReminder(3L, "Third Reminder", "Desc3", 2, true);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(outboxEntry(10L, 1L), outboxEntry(12L, 3L)));
+        when(reminderRepository.findDispatchViews(List.of(1L, 3L))).thenReturn(List.of(reminder1, sameUser));
+
+        // when
+        deliveryService.drain();
+
+        // then: одно письмо и одно сообщение Telegram на оба напоминания
+        ArgumentCaptor<MimeMessage[]> mailCaptor = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender).send(mailCaptor.capture());
+        assertEquals(1, mailCaptor.getValue().length);
+        assertEquals("Напоминания: 2", mailCaptor.getValue()[0].getSubject());
+        ArgumentCaptor<String> telegramCaptor = ArgumentCaptor.forClass(String.class);
+        verify(telegramBotClient, times(1)).sendMessageAsync(eq("12345"), telegramCaptor.capture());
+        String digest = telegramCaptor.getValue();
+        assertTrue(digest.startsWith("Напоминания (2):"));
+        assertTrue(digest.indexOf("Third Reminder") < digest.indexOf("First Reminder"), "digest is ordered by time");
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L, 12L));
+    }
+
+    @Test
+    void drain_DigestDisabled_MessagePerReminder() {
+        // given: пользователь отказался от сводок
+        ReminderDispatchView first = userReminder(1L, "First Reminder", "Desc", 1, false);
+        ReminderDispatchView sameUser = userReminder(3L, "Third Reminder", "Desc3", 2, false);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(outboxEntry(10L, 1L), outboxEntry(12L, 3L)));
+        when(reminderRepository.findDispatchViews(List.of(1L, 3L))).thenReturn(List.of(first, sameUser));
+
+        // when
+        deliveryService.drain();
+
+        // then
+        verify(telegramBotClient, times(2)).sendMessageAsync(eq("12345"), anyString());
+        ArgumentCaptor<MimeMessage[]> mailCaptor = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, atLeastOnce()).send(mailCaptor.capture());
+        assertEquals(2, mailCaptor.getAllValues().stream().mapToInt(batch -> batch.length).sum());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L, 12L));
+    }
+
+    @Test
+    void drain_MissedSummary_SentSeparatelyWithCount() {
+        // given: сводка пропущенных (заменяет 42 напоминания) и обычное напоминание того же пользователя
+        NotificationOutbox summary = outboxEntry(10L, 1L);
+        summary.setMissedCount(42);
+        ReminderDispatchView sameUser = userReminder(3L, "Third Reminder", "Desc3", 2, true);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(summary, outboxEntry(12L, 3L)));
+        when(reminderRepository.findDispatchViews(List.of(1L, 3L))).thenReturn(List.of(reminder1, sameUser));
+
+        // when
+        deliveryService.drain();
+
+        // then: сводка не смешивается с обычным сообщением
+        ArgumentCaptor<String> telegramCaptor = ArgumentCaptor.forClass(String.class);
+        verify(telegramBotClient, times(2)).sendMessageAsync(eq("12345"), telegramCaptor.capture());
+        String missed = telegramCaptor.getAllValues().stream()
+                .filter(text -> text.contains("пропущено напоминаний: 42"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(missed.contains("First Reminder"));
+        assertFalse(missed.contains("Third Reminder"));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L, 12L));
+    }
+
+    @Test
+    void drain_ReminderDeleted_EntryRemovedWithoutSending() {
+        // given
+        NotificationOutbox orphan = outboxEntry(10L, 1L);
+        when(outboxRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(orphan));
+        when(reminderRepository.findDispatchViews(List.of(1L))).thenReturn(Collections.emptyList());
+
+        // when
+        deliveryService.drain();
+
+        // then
+        verifyNoInteractions(mailSender, telegramBotClient);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L));
+    }
+
+    private static NotificationTemplates loadTemplates() {
+        NotificationTemplates templates = new NotificationTemplates();
+        templates.start();
+        return templates;
+    }
+
+    /**
+     * Напоминание пользователя 1 (user@example.com, Telegram 12345), сработавшее minutesAgo минут назад.
+     */
+    private static ReminderDispatchView userReminder(Long id, String name, String description,
+                                                     int minutesAgo, boolean digestEnabled) {
+        return new ReminderDispatchView(id, name, description,
+                LocalDate.now(), LocalTime.now().minusMinutes(minutesAgo),
+                1L, "user", "user@example.com", "12345", null, null, digestEnabled);
+    }
+
+    private static NotificationOutbox outboxEntry(Long id, Long reminderId) {
+        LocalDateTime now = LocalDateTime.now();
+        return NotificationOutbox.builder()
+                .id(id)
+                .reminderId(reminderId)
+                .createdAt(now)
+                .availableAt(now)
+                .attempts(0)
+                .build();
+    }
+}
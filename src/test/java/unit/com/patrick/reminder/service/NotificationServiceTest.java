@@ -2,24 +2,34 @@ package unit.com.patrick.reminder.service;
 
 import com.patrick.reminder.entity.Reminder;
 import com.patrick.reminder.entity.User;
+import com.patrick.reminder.repository.NotificationOutboxRepository;
 import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.projection.ReminderRecurrence;
+import com.patrick.reminder.service.notification.CatchUpOrder;
+import com.patrick.reminder.service.notification.CatchUpState;
 import com.patrick.reminder.service.notification.NotificationService;
-import com.patrick.reminder.telegram.TelegramBotClient;
+import com.patrick.reminder.service.user.UserTimeZones;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.util.Arrays;
+import java.time.*;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.LongStream;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+/**
+ * Тесты сканера: обнаружение "созревших" напоминаний и постановка их в outbox.
+ * Сама доставка проверяется в NotificationDeliveryServiceTest.
+ */
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
 
@@ -27,16 +37,19 @@ class NotificationServiceTest {
     private ReminderRepository reminderRepository;
 
     @Mock
-    private JavaMailSender mailSender;
+    private NotificationOutboxRepository outboxRepository;
 
-    @Mock
-    private TelegramBotClient telegramBotClient;
+    // Настоящий TransactionTemplate поверх мок-менеджера транзакций: просто выполняет callback
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private UserTimeZones timeZones = new UserTimeZones();
 
     @InjectMocks
     private NotificationService notificationService;
 
     private Reminder dueReminder; // reminder, который "пора"
-    private Reminder futureReminder; // reminder, который ещё не пора
 
     @BeforeEach
     void setup() {
@@ -48,57 +61,250 @@ class NotificationServiceTest {
         dueReminder = new Reminder();
         dueReminder.setId(1L);
         dueReminder.setName("Due Reminder");
-        dueReminder.setDescription("Desc");
         dueReminder.setRemindDate(LocalDate.now()); // сегодня
         dueReminder.setRemindTime(LocalTime.now().minusMinutes(1)); // уже пора
         dueReminder.setSent(false);
         dueReminder.setUser(user);
+    }
+
+    @Test
+    void enqueueDueReminders_EnqueuesClaimedAndMarksFired() {
+        // given: захват уже отфильтровал "созревшие" напоминания
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), anyInt()))
+                .thenReturn(List.of(dueReminder.getId()), Collections.emptyList());
+
+        // when
+        notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: INSERT ... SELECT в outbox и UPDATE next_fire_at для той же порции в транзакции захвата
+        verify(outboxRepository).enqueue(eq(List.of(1L)), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(reminderRepository).markFired(List.of(1L));
+        verify(reminderRepository, never()).save(any(Reminder.class));
+        // живые и просроченные — в своих транзакциях
+        verify(transactionTemplate, times(2)).execute(any());
 
-        futureReminder = new Reminder();
-        futureReminder.setId(2L);
-        futureReminder.setName("Future Reminder");
-        futureReminder.setDescription("Desc2");
-        futureReminder.setRemindDate(LocalDate.now().plusDays(1)); // завтра
-        futureReminder.setRemindTime(LocalTime.now());
-        futureReminder.setSent(false);
-        futureReminder.setUser(user);
+        // порция неполная -> следующую не захватываем
+        verify(reminderRepository, times(1)).claimDueBatch(any(), any(), eq(500));
     }
 
     @Test
-    void checkAndSendReminders_SendsOnlyDue() {
+    void enqueueDueReminders_NothingDue_NoEnqueue() {
         // given
-        when(reminderRepository.findAll()).thenReturn(Arrays.asList(dueReminder, futureReminder));
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), anyInt()))
+                .thenReturn(Collections.emptyList());
 
         // when
-        notificationService.checkAndSendReminders();
+        notificationService.enqueueDueReminders(new CatchUpState());
 
         // then
-        // Ожидаем, что mailSender + telegramBotClient вызваны для dueReminder
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
-        verify(telegramBotClient, times(1)).sendMessage(eq("12345"), contains("Due Reminder"));
+        verify(outboxRepository, never()).enqueue(any(), any(), any());
+        verify(reminderRepository, never()).markFired(any());
+    }
+
+    @Test
+    void enqueueDueReminders_FullBatch_ClaimsNextBatch() {
+        // given: размер порции = 1, первая порция полная -> захватываем ещё раз
+        ReflectionTestUtils.setField(notificationService, "batchSize", 1);
+
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(1)))
+                .thenReturn(List.of(1L), List.of(2L), Collections.emptyList());
+
+        // when
+        int enqueued = notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: каждая порция — в своей транзакции (три живых и одна пустая просроченных)
+        assertEquals(2, enqueued);
+        verify(reminderRepository).markFired(List.of(1L));
+        verify(reminderRepository).markFired(List.of(2L));
+        verify(transactionTemplate, times(4)).execute(any());
+    }
 
-        // futureReminder "завтра" -> не должно отправляться
-        verify(telegramBotClient, never()).sendMessage(eq("12345"), contains("Future Reminder"));
+    @Test
+    void enqueueReminders_EnqueuesOnlyClaimedIds() {
+        // given: колесо таймеров передало три id, но захватить удалось только один
+        // (остальные уже отправлены, ещё не "созрели" или заняты другим узлом)
+        when(reminderRepository.claimDueByIds(eq(List.of(1L, 2L, 3L)), any(Instant.class)))
+                .thenReturn(List.of(1L));
+
+        // when
+        notificationService.enqueueReminders(List.of(1L, 2L, 3L));
 
-        // сохранение isSent(true) только для dueReminder
-        verify(reminderRepository).save(argThat(r -> r.getId() == 1L && r.isSent()));
-        verify(reminderRepository, never()).save(argThat(r -> r.getId() == 2L));
+        // then
+        verify(outboxRepository).enqueue(eq(List.of(1L)), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(reminderRepository).markFired(List.of(1L));
     }
 
     @Test
-    void checkAndSendReminders_AlreadySent_NoResend() {
+    void enqueueReminders_NothingClaimed_NoEnqueue() {
         // given
-        dueReminder.setSent(true); // уже отправлено
-        when(reminderRepository.findAll()).thenReturn(List.of(dueReminder));
+        when(reminderRepository.claimDueByIds(any(), any(Instant.class)))
+                .thenReturn(Collections.emptyList());
 
         // when
-        notificationService.checkAndSendReminders();
+        notificationService.enqueueReminders(List.of(2L));
 
         // then
-        // никакой отправки почты/телеграм не будет
-        verify(mailSender, never()).send(any(SimpleMailMessage.class));
-        verify(telegramBotClient, never()).sendMessage(anyString(), anyString());
-        // и reminderRepository.save() не вызывается, т. к. уже sent
-        verify(reminderRepository, never()).save(any(Reminder.class));
+        verify(outboxRepository, never()).enqueue(any(), any(), any());
+        verify(reminderRepository, never()).markFired(any());
+    }
+
+    @Test
+    void enqueueDueReminders_Recurring_AdvancesNextFireGroupedByTime() {
+        // given: два напоминания по будням в 9:00 по Москве и одно, повторения которого закончились
+        ZoneId moscow = ZoneId.of("Europe/Moscow");
+        LocalDate monday = LocalDate.now().plusWeeks(1).with(DayOfWeek.MONDAY);
+        Instant fired = monday.atTime(9, 0).atZone(moscow).toInstant();
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), anyInt()))
+                .thenReturn(List.of(1L, 2L, 3L), Collections.emptyList());
+        when(reminderRepository.findRecurrences(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new ReminderRecurrence(1L, "FREQ=DAILY;BYDAY=MO,TU,WE,TH,FR", monday, LocalTime.of(9, 0),
+                        fired, "Europe/Moscow"),
+                new ReminderRecurrence(2L, "RRULE:FREQ=DAILY;BYDAY=MO,TU,WE,TH,FR", monday.minusWeeks(3),
+                        LocalTime.of(9, 0), fired, "Europe/Moscow"),
+                new ReminderRecurrence(3L, "FREQ=DAILY;UNTIL=20200101", LocalDate.of(2019, 1, 1),
+                        LocalTime.of(9, 0), fired, null)));
+
+        // when
+        notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: разовые помечены отправленными, повторяющиеся сдвинуты на вторник двумя UPDATE
+        verify(reminderRepository).markFired(List.of(1L, 2L, 3L));
+        verify(reminderRepository).rescheduleFire(List.of(1L, 2L),
+                monday.plusDays(1).atTime(9, 0).atZone(moscow).toInstant(), false);
+        verify(reminderRepository).rescheduleFire(List.of(3L), null, true);
+        verifyNoMoreInteractions(ignoreStubs(reminderRepository));
+    }
+
+    @Test
+    void enqueueDueReminders_Recurring_KeepsLocalTimeAcrossDstChange() {
+        // given: ежедневно в 9:00 по Берлину; 31 марта 2030 — переход на летнее время
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        Instant fired = LocalDateTime.of(2030, 3, 30, 9, 0).atZone(berlin).toInstant();
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), anyInt()))
+                .thenReturn(List.of(1L), Collections.emptyList());
+        when(reminderRepository.findRecurrences(List.of(1L))).thenReturn(List.of(new ReminderRecurrence(
+                1L, "FREQ=DAILY", LocalDate.of(2030, 1, 1), LocalTime.of(9, 0), fired, "Europe/Berlin")));
+
+        // when
+        notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: 9:00 по местному времени, то есть через 23 часа
+        Instant next = Instant.parse("2030-03-31T07:00:00Z");
+        verify(reminderRepository).rescheduleFire(List.of(1L), next, false);
+        assertEquals(Duration.ofHours(23), Duration.between(fired, next));
+    }
+
+    @Test
+    void enqueueDueReminders_Overdue_LimitedByBudgetWithLiveShare() {
+        // given: 10 в секунду за 10 секунд — ёмкость 100, из них просроченным не больше 75;
+        // живых 30 — просроченным остаётся 70
+        ReflectionTestUtils.setField(notificationService, "catchUpRatePerSecond", 10.0);
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(500)))
+                .thenReturn(ids(1, 30));
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(70)))
+                .thenReturn(ids(101, 170));
+
+        // when
+        int enqueued = notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: просроченные захвачены одной порцией ровно по бюджету, следующая — в следующем проходе
+        assertEquals(100, enqueued);
+        ArgumentCaptor<Instant> from = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> to = ArgumentCaptor.forClass(Instant.class);
+        verify(reminderRepository, times(2)).claimDueBatch(from.capture(), to.capture(), anyInt());
+        // окно живых — lag-seconds до начала прохода, просроченные — всё, что раньше
+        assertEquals(Duration.ofSeconds(600), Duration.between(from.getAllValues().get(0), to.getAllValues().get(0)));
+        assertEquals(from.getAllValues().get(0), to.getAllValues().get(1));
+        verify(reminderRepository, never()).claimDueBatchNewestFirst(any(), any(), anyInt());
+    }
+
+    @Test
+    void enqueueDueReminders_PreviousScanOnAnotherNode_BudgetCountsFromIt() {
+        // given: прошлый проход (на любом узле) был 2 секунды назад — ёмкость 20, просроченным 15 плюс остаток 0.5
+        ReflectionTestUtils.setField(notificationService, "catchUpRatePerSecond", 10.0);
+        CatchUpState catchUp = new CatchUpState(Instant.now().minusSeconds(2), 0.5);
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(500)))
+                .thenReturn(Collections.emptyList());
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(15)))
+                .thenReturn(ids(101, 115));
+
+        // when
+        int enqueued = notificationService.enqueueDueReminders(catchUp);
+
+        // then: состояние сдвинуто на этот проход, дробный остаток сохранён для следующего
+        assertEquals(15, enqueued);
+        assertTrue(Duration.between(catchUp.getLastScanAt(), Instant.now()).toSeconds() < 1);
+        assertEquals(0.5, catchUp.getCarry(), 0.01);
+    }
+
+    @Test
+    void enqueueDueReminders_LiveFromTimingWheelTakeCapacity_OverdueWaits() {
+        // given: колесо таймеров уже поставило 100 живых — вся ёмкость прохода (10 в секунду за 10 секунд)
+        ReflectionTestUtils.setField(notificationService, "catchUpRatePerSecond", 10.0);
+        when(reminderRepository.claimDueByIds(any(), any(Instant.class))).thenReturn(ids(1, 100));
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(500)))
+                .thenReturn(Collections.emptyList());
+        notificationService.enqueueReminders(ids(1, 100));
+
+        // when
+        int enqueued = notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: просроченные в этом проходе не захватываются
+        assertEquals(0, enqueued);
+        verify(reminderRepository, times(1)).claimDueBatch(any(), any(), anyInt());
+    }
+
+    @Test
+    void enqueueDueReminders_StaleCollapsedIntoSummaries_CountedPerUser() {
+        // given: опоздавшие больше чем на час сворачиваются; бюджет просроченных — 75 сообщений
+        ReflectionTestUtils.setField(notificationService, "catchUpRatePerSecond", 10.0);
+        ReflectionTestUtils.setField(notificationService, "staleAfterMinutes", 60L);
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(500)))
+                .thenReturn(Collections.emptyList());
+        // три давно просроченных напоминания двух пользователей — две сводки
+        when(reminderRepository.claimStaleBatch(any(Instant.class), eq(75))).thenReturn(List.of(5L, 6L, 7L));
+        when(outboxRepository.enqueueMissedSummary(eq(List.of(5L, 6L, 7L)), any(LocalDateTime.class))).thenReturn(2);
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(73)))
+                .thenReturn(List.of(8L));
+
+        // when
+        int enqueued = notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: сводки заняли два места бюджета, остальные просроченные — после них
+        assertEquals(4, enqueued);
+        verify(reminderRepository).markFired(List.of(5L, 6L, 7L));
+        verify(outboxRepository, never()).enqueue(eq(List.of(5L, 6L, 7L)), any(), any());
+        verify(outboxRepository).enqueue(eq(List.of(8L)), any(LocalDateTime.class), any(LocalDateTime.class));
+
+        ArgumentCaptor<Instant> staleBefore = ArgumentCaptor.forClass(Instant.class);
+        verify(reminderRepository).claimStaleBatch(staleBefore.capture(), eq(75));
+        ArgumentCaptor<Instant> from = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> to = ArgumentCaptor.forClass(Instant.class);
+        verify(reminderRepository, times(2)).claimDueBatch(from.capture(), to.capture(), anyInt());
+        // обычные просроченные — только моложе границы сводки
+        assertEquals(staleBefore.getValue(), from.getAllValues().get(1));
+        assertEquals(Duration.ofMinutes(60), Duration.between(staleBefore.getValue(), to.getAllValues().get(0)));
+    }
+
+    @Test
+    void enqueueDueReminders_NewestFirst_ClaimsOverdueFromNewest() {
+        // given
+        ReflectionTestUtils.setField(notificationService, "catchUpOrder", CatchUpOrder.NEWEST_FIRST);
+        when(reminderRepository.claimDueBatch(any(Instant.class), any(Instant.class), eq(500)))
+                .thenReturn(Collections.emptyList());
+        when(reminderRepository.claimDueBatchNewestFirst(any(Instant.class), any(Instant.class), eq(150)))
+                .thenReturn(List.of(9L));
+
+        // when
+        int enqueued = notificationService.enqueueDueReminders(new CatchUpState());
+
+        // then: бюджет по умолчанию — 20 в секунду за 10 секунд без доли живых
+        assertEquals(1, enqueued);
+        verify(reminderRepository).markFired(List.of(9L));
+        verify(reminderRepository, times(1)).claimDueBatch(any(), any(), anyInt());
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
     }
 }
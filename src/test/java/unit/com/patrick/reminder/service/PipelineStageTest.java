@@ -0,0 +1,109 @@
+package unit.com.patrick.reminder.service;
+
+import com.patrick.reminder.service.notification.PipelineStage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PipelineStage<Integer> stage;
+
+    @AfterEach
+    void teardown() {
+        stage.stop();
+    }
+
+    @Test
+    void put_QueueFull_BlocksUntilStageCatchesUp() throws Exception {
+        // given: один обработчик занят, в очереди (ёмкость 1) уже есть задача
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stage = stage(1, task -> {
+            started.countDown();
+            await(release);
+        });
+        stage.put(1);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        stage.put(2);
+
+        // when
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> stage.put(3));
+
+        // then: производитель ждёт, пока стадия не освободит место
+        Thread.sleep(200);
+        assertFalse(blocked.isDone());
+        assertEquals(1, registry.get("reminder.pipeline.queue.depth").tag("stage", "test").gauge().value());
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        assertEquals(1, registry.get("reminder.pipeline.backpressure").tag("stage", "test").timer().count());
+    }
+
+    @Test
+    void handlerFails_WorkerKeepsProcessing() throws Exception {
+        // given
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        stage = stage(4, task -> {
+            done.countDown();
+            if (task == 1) {
+                throw new IllegalStateException("boom");
+            }
+            processed.add(task);
+        });
+
+        // when
+        stage.put(1);
+        stage.put(2);
+
+        // then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2), processed);
+    }
+
+    @Test
+    void metrics_CountProcessedNotifications() throws Exception {
+        // given: вес задачи — само число
+        CountDownLatch done = new CountDownLatch(3);
+        stage = new PipelineStage<>("test", 4, 2, task -> done.countDown(), task -> task, registry);
+
+        // when
+        stage.put(10);
+        stage.put(20);
+        stage.put(30);
+
+        // then: счётчики обновляются после обработки — дожидаемся последнего
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("reminder.pipeline.stage").tag("stage", "test").timer().count() < 3
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, registry.get("reminder.pipeline.stage").tag("stage", "test").timer().count());
+        assertEquals(60, registry.get("reminder.pipeline.notifications").tag("stage", "test").counter().count());
+        assertEquals(4, registry.get("reminder.pipeline.queue.capacity").tag("stage", "test").gauge().value());
+    }
+
+    private PipelineStage<Integer> stage(int capacity, Consumer<Integer> handler) {
+        return new PipelineStage<>("test", capacity, 1, handler, task -> 1, registry);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
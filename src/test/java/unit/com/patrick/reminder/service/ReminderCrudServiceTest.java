@@ -6,19 +6,26 @@ import com.patrick.reminder.dto.reminder.ReminderUpdateDto;
 import com.patrick.reminder.entity.Reminder;
 import com.patrick.reminder.entity.User;
 import com.patrick.reminder.mapper.ReminderMapper;
+import com.patrick.reminder.quartz.ReminderTimingWheel;
 import com.patrick.reminder.repository.ReminderRepository;
 import com.patrick.reminder.repository.UserRepository;
 import com.patrick.reminder.service.reminder.ReminderCrudService;
+import com.patrick.reminder.service.reminder.ReminderSuggestService;
+import com.patrick.reminder.service.user.UserTimeZones;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +42,15 @@ class ReminderCrudServiceTest {
     @Mock
     private ReminderMapper reminderMapper;
 
+    @Mock
+    private ReminderTimingWheel timingWheel;
+
+    @Mock
+    private ReminderSuggestService suggestService;
+
+    @Spy
+    private UserTimeZones timeZones = new UserTimeZones();
+
     @InjectMocks
     private ReminderCrudService reminderCrudService;
 
@@ -85,6 +101,77 @@ class ReminderCrudServiceTest {
 
         verify(reminderRepository, times(1)).save(mockReminder);
         verify(userRepository, times(1)).findBySub("test-sub");
+        // новое напоминание передаётся в колесо таймеров
+        verify(timingWheel, times(1)).schedule(mockReminder);
+    }
+
+    @Test
+    void createReminder_Recurring_ArmsFirstOccurrenceAfterNow() {
+        // given: ежедневно с 1 января 2025 в 10:00 — первое срабатывание уже в будущем, не в прошлом
+        ReminderCreatetDto createDto = new ReminderCreatetDto();
+        createDto.setRecurrence("FREQ=DAILY");
+
+        Reminder mockReminder = new Reminder();
+        mockReminder.setRemindDate(LocalDate.of(2025, 1, 1));
+        mockReminder.setRemindTime(LocalTime.of(10, 0));
+        mockReminder.setRecurrence("FREQ=DAILY");
+
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderMapper.toEntity(eq(createDto), eq(testUser))).thenReturn(mockReminder);
+        when(reminderRepository.save(mockReminder)).thenReturn(mockReminder);
+
+        // when
+        reminderCrudService.createReminder("test-sub", createDto);
+
+        // then: пояс пользователя не задан — время по поясу по умолчанию
+        assertNotNull(mockReminder.getNextFireAt());
+        LocalDateTime nextFireAt = LocalDateTime.ofInstant(mockReminder.getNextFireAt(), ZoneId.systemDefault());
+        assertEquals(LocalTime.of(10, 0), nextFireAt.toLocalTime());
+        assertTrue(nextFireAt.isAfter(LocalDateTime.now().minusMinutes(1)));
+        assertTrue(nextFireAt.isBefore(LocalDateTime.now().plusDays(1)));
+        assertEquals(LocalDate.of(2025, 1, 1).atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant(),
+                mockReminder.getRemindAt());
+        assertFalse(mockReminder.isSent());
+    }
+
+    @Test
+    void createReminder_UserTimeZone_RemindAtIsLocalTimeOfUser() {
+        // given
+        testUser.setTimeZone("Asia/Tokyo");
+        ReminderCreatetDto createDto = new ReminderCreatetDto();
+        Reminder mockReminder = new Reminder();
+        mockReminder.setRemindDate(LocalDate.of(2030, 1, 1));
+        mockReminder.setRemindTime(LocalTime.of(10, 0));
+        mockReminder.setUser(testUser);
+
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderMapper.toEntity(eq(createDto), eq(testUser))).thenReturn(mockReminder);
+        when(reminderRepository.save(mockReminder)).thenReturn(mockReminder);
+
+        // when
+        reminderCrudService.createReminder("test-sub", createDto);
+
+        // then: 10:00 в Токио — 01:00 UTC
+        assertEquals(Instant.parse("2030-01-01T01:00:00Z"), mockReminder.getRemindAt());
+        assertEquals(mockReminder.getRemindAt(), mockReminder.getNextFireAt());
+    }
+
+    @Test
+    void createReminder_InvalidRecurrence_ThrowsAndDoesNotSave() {
+        // given
+        ReminderCreatetDto createDto = new ReminderCreatetDto();
+        Reminder mockReminder = new Reminder();
+        mockReminder.setRemindDate(LocalDate.of(2025, 1, 1));
+        mockReminder.setRemindTime(LocalTime.of(10, 0));
+        mockReminder.setRecurrence("FREQ=SECONDLY");
+
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderMapper.toEntity(eq(createDto), eq(testUser))).thenReturn(mockReminder);
+
+        // when & then
+        assertThrows(IllegalArgumentException.class, () ->
+                reminderCrudService.createReminder("test-sub", createDto));
+        verify(reminderRepository, never()).save(any());
     }
 
     @Test
@@ -159,6 +246,44 @@ class ReminderCrudServiceTest {
         assertEquals(2L, list.get(1).getId());
     }
 
+    @Test
+    void streamAllReminders_EachMappedThenDetached() {
+        // given
+        EntityManager entityManager = mock(EntityManager.class);
+        ReflectionTestUtils.setField(reminderCrudService, "entityManager", entityManager);
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+
+        Reminder r1 = new Reminder();
+        r1.setId(1L);
+        Reminder r2 = new Reminder();
+        r2.setId(2L);
+
+        boolean[] closed = {false};
+        when(reminderRepository.streamByUserId(11L)).thenReturn(Stream.of(r1, r2).onClose(() -> closed[0] = true));
+
+        ReminderResponseDto dto1 = new ReminderResponseDto();
+        dto1.setId(1L);
+        ReminderResponseDto dto2 = new ReminderResponseDto();
+        dto2.setId(2L);
+
+        when(reminderMapper.toResponseDto(r1)).thenReturn(dto1);
+        when(reminderMapper.toResponseDto(r2)).thenReturn(dto2);
+
+        // when
+        List<ReminderResponseDto> written = new ArrayList<>();
+        reminderCrudService.streamAllReminders("test-sub", written::add);
+
+        // then
+        assertEquals(List.of(dto1, dto2), written);
+        InOrder inOrder = inOrder(reminderMapper, entityManager);
+        inOrder.verify(reminderMapper).toResponseDto(r1);
+        inOrder.verify(entityManager).detach(r1);
+        inOrder.verify(reminderMapper).toResponseDto(r2);
+        inOrder.verify(entityManager).detach(r2);
+        assertTrue(closed[0]); // курсор БД закрыт
+        verify(reminderRepository, never()).findByUserId(anyLong());
+    }
+
     @Test
     void updateReminder_FoundAndUpdated() {
         // given
@@ -221,6 +346,7 @@ class ReminderCrudServiceTest {
         // given
         Reminder existing = new Reminder();
         existing.setId(88L);
+        existing.setUser(testUser);
 
         when(reminderRepository.findById(88L)).thenReturn(Optional.of(existing));
 
@@ -230,6 +356,9 @@ class ReminderCrudServiceTest {
         // then
         assertTrue(success);
         verify(reminderRepository, times(1)).deleteById(88L);
+        verify(timingWheel, times(1)).cancel(88L);
+        // Удалённое название не должно остаться в подсказках
+        verify(suggestService, times(1)).evict("test-sub");
     }
 
     @Test
@@ -1,6 +1,7 @@
 package unit.com.patrick.reminder.service;
 
 import com.patrick.reminder.dto.reminder.ReminderFilterRequestDto;
+import com.patrick.reminder.dto.reminder.ReminderPageDto;
 import com.patrick.reminder.dto.reminder.ReminderResponseDto;
 import com.patrick.reminder.dto.reminder.ReminderSearchRequestDto;
 import com.patrick.reminder.entity.Reminder;
@@ -8,14 +9,21 @@ import com.patrick.reminder.entity.User;
 import com.patrick.reminder.mapper.ReminderMapper;
 import com.patrick.reminder.repository.ReminderRepository;
 import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.repository.keyset.ReminderCursor;
+import com.patrick.reminder.repository.keyset.ReminderKeysetPage;
+import com.patrick.reminder.repository.keyset.ReminderSortKey;
+import com.patrick.reminder.repository.projection.ReminderSearchHit;
 import com.patrick.reminder.service.reminder.ReminderQueryService;
+import com.patrick.reminder.service.user.UserTimeZones;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
@@ -36,6 +44,9 @@ class ReminderQueryServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private UserTimeZones timeZones = new UserTimeZones();
+
     @InjectMocks
     private ReminderQueryService queryService;
 
@@ -51,6 +62,8 @@ class ReminderQueryServiceTest {
     @Test
     void sortReminders_SimpleCase() {
         // given
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+
         Reminder r1 = new Reminder();
         r1.setId(1L);
         r1.setName("B");
@@ -59,9 +72,9 @@ class ReminderQueryServiceTest {
         r2.setId(2L);
         r2.setName("A");
 
-        // Явно указываем тип в any(), чтобы выбрать findAll(Specification<Reminder>)
-        when(reminderRepository.findAll(Mockito.<Specification<Reminder>>any()))
-                .thenReturn(List.of(r2, r1));
+        // Первая страница (курсора нет), порядок — (name, id)
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.NAME), isNull(), eq(20)))
+                .thenReturn(new ReminderKeysetPage(List.of(r2, r1), null));
 
         ReminderResponseDto dto1 = new ReminderResponseDto();
         dto1.setId(2L);
@@ -75,12 +88,45 @@ class ReminderQueryServiceTest {
         when(reminderMapper.toResponseDto(r1)).thenReturn(dto2);
 
         // when
-        List<ReminderResponseDto> result = queryService.sortReminders("test-sub", "name");
+        ReminderPageDto result = queryService.sortReminders("test-sub", "name", null, 20);
+
+        // then
+        assertEquals(2, result.getContent().size());
+        assertEquals(2L, result.getContent().get(0).getId()); // "A"
+        assertEquals(1L, result.getContent().get(1).getId()); // "B"
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void sortReminders_NextPageByCursor_SizeCapped() {
+        // given: курсор после напоминания "A" (id = 2); size больше предела
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        Reminder last = new Reminder();
+        last.setId(2L);
+        last.setName("A");
+        String cursor = ReminderCursor.after(ReminderSortKey.NAME, last).encode();
+
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.NAME),
+                eq(new ReminderCursor(ReminderSortKey.NAME, "A", 2L)), eq(100)))
+                .thenReturn(new ReminderKeysetPage(List.of(), null));
+
+        // when
+        ReminderPageDto result = queryService.sortReminders("test-sub", "name", cursor, 5000);
 
         // then
-        assertEquals(2, result.size());
-        assertEquals(2L, result.get(0).getId()); // "A"
-        assertEquals(1L, result.get(1).getId()); // "B"
+        assertTrue(result.getContent().isEmpty());
+    }
+
+    @Test
+    void sortReminders_InvalidSortOrForeignCursor() {
+        // Курсор выдан для порядка по времени — для порядка по названию не подходит
+        String cursor = new ReminderCursor(ReminderSortKey.REMIND_AT, Instant.parse("2025-01-02T09:00:00Z"), 7L).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> queryService.sortReminders("test-sub", "size", null, 20));
+        assertThrows(IllegalArgumentException.class, () -> queryService.sortReminders("test-sub", "name", "%%%", 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> queryService.sortReminders("test-sub", "name", cursor, 20));
+        verify(reminderRepository, never()).findPage(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -97,9 +143,9 @@ class ReminderQueryServiceTest {
         Reminder r2 = new Reminder();
         r2.setId(101L);
 
-        // Явно указываем тип <Specification<Reminder>>
-        when(reminderRepository.findAll(Mockito.<Specification<Reminder>>any()))
-                .thenReturn(List.of(r1, r2));
+        // Фильтр выдаётся в порядке (remind_at, id)
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.REMIND_AT), isNull(), eq(20)))
+                .thenReturn(new ReminderKeysetPage(List.of(r1, r2), null));
 
         ReminderResponseDto dto1 = new ReminderResponseDto();
         dto1.setId(100L);
@@ -110,13 +156,13 @@ class ReminderQueryServiceTest {
         when(reminderMapper.toResponseDto(r2)).thenReturn(dto2);
 
         // when
-        List<ReminderResponseDto> result =
-                queryService.filterReminders("test-sub", filterDto);
+        ReminderPageDto result =
+                queryService.filterReminders("test-sub", filterDto, null, 20);
 
         // then
-        assertEquals(2, result.size());
+        assertEquals(2, result.getContent().size());
         verify(reminderRepository, times(1))
-                .findAll(Mockito.<Specification<Reminder>>any());
+                .findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.REMIND_AT), isNull(), eq(20));
         verify(userRepository, times(1)).findBySub("test-sub");
     }
 
@@ -127,7 +173,7 @@ class ReminderQueryServiceTest {
 
         // when & then
         assertThrows(RuntimeException.class, () ->
-                queryService.filterReminders("unknown-sub", new ReminderFilterRequestDto()));
+                queryService.filterReminders("unknown-sub", new ReminderFilterRequestDto(), null, 20));
     }
 
     @Test
@@ -141,8 +187,8 @@ class ReminderQueryServiceTest {
         r1.setName("Test Reminder");
 
         when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
-        when(reminderRepository.findAll(Mockito.<Specification<Reminder>>any()))
-                .thenReturn(List.of(r1));
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.REMIND_AT), isNull(), eq(20)))
+                .thenReturn(new ReminderKeysetPage(List.of(r1), null));
 
         ReminderResponseDto dto1 = new ReminderResponseDto();
         dto1.setId(1L);
@@ -151,7 +197,7 @@ class ReminderQueryServiceTest {
         when(reminderMapper.toResponseDto(r1)).thenReturn(dto1);
 
         // when
-        List<ReminderResponseDto> result = queryService.searchReminders("test-sub", searchDto);
+        List<ReminderResponseDto> result = queryService.searchReminders("test-sub", searchDto, null, 20).getContent();
 
         // then
         assertEquals(1, result.size());
@@ -169,8 +215,8 @@ class ReminderQueryServiceTest {
         r1.setRemindDate(LocalDate.of(2025, 1, 10));
 
         when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
-        when(reminderRepository.findAll(Mockito.<Specification<Reminder>>any()))
-                .thenReturn(List.of(r1));
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.REMIND_AT), isNull(), eq(20)))
+                .thenReturn(new ReminderKeysetPage(List.of(r1), null));
 
         ReminderResponseDto dto1 = new ReminderResponseDto();
         dto1.setId(1L);
@@ -179,7 +225,7 @@ class ReminderQueryServiceTest {
         when(reminderMapper.toResponseDto(r1)).thenReturn(dto1);
 
         // when
-        List<ReminderResponseDto> result = queryService.searchReminders("test-sub", searchDto);
+        List<ReminderResponseDto> result = queryService.searchReminders("test-sub", searchDto, null, 20).getContent();
 
         // then
         assertEquals(1, result.size());
@@ -197,8 +243,8 @@ class ReminderQueryServiceTest {
         r1.setRemindTime(LocalTime.of(10, 0));
 
         when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
-        when(reminderRepository.findAll(Mockito.<Specification<Reminder>>any()))
-                .thenReturn(List.of(r1));
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.REMIND_AT), isNull(), eq(20)))
+                .thenReturn(new ReminderKeysetPage(List.of(r1), null));
 
         ReminderResponseDto dto1 = new ReminderResponseDto();
         dto1.setId(1L);
@@ -207,13 +253,72 @@ class ReminderQueryServiceTest {
         when(reminderMapper.toResponseDto(r1)).thenReturn(dto1);
 
         // when
-        List<ReminderResponseDto> result = queryService.searchReminders("test-sub", searchDto);
+        List<ReminderResponseDto> result = queryService.searchReminders("test-sub", searchDto, null, 20).getContent();
 
         // then
         assertEquals(1, result.size());
         assertEquals(LocalTime.of(10, 0), result.get(0).getRemindTime());
     }
 
+    @Test
+    void searchReminders_FullText_RankedWithRankCursor() {
+        // given: три совпадения, страница из двух — в порядке ранга
+        ReminderSearchRequestDto searchDto = new ReminderSearchRequestDto();
+        searchDto.setQuery("  врач  ");
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.searchFullText(11L, "врач", Float.MAX_VALUE, 0L, 3))
+                .thenReturn(List.of(hit(7L, 0.6f), hit(3L, 0.3f), hit(5L, 0.1f)));
+
+        Reminder r3 = new Reminder();
+        r3.setId(3L);
+        Reminder r7 = new Reminder();
+        r7.setId(7L);
+        when(reminderRepository.findAllById(List.of(7L, 3L))).thenReturn(List.of(r3, r7));
+        ReminderResponseDto dto3 = new ReminderResponseDto();
+        dto3.setId(3L);
+        ReminderResponseDto dto7 = new ReminderResponseDto();
+        dto7.setId(7L);
+        when(reminderMapper.toResponseDto(r3)).thenReturn(dto3);
+        when(reminderMapper.toResponseDto(r7)).thenReturn(dto7);
+
+        // when
+        ReminderPageDto result = queryService.searchReminders("test-sub", searchDto, null, 2);
+
+        // then: порядок ранга, а не findAllById; следующая страница — после (0.3, 3)
+        assertEquals(List.of(7L, 3L), result.getContent().stream().map(ReminderResponseDto::getId).toList());
+        assertEquals(new ReminderCursor(ReminderSortKey.RANK, 0.3f, 3L),
+                ReminderCursor.decode(result.getNextCursor(), ReminderSortKey.RANK));
+        verify(reminderRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchReminders_FullTextDisabled_FallsBackToLike() {
+        // given: профиль без полнотекстового индекса (H2)
+        ReflectionTestUtils.setField(queryService, "fullText", false);
+        ReminderSearchRequestDto searchDto = new ReminderSearchRequestDto();
+        searchDto.setQuery("врач");
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.findPage(Mockito.<Specification<Reminder>>any(), eq(ReminderSortKey.REMIND_AT), isNull(), eq(20)))
+                .thenReturn(new ReminderKeysetPage(List.of(), null));
+
+        // when
+        queryService.searchReminders("test-sub", searchDto, null, 20);
+
+        // then
+        verify(reminderRepository, never()).searchFullText(anyLong(), anyString(), anyFloat(), anyLong(), anyInt());
+    }
+
+    @Test
+    void searchReminders_FullTextWithOtherFields_Rejected() {
+        ReminderSearchRequestDto searchDto = new ReminderSearchRequestDto();
+        searchDto.setQuery("врач");
+        searchDto.setRemindDate(LocalDate.of(2025, 1, 10));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> queryService.searchReminders("test-sub", searchDto, null, 20));
+        verifyNoInteractions(reminderRepository);
+    }
+
     @Test
     void searchReminders_UserNotFound() {
         // given
@@ -221,6 +326,20 @@ class ReminderQueryServiceTest {
 
         // when & then
         assertThrows(RuntimeException.class, () ->
-                queryService.searchReminders("unknown-sub", new ReminderSearchRequestDto()));
+                queryService.searchReminders("unknown-sub", new ReminderSearchRequestDto(), null, 20));
+    }
+
+    private static ReminderSearchHit hit(Long id, float rank) {
+        return new ReminderSearchHit() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Float getRank() {
+                return rank;
+            }
+        };
     }
 }
@@ -0,0 +1,176 @@
+package unit.com.patrick.reminder.service;
+
+import com.patrick.reminder.dto.reminder.ReminderSuggestionDto;
+import com.patrick.reminder.entity.User;
+import com.patrick.reminder.repository.ReminderRepository;
+import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.repository.projection.ReminderSuggestion;
+import com.patrick.reminder.service.reminder.ReminderSuggestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReminderSuggestServiceTest {
+
+    @Mock
+    private ReminderRepository reminderRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private ReminderSuggestService suggestService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new User();
+        testUser.setId(11L);
+        testUser.setSub("test-sub");
+    }
+
+    @Test
+    void suggest_TrigramQueryByLowercasedText() {
+        // given
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.suggestByTrigram(11L, "врач", "%врач%", "врач%", 10))
+                .thenReturn(List.of(suggestion(5L, "Врач в 10:00")));
+
+        // when
+        List<ReminderSuggestionDto> result = suggestService.suggest("test-sub", "  Врач ");
+
+        // then
+        assertEquals(List.of(new ReminderSuggestionDto(5L, "Врач в 10:00")), result);
+    }
+
+    @Test
+    void suggest_RepeatedPrefixServedFromCache() {
+        // given
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.suggestByTrigram(11L, "вр", "%вр%", "вр%", 10))
+                .thenReturn(List.of(suggestion(5L, "Врач")));
+
+        // when
+        List<ReminderSuggestionDto> first = suggestService.suggest("test-sub", "вр");
+        List<ReminderSuggestionDto> second = suggestService.suggest("test-sub", "ВР");
+
+        // then — второй запрос не доходит до БД, даже за пользователем
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findBySub("test-sub");
+        verify(reminderRepository, times(1)).suggestByTrigram(11L, "вр", "%вр%", "вр%", 10);
+    }
+
+    @Test
+    void suggest_EvictForcesReload() {
+        // given
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.suggestByTrigram(11L, "вр", "%вр%", "вр%", 10))
+                .thenReturn(List.of(), List.of(suggestion(6L, "Врач")));
+
+        // when
+        List<ReminderSuggestionDto> before = suggestService.suggest("test-sub", "вр");
+        suggestService.evict("test-sub");
+        List<ReminderSuggestionDto> after = suggestService.suggest("test-sub", "вр");
+
+        // then
+        assertTrue(before.isEmpty());
+        assertEquals(List.of(new ReminderSuggestionDto(6L, "Врач")), after);
+        verify(reminderRepository, times(2)).suggestByTrigram(11L, "вр", "%вр%", "вр%", 10);
+    }
+
+    @Test
+    void suggest_EvictDuringLoad_StaleResultNotCached() {
+        // given: напоминание переименовано, пока загрузка подсказок ещё шла
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.suggestByTrigram(11L, "вр", "%вр%", "вр%", 10))
+                .thenAnswer(invocation -> {
+                    suggestService.evict("test-sub");
+                    return List.of(suggestion(6L, "Врач"));
+                })
+                .thenReturn(List.of(suggestion(6L, "Врач-терапевт")));
+
+        // when
+        suggestService.suggest("test-sub", "вр");
+        List<ReminderSuggestionDto> after = suggestService.suggest("test-sub", "вр");
+
+        // then: результат, загруженный до сброса, в кэш не попал
+        assertEquals(List.of(new ReminderSuggestionDto(6L, "Врач-терапевт")), after);
+        verify(reminderRepository, times(2)).suggestByTrigram(11L, "вр", "%вр%", "вр%", 10);
+    }
+
+    @Test
+    void suggest_ExpiredEntryReloaded() {
+        // given
+        ReflectionTestUtils.setField(suggestService, "cacheSeconds", 0L);
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.suggestByTrigram(11L, "вр", "%вр%", "вр%", 10)).thenReturn(List.of());
+
+        // when
+        suggestService.suggest("test-sub", "вр");
+        suggestService.suggest("test-sub", "вр");
+
+        // then
+        verify(reminderRepository, times(2)).suggestByTrigram(11L, "вр", "%вр%", "вр%", 10);
+    }
+
+    @Test
+    void suggest_BlankText_NoQuery() {
+        // when
+        List<ReminderSuggestionDto> result = suggestService.suggest("test-sub", "   ");
+
+        // then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userRepository, reminderRepository);
+    }
+
+    @Test
+    void suggest_LikeFallbackEscapesWildcards() {
+        // given
+        ReflectionTestUtils.setField(suggestService, "trigram", false);
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(testUser));
+        when(reminderRepository.suggestByLike(11L, "%50\\%\\_%", PageRequest.of(0, 10)))
+                .thenReturn(List.of(suggestion(7L, "Скидка 50%_")));
+
+        // when
+        List<ReminderSuggestionDto> result = suggestService.suggest("test-sub", "50%_");
+
+        // then
+        assertEquals(List.of(new ReminderSuggestionDto(7L, "Скидка 50%_")), result);
+        verify(reminderRepository, never()).suggestByTrigram(anyLong(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void suggest_UserNotFound() {
+        // given
+        when(userRepository.findBySub("unknown")).thenReturn(Optional.empty());
+
+        // when / then
+        assertThrows(RuntimeException.class, () -> suggestService.suggest("unknown", "вр"));
+    }
+
+    private static ReminderSuggestion suggestion(Long id, String name) {
+        return new ReminderSuggestion() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
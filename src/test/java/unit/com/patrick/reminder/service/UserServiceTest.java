@@ -5,6 +5,7 @@ import com.patrick.reminder.dto.user.UserResponseDto;
 import com.patrick.reminder.entity.User;
 import com.patrick.reminder.mapper.UserMapper;
 import com.patrick.reminder.repository.UserRepository;
+import com.patrick.reminder.service.reminder.ReminderCrudService;
 import com.patrick.reminder.service.user.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +24,8 @@ class UserServiceTest {
     private UserRepository userRepository;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ReminderCrudService reminderCrudService;
 
     @InjectMocks
     private UserService userService;
@@ -108,6 +111,38 @@ class UserServiceTest {
         verify(userRepository, times(1)).save(existing);
     }
 
+    @Test
+    void createOrUpdateUser_TimeZoneChanged_RezonesReminders() {
+        // given
+        UserRequestDto dto = new UserRequestDto();
+        dto.setTimeZone("Europe/Moscow");
+
+        User existing = new User();
+        existing.setId(33L);
+        existing.setSub("test-sub");
+
+        when(userRepository.findBySub("test-sub")).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        // when
+        userService.createOrUpdateUser("test-sub", dto);
+
+        // then: напоминания пересчитываются под новый пояс
+        assertEquals("Europe/Moscow", existing.getTimeZone());
+        verify(reminderCrudService).rezoneReminders(existing);
+    }
+
+    @Test
+    void createOrUpdateUser_UnknownTimeZone_Throws() {
+        // given
+        UserRequestDto dto = new UserRequestDto();
+        dto.setTimeZone("Mars/Olympus");
+
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> userService.createOrUpdateUser("test-sub", dto));
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     void getUserById_Found() {
         // given
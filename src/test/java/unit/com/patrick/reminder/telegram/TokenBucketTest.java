@@ -0,0 +1,52 @@
+package unit.com.patrick.reminder.telegram;
+
+import com.patrick.reminder.telegram.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long START = 5 * SECOND;
+
+    @Test
+    void reserve_SpacesRequestsEvenly() {
+        TokenBucket bucket = new TokenBucket(10, 1); // интервал 100 мс
+
+        assertEquals(START, bucket.reserve(START));
+        assertEquals(START + SECOND / 10, bucket.reserve(START));
+        assertEquals(START + 2 * SECOND / 10, bucket.reserve(START));
+    }
+
+    @Test
+    void reserve_AllowsBurstThenSmooths() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertEquals(START, bucket.reserve(START));
+        assertEquals(START, bucket.reserve(START));
+        assertEquals(START, bucket.reserve(START));
+        assertEquals(START + SECOND, bucket.reserve(START));
+    }
+
+    @Test
+    void reserve_IdleBucketDoesNotAccumulateMoreThanBurst() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        bucket.reserve(START);
+
+        // после долгого простоя — сразу один запрос, следующий снова через интервал
+        long later = START + 60 * SECOND;
+        assertEquals(later, bucket.reserve(later));
+        assertEquals(later + SECOND / 10, bucket.reserve(later));
+    }
+
+    @Test
+    void pauseUntil_DelaysNextReservation() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        bucket.reserve(START);
+
+        bucket.pauseUntil(START + 3 * SECOND);
+
+        assertEquals(START + 3 * SECOND, bucket.reserve(START + SECOND));
+    }
+}
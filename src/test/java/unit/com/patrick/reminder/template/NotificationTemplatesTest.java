@@ -0,0 +1,104 @@
+package unit.com.patrick.reminder.template;
+
+import com.patrick.reminder.repository.projection.ReminderDispatchView;
+import com.patrick.reminder.service.notification.Notification;
+import com.patrick.reminder.template.NotificationTemplate;
+import com.patrick.reminder.template.NotificationTemplates;
+import com.patrick.reminder.template.TemplateKind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationTemplatesTest {
+
+    @TempDir
+    Path dir;
+
+    private NotificationTemplates templates;
+    private Notification single;
+    private Notification digest;
+
+    @BeforeEach
+    void setup() {
+        ReminderDispatchView first = new ReminderDispatchView(1L, "Врач", "Взять <полис> & паспорт",
+                LocalDate.of(2025, 1, 2), LocalTime.of(10, 30), 1L, "Patrick", "user@example.com", null, null, null, true);
+        ReminderDispatchView second = new ReminderDispatchView(2L, "Аптека", "",
+                LocalDate.of(2025, 1, 2), LocalTime.of(11, 0), 1L, "Patrick", "user@example.com", null, null, null, true);
+        single = Notification.of(first);
+        digest = new Notification(List.of(first, second));
+
+        templates = new NotificationTemplates();
+        ReflectionTestUtils.setField(templates, "templatesDir", dir.toString());
+        ReflectionTestUtils.setField(templates, "reloadSeconds", 3600L);
+        templates.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        templates.stop();
+    }
+
+    @Test
+    void builtIn_SingleAndDigest() {
+        assertEquals("Напоминание: Врач", templates.require(TemplateKind.EMAIL_SUBJECT, null).render(single));
+        assertEquals("Напоминания: 2", templates.require(TemplateKind.EMAIL_SUBJECT, null).render(digest));
+        assertEquals("Напоминание: Врач\nВзять <полис> & паспорт\nДата: 2025-01-02\nВремя: 10:30\n",
+                templates.require(TemplateKind.TELEGRAM, null).render(single));
+    }
+
+    @Test
+    void builtIn_MissedSummary() {
+        Notification missed = Notification.missed(single.reminders().get(0), 7);
+
+        assertEquals("Пропущенные напоминания: 7", templates.require(TemplateKind.EMAIL_SUBJECT, null).render(missed));
+        assertEquals("Пока сервис был недоступен, пропущено напоминаний: 7. Последнее из них:\n\n"
+                        + "Напоминание: Врач\nВзять <полис> & паспорт\nДата: 2025-01-02\nВремя: 10:30\n",
+                templates.require(TemplateKind.TELEGRAM, null).render(missed));
+    }
+
+    @Test
+    void locale_FallsBackToLanguageThenDefault() {
+        assertEquals("Reminder: Врач", templates.require(TemplateKind.EMAIL_SUBJECT, "en-GB").render(single));
+        assertEquals("Напоминание: Врач", templates.require(TemplateKind.EMAIL_SUBJECT, "de").render(single));
+    }
+
+    @Test
+    void html_ValuesEscaped_EmptySectionsSkipped() {
+        String html = templates.require(TemplateKind.EMAIL_HTML, "ru").render(digest);
+        assertTrue(html.contains("Взять &lt;полис&gt; &amp; паспорт"));
+        // У второго напоминания описания нет — абзаца для него нет
+        assertEquals(1, html.split("<p style=\"margin: 4px 0;\">", -1).length - 1);
+    }
+
+    @Test
+    void reload_DirectoryOverridesBuiltIn_InvalidTemplateKeepsPrevious() throws Exception {
+        Path file = dir.resolve("telegram_ru.mustache");
+        Files.writeString(file, "{{#reminders}}* {{name}} {{time}}\n{{/reminders}}");
+        templates.reloadIfChanged();
+        assertEquals("* Врач 10:30\n* Аптека 11:00\n", templates.require(TemplateKind.TELEGRAM, "ru").render(digest));
+
+        // Ошибка в шаблоне — остаются прежние
+        Files.writeString(file, "{{#reminders}}{{unknown}}");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        templates.reloadIfChanged();
+        assertEquals("* Врач 10:30\n", templates.require(TemplateKind.TELEGRAM, "ru").render(single));
+    }
+
+    @Test
+    void compile_SyntaxErrors() {
+        assertThrows(IllegalArgumentException.class, () -> NotificationTemplate.compile("{{#digest}}x", false));
+        assertThrows(IllegalArgumentException.class, () -> NotificationTemplate.compile("{{/digest}}", false));
+        assertThrows(IllegalArgumentException.class, () -> NotificationTemplate.compile("{{foo}}", false));
+    }
+}